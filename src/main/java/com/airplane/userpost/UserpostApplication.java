@@ -1,12 +1,18 @@
 package com.airplane.userpost;
 
+import com.airplane.userpost.migration.MigrationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UserpostApplication {
 
 	public static void main(String[] args) {
+		if(MigrationRunner.isRequested(args)) {
+			System.exit(MigrationRunner.run(args));
+		}
 		SpringApplication.run(UserpostApplication.class, args);
 	}
 
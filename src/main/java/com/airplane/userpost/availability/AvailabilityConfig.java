@@ -0,0 +1,55 @@
+package com.airplane.userpost.availability;
+
+import com.airplane.userpost.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class AvailabilityConfig {
+
+    //PostgreSQL only streams with a fetch size inside a transaction, otherwise the whole table is buffered
+    @Bean
+    public UserAvailabilityService userAvailabilityService(
+            UserRepository userRepository, DataSource dataSource, PlatformTransactionManager transactionManager,
+            @Value("${userpost.availability.expected-users:1000000}") long expectedUsers,
+            @Value("${userpost.availability.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${userpost.availability.fetch-size:1000}") int fetchSize,
+            @Value("${userpost.availability.max-batch-ids:500}") int maxBatchIds) {
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        return new UserAvailabilityService(userRepository, jdbcTemplate, transactionTemplate,
+                expectedUsers, falsePositiveRate, maxBatchIds);
+    }
+
+    @Bean
+    public MeterBinder availabilityMetrics(UserAvailabilityService userAvailabilityService) {
+        return registry -> {
+            FunctionCounter.builder("userpost.availability.checks", userAvailabilityService,
+                            UserAvailabilityService::getDefinitelyFreeCount)
+                    .tag("result", "filter_miss")
+                    .description("Availability checks answered by the Bloom filter alone")
+                    .register(registry);
+            FunctionCounter.builder("userpost.availability.checks", userAvailabilityService,
+                            UserAvailabilityService::getConfirmedCount)
+                    .tag("result", "confirmed")
+                    .description("Availability checks confirmed against the unique index")
+                    .register(registry);
+            FunctionCounter.builder("userpost.availability.false-positives", userAvailabilityService,
+                            UserAvailabilityService::getFalsePositiveCount)
+                    .description("Filter hits the database reported as free")
+                    .register(registry);
+        };
+    }
+}
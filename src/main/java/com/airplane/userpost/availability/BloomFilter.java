@@ -0,0 +1,89 @@
+package com.airplane.userpost.availability;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Set membership with false positives but no false negatives, sized for expectedInsertions at falsePositiveRate.
+//Bit positions are derived from one 64-bit hash with double hashing (h1 + i * h2).
+//Reads are lock free, put may run concurrently with mightContain.
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    //bit indexes come from an int combination of the hashes, 2^31 bits (256 MB) at most
+    private static final int MAX_WORDS = 1 << 25;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if(expectedInsertions < 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+        }
+        if(falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1): " + falsePositiveRate);
+        }
+
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int wordCount = (int) Math.min(MAX_WORDS, (bits + 63) >>> 6);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * LN2));
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for(int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            long current = words.get(word);
+            while((current & mask) == 0 && !words.weakCompareAndSetVolatile(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for(int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private long index(int combined) {
+        //a negative combination is flipped, as in Guava's BloomFilterStrategies
+        return (combined < 0 ? ~combined : combined) % bitCount;
+    }
+
+    //FNV-1a over the chars followed by the murmur3 finalizer, so both halves are well mixed
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,204 @@
+package com.airplane.userpost.availability;
+
+import com.airplane.userpost.exception.InvalidFieldException;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.airplane.userpost.invalidation.InvalidationListener;
+import com.airplane.userpost.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+//Answers GET /users/availability. A value missing from the Bloom filter is definitely free,
+//only filter hits are confirmed against the unique indexes on users.username and users.email.
+//The filters hold the lowercased values User.normalizeUniqueFields stores. They are rebuilt at startup and
+//after a transport reset, created and renamed users arrive through the invalidation bus from every node.
+//Deleted users stay in the filter until the next rebuild, those checks are confirmed by the database.
+@Slf4j
+public class UserAvailabilityService implements InvalidationListener, SmartInitializingSingleton {
+
+    static final String SCAN_USERS = "select username, email from users";
+    static final String USERS_BY_IDS = "select username, email from users where id in (:ids)";
+
+    private record Filters(BloomFilter userNames, BloomFilter emails) {
+    }
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final int maxBatchIds;
+
+    //all filter writes run on this thread, a rebuild and the ids queued meanwhile never interleave
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("availability-filter").factory());
+    private final Set<Long> pendingUserIds = new LinkedHashSet<>();
+
+    private final AtomicLong definitelyFree = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    //null until the first rebuild finished, every check goes to the database until then
+    private volatile Filters filters;
+
+    public UserAvailabilityService(UserRepository userRepository, JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate, long expectedUsers,
+                                   double falsePositiveRate, int maxBatchIds) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxBatchIds = maxBatchIds;
+    }
+
+    //only the given values are answered, true means the value can be used
+    public Map<String, Boolean> checkAvailability(String userName, String email) {
+        if(isBlank(userName) && isBlank(email)) {
+            throw new InvalidFieldException("Username or email is required.");
+        }
+
+        Filters current = filters;
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if(!isBlank(userName)) {
+            String normalized = userName.toLowerCase();
+            availability.put("username", isAvailable(current == null ? null : current.userNames(), normalized,
+                    () -> userRepository.existsByUserName(normalized)));
+        }
+        if(!isBlank(email)) {
+            String normalized = email.toLowerCase();
+            availability.put("email", isAvailable(current == null ? null : current.emails(), normalized,
+                    () -> userRepository.existsByEmail(normalized)));
+        }
+        return availability;
+    }
+
+    private boolean isAvailable(BloomFilter filter, String value, BooleanSupplier exists) {
+        if(filter != null && !filter.mightContain(value)) {
+            definitelyFree.incrementAndGet();
+            return true;
+        }
+
+        confirmed.incrementAndGet();
+        boolean taken = exists.getAsBoolean();
+        if(!taken && filter != null) falsePositives.incrementAndGet();
+        return !taken;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        updater.execute(this::rebuild);
+    }
+
+    //post keys also carry their user, a few harmless lookups instead of telling user and post events apart
+    @Override
+    public void invalidate(Set<EntityKey> keys) {
+        boolean schedule;
+        synchronized(pendingUserIds) {
+            schedule = pendingUserIds.isEmpty();
+            for(EntityKey key: keys) {
+                if(EntityKey.USER.equals(key.type())) pendingUserIds.add(key.id());
+            }
+            schedule &= !pendingUserIds.isEmpty();
+        }
+        if(schedule) updater.execute(this::addPendingUsers);
+    }
+
+    @Override
+    public void invalidateAll() {
+        updater.execute(this::rebuild);
+    }
+
+    void addPendingUsers() {
+        List<Long> userIds;
+        synchronized(pendingUserIds) {
+            userIds = new ArrayList<>(pendingUserIds);
+            pendingUserIds.clear();
+        }
+
+        Filters current = filters;
+        if(current == null || userIds.isEmpty()) return;
+
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        for(int from = 0; from < userIds.size(); from += maxBatchIds) {
+            List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + maxBatchIds));
+            try {
+                namedJdbcTemplate.query(USERS_BY_IDS, new MapSqlParameterSource("ids", chunk), resultSet -> {
+                    current.userNames().put(resultSet.getString(1));
+                    current.emails().put(resultSet.getString(2));
+                });
+            } catch(RuntimeException exception) {
+                //a missed user would be reported free, the next rebuild picks it up
+                log.error("Adding {} users to the availability filter failed: {}", chunk.size(), exception.getMessage());
+                updater.execute(this::rebuild);
+                return;
+            }
+        }
+    }
+
+    //streams the unique columns, sized for twice the current user count so growth keeps the false positive rate
+    void rebuild() {
+        long start = System.nanoTime();
+        try {
+            Filters rebuilt = transactionTemplate.execute(status -> {
+                Long userCount = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+                long expected = Math.max(expectedUsers, 2 * (userCount == null ? 0 : userCount));
+                Filters building = new Filters(new BloomFilter(expected, falsePositiveRate),
+                        new BloomFilter(expected, falsePositiveRate));
+
+                jdbcTemplate.query(SCAN_USERS, resultSet -> {
+                    building.userNames().put(resultSet.getString(1));
+                    building.emails().put(resultSet.getString(2));
+                });
+                return building;
+            });
+            filters = rebuilt;
+
+            log.info("Availability filter rebuilt with {} bits per column in {} ms.",
+                    rebuilt.userNames().bitCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch(RuntimeException exception) {
+            //the previous filter stays, or none and every check is confirmed by the database
+            log.error("Availability filter rebuild failed: {}", exception.getMessage());
+        }
+    }
+
+    boolean isReady() {
+        return filters != null;
+    }
+
+    public long getDefinitelyFreeCount() {
+        return definitelyFree.get();
+    }
+
+    public long getConfirmedCount() {
+        return confirmed.get();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.get();
+    }
+
+    public void close() throws InterruptedException {
+        updater.shutdownNow();
+        updater.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,107 @@
+package com.airplane.userpost.coalescing;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+//DataLoader-style micro-batching: point lookups arriving within window, or until maxBatchSize ids are waiting,
+//are answered by one batch query in one read-only transaction. Waiting callers hold no connection.
+//The window is timed by a virtual thread per batch, a full batch is dispatched at once by the caller that filled it.
+public class BatchLoader<V> {
+
+    private final BatchLoaders batchLoaders;
+    private final Function<List<Long>, Map<Long, V>> batchLoad;
+    private final Function<Long, RuntimeException> notFound;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private long batchNumber;
+
+    //batchLoad returns the found entities by id, notFound creates the exception for every id it left out
+    BatchLoader(BatchLoaders batchLoaders, Function<List<Long>, Map<Long, V>> batchLoad,
+                Function<Long, RuntimeException> notFound) {
+        this.batchLoaders = batchLoaders;
+        this.batchLoad = batchLoad;
+        this.notFound = notFound;
+    }
+
+    public boolean isEnabled() {
+        return batchLoaders.isEnabled();
+    }
+
+    public V load(Long id) {
+        CompletableFuture<V> future;
+        Map<Long, CompletableFuture<V>> full = null;
+        long timedBatch = -1;
+        synchronized(lock) {
+            future = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if(pending.size() >= batchLoaders.getMaxBatchSize()) {
+                full = takePending();
+            } else if(pending.size() == 1) {
+                timedBatch = batchNumber;
+            }
+        }
+
+        if(full != null) {
+            dispatch(full);
+        } else if(timedBatch >= 0) {
+            long batch = timedBatch;
+            Thread.ofVirtual().name("batch-loader").start(() -> dispatchAfterWindow(batch));
+        }
+        return await(future);
+    }
+
+    private void dispatchAfterWindow(long batch) {
+        Duration window = batchLoaders.getWindow();
+        LockSupport.parkNanos(window.toNanos());
+
+        Map<Long, CompletableFuture<V>> timed;
+        synchronized(lock) {
+            //already dispatched because it filled up, a later batch has its own timer
+            if(batch != batchNumber || pending.isEmpty()) return;
+            timed = takePending();
+        }
+        dispatch(timed);
+    }
+
+    private Map<Long, CompletableFuture<V>> takePending() {
+        Map<Long, CompletableFuture<V>> taken = pending;
+        pending = new LinkedHashMap<>();
+        batchNumber++;
+        return taken;
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<V>> batch) {
+        try {
+            List<Long> ids = List.copyOf(batch.keySet());
+            Map<Long, V> found = batchLoaders.getReadOnlyTransaction().execute(status -> batchLoad.apply(ids));
+            batchLoaders.recordBatch(ids.size());
+
+            batch.forEach((id, future) -> {
+                V value = found == null ? null : found.get(id);
+                if(value == null) {
+                    future.completeExceptionally(notFound.apply(id));
+                } else {
+                    future.complete(value);
+                }
+            });
+        } catch(RuntimeException | Error exception) {
+            batch.values().forEach(future -> future.completeExceptionally(exception));
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch(CompletionException exception) {
+            if(exception.getCause() instanceof RuntimeException cause) throw cause;
+            if(exception.getCause() instanceof Error cause) throw cause;
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.airplane.userpost.coalescing;
+
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+//Creates the services' BatchLoaders with the shared settings and counts their queries.
+//Opt-in: with enabled=false getPostById/getUserById keep their one query per (coalesced) lookup.
+public class BatchLoaders {
+
+    private final TransactionOperations readOnlyTransaction;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedIds = new AtomicLong();
+
+    public BatchLoaders(TransactionOperations readOnlyTransaction, boolean enabled, Duration window, int maxBatchSize) {
+        if(maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public <V> BatchLoader<V> create(Function<List<Long>, Map<Long, V>> batchLoad,
+                                     Function<Long, RuntimeException> notFound) {
+        return new BatchLoader<>(this, batchLoad, notFound);
+    }
+
+    void recordBatch(int ids) {
+        batches.incrementAndGet();
+        batchedIds.addAndGet(ids);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    TransactionOperations getReadOnlyTransaction() {
+        return readOnlyTransaction;
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getBatchedIdCount() {
+        return batchedIds.get();
+    }
+}
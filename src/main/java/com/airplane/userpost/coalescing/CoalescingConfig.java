@@ -0,0 +1,85 @@
+package com.airplane.userpost.coalescing;
+
+import com.airplane.userpost.datasource.ReadYourWritesTracker;
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.invalidation.EntityKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+//Single-flight loads and opt-in micro-batching for PostService.getPostById and UserService.getUserById.
+//enabled flags are read at runtime rather than through conditions, so an AOT build can still switch them.
+@Configuration
+public class CoalescingConfig {
+
+    @Bean
+    public SingleFlight<PostDto> postLoads(PlatformTransactionManager transactionManager,
+                                           ObjectProvider<ReadYourWritesTracker> readYourWritesTracker,
+                                           @Value("${userpost.coalescing.enabled:true}") boolean enabled) {
+        return new SingleFlight<>(EntityKey.POST, readOnly(transactionManager), bypass(readYourWritesTracker), enabled);
+    }
+
+    @Bean
+    public SingleFlight<UserDto> userLoads(PlatformTransactionManager transactionManager,
+                                           ObjectProvider<ReadYourWritesTracker> readYourWritesTracker,
+                                           @Value("${userpost.coalescing.enabled:true}") boolean enabled) {
+        return new SingleFlight<>(EntityKey.USER, readOnly(transactionManager), bypass(readYourWritesTracker), enabled);
+    }
+
+    @Bean
+    public BatchLoaders batchLoaders(PlatformTransactionManager transactionManager,
+                                     @Value("${userpost.batching.enabled:false}") boolean enabled,
+                                     @Value("${userpost.batching.window:PT0.0005S}") Duration window,
+                                     @Value("${userpost.batching.max-batch-size:100}") int maxBatchSize) {
+        return new BatchLoaders(readOnly(transactionManager), enabled, window, maxBatchSize);
+    }
+
+    @Bean
+    public MeterBinder coalescingMetrics(List<SingleFlight<?>> singleFlights, BatchLoaders batchLoaders) {
+        return registry -> {
+            FunctionCounter.builder("userpost.batching.queries", batchLoaders, BatchLoaders::getBatchCount)
+                    .description("Batch queries run for point lookups")
+                    .register(registry);
+            FunctionCounter.builder("userpost.batching.ids", batchLoaders, BatchLoaders::getBatchedIdCount)
+                    .description("Point lookups answered by batch queries")
+                    .register(registry);
+            for(SingleFlight<?> singleFlight: singleFlights) {
+                Gauge.builder("userpost.coalescing.in-flight", singleFlight, SingleFlight::getInFlightCount)
+                        .tag("entity", singleFlight.getEntityType())
+                        .description("Loads other callers can currently join")
+                        .register(registry);
+                FunctionCounter.builder("userpost.coalescing.loads", singleFlight, SingleFlight::getLoadCount)
+                        .tag("entity", singleFlight.getEntityType())
+                        .description("Loads that went to the database")
+                        .register(registry);
+                FunctionCounter.builder("userpost.coalescing.coalesced", singleFlight, SingleFlight::getCoalescedCount)
+                        .tag("entity", singleFlight.getEntityType())
+                        .description("Calls answered by another caller's in-flight load")
+                        .register(registry);
+            }
+        };
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    //the tracker only exists with read replicas, a follower's read must not come from a replica the leader picked
+    private static BooleanSupplier bypass(ObjectProvider<ReadYourWritesTracker> readYourWritesTracker) {
+        ReadYourWritesTracker tracker = readYourWritesTracker.getIfAvailable();
+        return tracker == null ? () -> false : tracker::isWithinWindow;
+    }
+}
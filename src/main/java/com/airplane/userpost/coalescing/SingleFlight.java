@@ -0,0 +1,117 @@
+package com.airplane.userpost.coalescing;
+
+import com.airplane.userpost.invalidation.EntityKey;
+import com.airplane.userpost.invalidation.InvalidationListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+//Concurrent loads of the same entity id share one in-flight load: the first caller (leader) runs it,
+//callers arriving meanwhile (followers) wait for and return the same result or exception.
+//The leader's load opens its own read-only transaction, followers never open one and hold no connection.
+//A committed change forgets the in-flight load, later callers start a fresh one instead of joining a stale read.
+public class SingleFlight<V> implements InvalidationListener {
+
+    private final String entityType;
+    private final TransactionOperations readOnlyTransaction;
+    private final BooleanSupplier bypass;
+    private final boolean enabled;
+    private final ConcurrentHashMap<Long, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    //bypass is asked on the caller's thread, e.g. a client within its read-your-writes window loads by itself
+    public SingleFlight(String entityType, TransactionOperations readOnlyTransaction, BooleanSupplier bypass,
+                        boolean enabled) {
+        this.entityType = entityType;
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.bypass = bypass;
+        this.enabled = enabled;
+    }
+
+    public V load(Long id, Supplier<V> loader) {
+        return load(id, null, loader);
+    }
+
+    //with batching enabled the leader queues the id instead and the batch opens the transaction,
+    //a bypassed caller always loads by itself: a batch runs on another caller's thread
+    public V load(Long id, BatchLoader<V> batchLoader, Supplier<V> loader) {
+        if(bypass.getAsBoolean()) {
+            loads.incrementAndGet();
+            return readOnlyTransaction.execute(status -> loader.get());
+        }
+
+        Supplier<V> leaderLoad = batchLoader != null && batchLoader.isEnabled()
+                ? () -> batchLoader.load(id)
+                : () -> readOnlyTransaction.execute(status -> loader.get());
+        if(!enabled) {
+            loads.incrementAndGet();
+            return leaderLoad.get();
+        }
+
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(id, call);
+        if(leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+
+        loads.incrementAndGet();
+        try {
+            V value = leaderLoad.get();
+            call.complete(value);
+            return value;
+        } catch(RuntimeException | Error exception) {
+            call.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(id, call);
+        }
+    }
+
+    //PostNotFoundException and friends reach the followers unwrapped, as if they had loaded themselves
+    private V await(CompletableFuture<V> leader) {
+        try {
+            return leader.join();
+        } catch(CompletionException exception) {
+            if(exception.getCause() instanceof RuntimeException cause) throw cause;
+            if(exception.getCause() instanceof Error cause) throw cause;
+            throw exception;
+        }
+    }
+
+    @Override
+    public void invalidate(Set<EntityKey> keys) {
+        for(EntityKey key: keys) {
+            if(entityType.equals(key.type())) inFlight.remove(key.id());
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        inFlight.clear();
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+}
@@ -0,0 +1,29 @@
+package com.airplane.userpost.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//With spring.main.lazy-initialization (faststart profile) a bean is only created when first used.
+//Scheduled jobs are never "used", they stay eager or their schedule would never be registered.
+@Configuration
+public class FastStartConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansStayEager() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && hasScheduledMethod(beanType);
+    }
+
+    static boolean hasScheduledMethod(Class<?> beanType) {
+        AtomicBoolean scheduled = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType,
+                method -> scheduled.set(true),
+                method -> !scheduled.get() && AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+        return scheduled.get();
+    }
+}
@@ -0,0 +1,41 @@
+package com.airplane.userpost.config;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.ingestion.PostIngestionService;
+import com.airplane.userpost.service.PostService;
+import com.airplane.userpost.service.UserService;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+//Hibernate Validator builds constraint metadata per class on first use: every field, getter,
+//method parameter and cascade of the class hierarchy is reflected over and cached.
+//Building it at startup keeps that work off the first write request.
+@Slf4j
+@Configuration
+public class ValidationConfig {
+
+    //the @Validated services and the payloads they cascade into
+    static final List<Class<?>> VALIDATED_TYPES = List.of(UserService.class, PostService.class,
+            PostIngestionService.class, UserDto.class, PostDto.class);
+
+    @Bean
+    public SmartInitializingSingleton validationMetadataWarmup(Validator validator) {
+        return () -> {
+            long start = System.nanoTime();
+            warmUp(validator);
+
+            log.info("Validation metadata built for {} types in {} ms.",
+                    VALIDATED_TYPES.size(), (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+
+    static void warmUp(Validator validator) {
+        VALIDATED_TYPES.forEach(validator::getConstraintsForClass);
+    }
+}
@@ -1,51 +1,133 @@
 package com.airplane.userpost.controller;
 
+import com.airplane.userpost.dto.BatchResultDto;
 import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.PostField;
+import com.airplane.userpost.exception.InvalidFieldException;
+import com.airplane.userpost.ingestion.PostIngestionService;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.airplane.userpost.responsecache.ResponseCache;
 import com.airplane.userpost.service.PostService;
-import jakarta.validation.Valid;
+import com.airplane.userpost.stream.ChangeBroadcaster;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
-@RequestMapping(path = "/posts", produces = "application/json")
+@RequestMapping(path = "/posts", produces = {"application/json", "application/cbor", "application/x-jackson-smile"})
 public class PostController {
     private final PostService postService;
+    private final PostIngestionService postIngestionService;
+    private final ChangeBroadcaster changeBroadcaster;
+    private final ResponseCache responseCache;
 
+    //postIngestionService only exists with userpost.ingestion.enabled=true
     @Autowired
-    public PostController(PostService postService) {
+    public PostController(PostService postService, ObjectProvider<PostIngestionService> postIngestionService,
+                          ChangeBroadcaster changeBroadcaster, ResponseCache responseCache) {
         this.postService = postService;
+        this.postIngestionService = postIngestionService.getIfAvailable();
+        this.changeBroadcaster = changeBroadcaster;
+        this.responseCache = responseCache;
     }
 
+    //lists carry an excerpt and textLength computed in SQL, the full text comes from postById or view=full
     @GetMapping
-    public ResponseEntity<List<PostDto>> allPosts() {
+    public ResponseEntity<List<Map<String, Object>>> allPosts() {
         log.info("AllPosts request received.");
 
+        return ResponseEntity.ok(postService.getAllPosts(PostField.EXCERPT_VIEW));
+    }
+
+    @GetMapping(params = {"view=full", "!fields", "!ids"})
+    public ResponseEntity<List<PostDto>> allFullPosts() {
+        log.info("AllPosts full text request received.");
+
         return ResponseEntity.ok(postService.getAllPosts());
     }
 
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> allPosts(@RequestParam String fields) {
+        log.info("AllPosts request received with fields '{}'.", fields);
+
+        return ResponseEntity.ok(postService.getAllPosts(PostField.parse(fields)));
+    }
+
+    //ids=1,2,3 or ids=1&ids=2, one query for the whole list; fields and view only apply to the full list
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResultDto<PostDto>> postsByIds(@RequestParam List<Long> ids,
+                                                              @RequestParam(required = false) String fields,
+                                                              @RequestParam(required = false) String view) {
+        if(fields != null || view != null) {
+            throw new InvalidFieldException("Ids parameter can't be combined with fields or view.");
+        }
+        log.info("Posts request received for {} ids.", ids.size());
+
+        return ResponseEntity.ok(postService.getPostsByIds(ids));
+    }
+
+    //post and user changes after commit, instead of polling allPosts
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changeStream() {
+        log.info("Change stream request received.");
+
+        return changeBroadcaster.subscribe();
+    }
+
+    //JSON is written from the response cache, null tells Spring MVC the response is complete
     @GetMapping(path = "/{postId}")
-    public ResponseEntity<PostDto> postById(@PathVariable Long postId) {
+    public ResponseEntity<PostDto> postById(@PathVariable Long postId, HttpServletRequest request,
+                                            HttpServletResponse response) throws IOException {
         log.info("Get Post request for Id {} received", postId);
 
+        if(responseCache.serve(EntityKey.post(postId), () -> postService.getPostById(postId), request, response)) {
+            return null;
+        }
         return ResponseEntity.ok(postService.getPostById(postId));
     }
 
+    @GetMapping(path = "/{postId}", params = "fields")
+    public ResponseEntity<Map<String, Object>> postById(@PathVariable Long postId, @RequestParam String fields) {
+        log.info("Get Post request for Id {} received with fields '{}'", postId, fields);
+
+        return ResponseEntity.ok(postService.getPostById(postId, PostField.parse(fields)));
+    }
+
+    //bodies are validated once, by the @Validated services
     @PostMapping(path = "/{userId}")
-    public ResponseEntity<PostDto> newPost(@PathVariable Long userId, @Valid @RequestBody PostDto postDto) {
+    public ResponseEntity<PostDto> newPost(@PathVariable Long userId, @RequestBody PostDto postDto) {
         log.info("Create Post request for User Id {} received", userId);
 
+        if(postIngestionService != null) {
+            PostDto accepted = postIngestionService.acceptNewPost(userId, postDto);
+            URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/posts/{postId}")
+                    .buildAndExpand(accepted.id())
+                    .toUri();
+
+            return ResponseEntity.accepted().location(location).body(accepted);
+        }
+
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(postService.createNewPost(userId, postDto));
     }
 
     @PutMapping(path = "/{postId}")
-    public ResponseEntity<PostDto> updatePost(@PathVariable Long postId, @Valid @RequestBody PostDto postDto) {
+    public ResponseEntity<PostDto> updatePost(@PathVariable Long postId, @RequestBody PostDto postDto) {
         log.info("Update Post request for Id {} received", postId);
 
         return ResponseEntity.ok()
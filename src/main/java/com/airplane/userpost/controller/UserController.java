@@ -1,26 +1,41 @@
 package com.airplane.userpost.controller;
 
+import com.airplane.userpost.availability.UserAvailabilityService;
+import com.airplane.userpost.dto.BatchResultDto;
 import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.dto.UserFieldSet;
+import com.airplane.userpost.dto.UserSummaryDto;
+import com.airplane.userpost.exception.InvalidFieldException;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.airplane.userpost.responsecache.ResponseCache;
 import com.airplane.userpost.service.UserService;
-import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
-@RequestMapping(path = "/users", produces = "application/json")
+@RequestMapping(path = "/users", produces = {"application/json", "application/cbor", "application/x-jackson-smile"})
 public class UserController {
 
     private final UserService userService;
+    private final UserAvailabilityService userAvailabilityService;
+    private final ResponseCache responseCache;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserAvailabilityService userAvailabilityService,
+                          ResponseCache responseCache) {
         this.userService = userService;
+        this.userAvailabilityService = userAvailabilityService;
+        this.responseCache = responseCache;
     }
 
     @GetMapping
@@ -30,15 +45,78 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> allUsers(@RequestParam String fields) {
+        log.info("AllUsers request received with fields '{}'.", fields);
+
+        return ResponseEntity.ok(userService.getAllUsers(UserFieldSet.parse(fields)));
+    }
+
+    //ids=1,2,3 or ids=1&ids=2, one query for the whole list; fields and view only apply to the full list
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResultDto<UserDto>> usersByIds(@RequestParam List<Long> ids,
+                                                              @RequestParam(required = false) String fields,
+                                                              @RequestParam(required = false) String view) {
+        if(fields != null || view != null) {
+            throw new InvalidFieldException("Ids parameter can't be combined with fields or view.");
+        }
+        log.info("Users request received for {} ids.", ids.size());
+
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
+    @GetMapping(params = {"view=excerpt", "!fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> allUserExcerpts() {
+        log.info("AllUsers excerpt request received.");
+
+        return ResponseEntity.ok(userService.getAllUsers(UserFieldSet.excerptView()));
+    }
+
+    //sign-up forms, {"username": true} when free; unlike the other reads not logged at info, it runs per keystroke
+    @GetMapping(path = "/availability")
+    public ResponseEntity<Map<String, Boolean>> availability(@RequestParam(required = false) String username,
+                                                             @RequestParam(required = false) String email) {
+        log.debug("Availability request received.");
+
+        return ResponseEntity.ok(userAvailabilityService.checkAvailability(username, email));
+    }
+
+    //JSON is written from the response cache, null tells Spring MVC the response is complete
     @GetMapping(path = "/{id}")
-    public ResponseEntity<UserDto> userById(@PathVariable Long id) {
+    public ResponseEntity<UserDto> userById(@PathVariable Long id, HttpServletRequest request,
+                                            HttpServletResponse response) throws IOException {
         log.info("User request with id '{}' received.", id);
 
+        if(responseCache.serve(EntityKey.user(id), () -> userService.getUserById(id), request, response)) {
+            return null;
+        }
         return ResponseEntity.ok(userService.getUserById(id));
     }
 
+    @GetMapping(path = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> userById(@PathVariable Long id, @RequestParam String fields) {
+        log.info("User request with id '{}' received with fields '{}'.", id, fields);
+
+        return ResponseEntity.ok(userService.getUserById(id, UserFieldSet.parse(fields)));
+    }
+
+    @GetMapping(path = "/{id}", params = {"view=excerpt", "!fields"})
+    public ResponseEntity<Map<String, Object>> userExcerptById(@PathVariable Long id) {
+        log.info("User excerpt request with id '{}' received.", id);
+
+        return ResponseEntity.ok(userService.getUserById(id, UserFieldSet.excerptView()));
+    }
+
+    @GetMapping(path = "/{id}/summary")
+    public ResponseEntity<UserSummaryDto> userSummary(@PathVariable Long id) {
+        log.info("User summary request with id '{}' received.", id);
+
+        return ResponseEntity.ok(userService.getUserSummary(id));
+    }
+
+    //bodies are validated once, by the @Validated service
     @PostMapping
-    public ResponseEntity<UserDto> newUser(@Valid @RequestBody UserDto userDto) {
+    public ResponseEntity<UserDto> newUser(@RequestBody UserDto userDto) {
         log.info("NewUser request received. Username: {}, email: {}",
                 userDto.getUserName(),
                 userDto.getEmail());
@@ -47,7 +125,7 @@ public class UserController {
     }
 
     @PutMapping(path = "/{id}")
-    public ResponseEntity<UserDto> updateUser(@PathVariable Long id, @Valid @RequestBody UserDto userDto) {
+    public ResponseEntity<UserDto> updateUser(@PathVariable Long id, @RequestBody UserDto userDto) {
         log.info("Update user request received for id '{}'", id);
 
         return ResponseEntity.status(HttpStatus.OK).body(userService.updateExistingUser(id, userDto));
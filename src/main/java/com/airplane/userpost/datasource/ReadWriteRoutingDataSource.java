@@ -0,0 +1,47 @@
+package com.airplane.userpost.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Read-only transactions go to a healthy replica, everything else to the primary.
+//Must sit behind LazyConnectionDataSourceProxy: the read-only flag is set after the transaction begins.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaPool replicaPool;
+    private final ReadYourWritesTracker readYourWrites;
+
+    public ReadWriteRoutingDataSource(ReplicaPool replicaPool, ReadYourWritesTracker readYourWrites) {
+        this.replicaPool = replicaPool;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteAfterCommit();
+            return PRIMARY;
+        }
+        if(readYourWrites.isWithinWindow()) {
+            return PRIMARY;
+        }
+        return replicaPool.nextHealthyReplica().orElse(PRIMARY);
+    }
+
+    private void recordWriteAfterCommit() {
+        String clientKey = readYourWrites.getCurrentClient();
+        if(clientKey == null || !readYourWrites.isEnabled()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWrites.recordWrite(clientKey);
+            }
+        });
+    }
+}
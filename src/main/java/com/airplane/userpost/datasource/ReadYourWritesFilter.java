@@ -0,0 +1,39 @@
+package com.airplane.userpost.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+//Binds the calling client to the request thread, requests without the header always read from replicas
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+    private final String headerName;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, String headerName) {
+        this.tracker = tracker;
+        this.headerName = headerName;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String clientKey = request.getHeader(headerName);
+        if(clientKey == null || clientKey.isBlank()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        tracker.setCurrentClient(clientKey);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tracker.clearCurrentClient();
+        }
+    }
+}
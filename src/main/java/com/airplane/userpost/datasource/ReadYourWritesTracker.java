@@ -0,0 +1,52 @@
+package com.airplane.userpost.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Remembers clients that committed a write recently, their reads stay on the primary until replicas catch up
+public class ReadYourWritesTracker {
+
+    private final ThreadLocal<String> currentClient = new ThreadLocal<>();
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return windowNanos > 0;
+    }
+
+    public void setCurrentClient(String clientKey) {
+        currentClient.set(clientKey);
+    }
+
+    public String getCurrentClient() {
+        return currentClient.get();
+    }
+
+    public void clearCurrentClient() {
+        currentClient.remove();
+    }
+
+    public void recordWrite(String clientKey) {
+        if(isEnabled() && clientKey != null) {
+            lastWriteNanos.put(clientKey, System.nanoTime());
+        }
+    }
+
+    public boolean isWithinWindow() {
+        String clientKey = currentClient.get();
+        if(!isEnabled() || clientKey == null) return false;
+
+        Long writtenAt = lastWriteNanos.get(clientKey);
+        return writtenAt != null && System.nanoTime() - writtenAt < windowNanos;
+    }
+
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+}
@@ -0,0 +1,80 @@
+package com.airplane.userpost.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Replica pools by lookup key, round robin over the ones that passed the last health check
+@Slf4j
+public class ReplicaPool implements AutoCloseable {
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> keys;
+    private final Map<String, Boolean> healthy = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int validationTimeoutSeconds;
+
+    public ReplicaPool(Map<String, DataSource> replicas, int validationTimeoutSeconds) {
+        this.replicas = Map.copyOf(replicas);
+        this.keys = List.copyOf(replicas.keySet());
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        keys.forEach(key -> healthy.put(key, true));
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public Optional<String> nextHealthyReplica() {
+        int size = keys.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for(int i = 0; i < size; i++) {
+            String key = keys.get((start + i) % size);
+            if(healthy.get(key)) {
+                return Optional.of(key);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int healthyCount() {
+        return (int) healthy.values().stream().filter(Boolean::booleanValue).count();
+    }
+
+    //ejects replicas that can't hand out a valid connection, readmits them once they can
+    public void checkHealth() {
+        replicas.forEach((key, dataSource) -> {
+            boolean valid = isValid(dataSource);
+            Boolean previous = healthy.put(key, valid);
+            if(previous != null && previous != valid) {
+                if(valid) log.info("Replica '{}' is healthy again, readmitted.", key);
+                else log.warn("Replica '{}' failed its health check, ejected.", key);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws Exception {
+        for(DataSource replica: replicas.values()) {
+            if(replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private boolean isValid(DataSource dataSource) {
+        try(Connection connection = dataSource.getConnection()) {
+            return connection.isValid(validationTimeoutSeconds);
+        } catch(SQLException exception) {
+            log.debug("Replica health check failed: {}", exception.getMessage());
+            return false;
+        }
+    }
+}
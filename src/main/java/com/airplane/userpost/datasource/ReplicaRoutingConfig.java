@@ -0,0 +1,141 @@
+package com.airplane.userpost.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Active only when userpost.datasource.replica-urls is set, otherwise Boot's single pool is used as before
+@Configuration
+@Conditional(ReplicaRoutingConfig.ReplicasConfigured.class)
+public class ReplicaRoutingConfig {
+
+    //spring.datasource.hikari.* applies to the primary and is copied to every replica pool
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(HikariDataSource primaryDataSource,
+                                   @Value("${userpost.datasource.replica-urls}") List<String> replicaUrls,
+                                   @Value("${userpost.datasource.replica-username:${spring.datasource.username:}}") String username,
+                                   @Value("${userpost.datasource.replica-password:${spring.datasource.password:}}") String password,
+                                   @Value("${userpost.datasource.validation-timeout:PT2S}") Duration validationTimeout) {
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for(int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i));
+            //the driver follows the replica's own url, the way Boot resolves it for the primary
+            String driverClassName = DatabaseDriver.fromJdbcUrl(replicaUrls.get(i)).getDriverClassName();
+            if(driverClassName != null) replica.setDriverClassName(driverClassName);
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            //a replica that is down at startup is ejected by the health check instead of failing the boot
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        return new ReplicaPool(replicas, (int) Math.max(1, validationTimeout.toSeconds()));
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${userpost.datasource.read-your-writes-window:PT5S}") Duration window) {
+        return new ReadYourWritesTracker(window);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+
+        Map<Object, Object> targets = new HashMap<>(replicaPool.getReplicas());
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource);
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaPool, readYourWritesTracker);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            ReadYourWritesTracker readYourWritesTracker,
+            @Value("${userpost.datasource.client-header:X-Client-Id}") String clientHeader) {
+
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWritesTracker, clientHeader));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(ReplicaPool replicaPool, ReadYourWritesTracker readYourWritesTracker) {
+        return new ReplicaHealthCheck(replicaPool, readYourWritesTracker);
+    }
+
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReplicaPool replicaPool) {
+        return registry -> Gauge.builder("userpost.datasource.replicas.healthy", replicaPool, ReplicaPool::healthyCount)
+                .description("Replicas currently receiving read-only transactions")
+                .register(registry);
+    }
+
+    public static class ReplicaHealthCheck {
+
+        private final ReplicaPool replicaPool;
+        private final ReadYourWritesTracker readYourWritesTracker;
+
+        ReplicaHealthCheck(ReplicaPool replicaPool, ReadYourWritesTracker readYourWritesTracker) {
+            this.replicaPool = replicaPool;
+            this.readYourWritesTracker = readYourWritesTracker;
+        }
+
+        @Scheduled(fixedDelayString = "${userpost.datasource.health-check-interval:PT5S}")
+        public void run() {
+            replicaPool.checkHealth();
+            readYourWritesTracker.evictExpired();
+        }
+    }
+
+    //an empty REPLICA_DB_URLS keeps the property defined, so presence alone isn't enough
+    static class ReplicasConfigured implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            String replicaUrls = context.getEnvironment().getProperty("userpost.datasource.replica-urls");
+            return replicaUrls != null && !replicaUrls.isBlank();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.airplane.userpost.dto;
+
+import java.util.List;
+
+//items in requested order, ids without a row are listed instead of failing the batch
+public record BatchResultDto<T>(List<T> items, List<Long> missingIds) {
+}
@@ -0,0 +1,59 @@
+package com.airplane.userpost.dto;
+
+import com.airplane.userpost.exception.InvalidFieldException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum PostField implements ProjectedField {
+    ID("id", "id"),
+    TITLE("title", "title"),
+    TEXT("text", "text"),
+    CREATED_AT("createdAt", "createdAt"),
+    USER_ID("userId", "user.id"),
+    //computed in SQL from text, see PostProjectionRepositoryImpl
+    EXCERPT("excerpt", "text"),
+    TEXT_LENGTH("textLength", "text");
+
+    //list representation without full text bodies
+    public static final Set<PostField> EXCERPT_VIEW =
+            Collections.unmodifiableSet(EnumSet.of(ID, TITLE, EXCERPT, TEXT_LENGTH, CREATED_AT, USER_ID));
+
+    private final String fieldName;
+    private final String attributePath;
+
+    PostField(String fieldName, String attributePath) {
+        this.fieldName = fieldName;
+        this.attributePath = attributePath;
+    }
+
+    @Override
+    public String fieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public String attributePath() {
+        return attributePath;
+    }
+
+    public static PostField of(String fieldName) {
+        return Arrays.stream(values())
+                .filter(field -> field.fieldName.equals(fieldName))
+                .findFirst()
+                .orElseThrow(() -> new InvalidFieldException("Unknown post field: " + fieldName));
+    }
+
+    //comma separated list, e.g. "id,title,userId"
+    public static Set<PostField> parse(String fields) {
+        if(fields == null || fields.isBlank()) throw new InvalidFieldException("Fields parameter is empty.");
+
+        Set<PostField> result = EnumSet.noneOf(PostField.class);
+        for(String fieldName: fields.split(",")) {
+            result.add(of(fieldName.trim()));
+        }
+        return result;
+    }
+}
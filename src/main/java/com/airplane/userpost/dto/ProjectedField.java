@@ -0,0 +1,11 @@
+package com.airplane.userpost.dto;
+
+//Field that can be requested through the fields= parameter and selected directly in SQL
+public interface ProjectedField {
+
+    //name of the field in the response body
+    String fieldName();
+
+    //dot separated entity attribute path the field is selected from
+    String attributePath();
+}
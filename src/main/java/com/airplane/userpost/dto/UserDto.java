@@ -7,8 +7,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 public class UserDto {
@@ -24,8 +24,9 @@ public class UserDto {
     @EqualsAndHashCode.Exclude
     private final LocalDateTime createdAt;
 
+    //newest first when built by UserMapper, request bodies keep the client's order
     @Valid
-    private final Set<PostDto> posts = new HashSet<>();
+    private final List<PostDto> posts = new ArrayList<>();
 
     public void addPost(PostDto postDto) {
         posts.add(postDto);
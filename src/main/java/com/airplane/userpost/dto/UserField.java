@@ -0,0 +1,38 @@
+package com.airplane.userpost.dto;
+
+import com.airplane.userpost.exception.InvalidFieldException;
+
+import java.util.Arrays;
+
+//Posts are not a column, they are requested through UserFieldSet
+public enum UserField implements ProjectedField {
+    ID("id", "id"),
+    USER_NAME("userName", "userName"),
+    EMAIL("email", "email"),
+    CREATED_AT("createdAt", "createdAt");
+
+    private final String fieldName;
+    private final String attributePath;
+
+    UserField(String fieldName, String attributePath) {
+        this.fieldName = fieldName;
+        this.attributePath = attributePath;
+    }
+
+    @Override
+    public String fieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public String attributePath() {
+        return attributePath;
+    }
+
+    public static UserField of(String fieldName) {
+        return Arrays.stream(values())
+                .filter(field -> field.fieldName.equals(fieldName))
+                .findFirst()
+                .orElseThrow(() -> new InvalidFieldException("Unknown user field: " + fieldName));
+    }
+}
@@ -0,0 +1,45 @@
+package com.airplane.userpost.dto;
+
+import com.airplane.userpost.exception.InvalidFieldException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+//Empty postFields means the posts collection isn't fetched at all
+public record UserFieldSet(Set<UserField> userFields, Set<PostField> postFields) {
+
+    public static final String POSTS = "posts";
+    private static final String POSTS_PREFIX = POSTS + ".";
+
+    //every user field, embedded posts carry an excerpt instead of the full text
+    public static UserFieldSet excerptView() {
+        return new UserFieldSet(EnumSet.allOf(UserField.class), PostField.EXCERPT_VIEW);
+    }
+
+    public boolean includesPosts() {
+        return !postFields.isEmpty();
+    }
+
+    //comma separated list, e.g. "id,userName,posts.id,posts.title"; "posts" alone selects every post field
+    public static UserFieldSet parse(String fields) {
+        if(fields == null || fields.isBlank()) throw new InvalidFieldException("Fields parameter is empty.");
+
+        Set<UserField> userFields = EnumSet.noneOf(UserField.class);
+        Set<PostField> postFields = EnumSet.noneOf(PostField.class);
+
+        for(String field: fields.split(",")) {
+            String fieldName = field.trim();
+            if(fieldName.equals(POSTS)) {
+                postFields.addAll(EnumSet.complementOf(EnumSet.of(PostField.EXCERPT, PostField.TEXT_LENGTH)));
+            }
+            else if(fieldName.startsWith(POSTS_PREFIX)) {
+                postFields.add(PostField.of(fieldName.substring(POSTS_PREFIX.length())));
+            }
+            else {
+                userFields.add(UserField.of(fieldName));
+            }
+        }
+
+        return new UserFieldSet(userFields, postFields);
+    }
+}
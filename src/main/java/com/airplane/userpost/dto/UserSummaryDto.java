@@ -0,0 +1,7 @@
+package com.airplane.userpost.dto;
+
+import java.time.LocalDateTime;
+
+public record UserSummaryDto(Long id, String userName, String email,
+                             LocalDateTime createdAt, Long postCount) {
+}
@@ -0,0 +1,42 @@
+package com.airplane.userpost.event;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+
+import java.util.List;
+
+//Published by the services inside the write transaction, listeners pick it up after commit.
+//Deletes carry the id, user.deleted also lists the ids of the posts deleted with the user (see PostDeletion,
+//UserDeletion), user.updated the posts the update deleted and the users it took posts from (see UserUpdate).
+//userId is the owning user for post events and the id itself for user events.
+public record ChangeEvent(String name, Long id, Long userId, Object data) {
+
+    public boolean isPostEvent() {
+        return name.startsWith("post.");
+    }
+
+    public static ChangeEvent postCreated(PostDto postDto) {
+        return new ChangeEvent("post.created", postDto.id(), postDto.userId(), postDto);
+    }
+
+    public static ChangeEvent postUpdated(PostDto postDto) {
+        return new ChangeEvent("post.updated", postDto.id(), postDto.userId(), postDto);
+    }
+
+    public static ChangeEvent postDeleted(Long postId, Long userId) {
+        return new ChangeEvent("post.deleted", postId, userId, new PostDeletion(postId));
+    }
+
+    public static ChangeEvent userCreated(UserDto userDto) {
+        return new ChangeEvent("user.created", userDto.getId(), userDto.getId(), userDto);
+    }
+
+    public static ChangeEvent userUpdated(UserDto userDto, List<Long> removedPostIds, List<Long> previousOwnerIds) {
+        return new ChangeEvent("user.updated", userDto.getId(), userDto.getId(),
+                new UserUpdate(userDto, removedPostIds, previousOwnerIds));
+    }
+
+    public static ChangeEvent userDeleted(Long userId, List<Long> postIds) {
+        return new ChangeEvent("user.deleted", userId, userId, new UserDeletion(userId, postIds));
+    }
+}
@@ -0,0 +1,5 @@
+package com.airplane.userpost.event;
+
+//post.deleted data, the id is all that is left of the post
+public record PostDeletion(Long id) {
+}
@@ -0,0 +1,7 @@
+package com.airplane.userpost.event;
+
+import java.util.List;
+
+//user.deleted data, with the ids of the posts deleted together with the user
+public record UserDeletion(Long id, List<Long> postIds) {
+}
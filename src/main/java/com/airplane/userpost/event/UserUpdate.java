@@ -0,0 +1,10 @@
+package com.airplane.userpost.event;
+
+import com.airplane.userpost.dto.UserDto;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.List;
+
+//user.updated data, streamed as the user's fields plus the ids the update took away from other cached dtos
+public record UserUpdate(@JsonUnwrapped UserDto user, List<Long> removedPostIds, List<Long> previousOwnerIds) {
+}
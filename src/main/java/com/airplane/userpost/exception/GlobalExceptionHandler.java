@@ -2,6 +2,7 @@ package com.airplane.userpost.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -18,7 +19,7 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
-	//Controller validation exceptions handling
+	//Controller validation exceptions handling, request bodies are validated by the services
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationArgumentException(MethodArgumentNotValidException exception) {
         Map<String, String> errors = new HashMap<>();
@@ -38,7 +39,8 @@ public class GlobalExceptionHandler {
         exception.getConstraintViolations()
                 .forEach(constraintViolation -> {
                     String path = constraintViolation.getPropertyPath().toString();
-                    String[] paths = path.split("\\.");
+                    //element constraints end with "<list element>", the indexed parameter is kept instead
+                    String[] paths = path.replace(".<list element>", "").split("\\.");
                     errors.put(paths[paths.length - 1], constraintViolation.getMessage());
                 });
 
@@ -69,6 +71,21 @@ public class GlobalExceptionHandler {
                 .body(Map.of("Error", exception.getMessage()));
     }
 
+    @ExceptionHandler(InvalidFieldException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidFieldException(InvalidFieldException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.badRequest()
+                .body(Map.of("Error", exception.getMessage()));
+    }
+
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleIngestionQueueFullException(IngestionQueueFullException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("Error", exception.getMessage()));
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Map<String, String>> handleDataIntegrityViolationException(DataIntegrityViolationException exception) {
         log.error(exception.getMessage());
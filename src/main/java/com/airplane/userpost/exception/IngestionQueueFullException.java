@@ -0,0 +1,7 @@
+package com.airplane.userpost.exception;
+
+public class IngestionQueueFullException extends RuntimeException{
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
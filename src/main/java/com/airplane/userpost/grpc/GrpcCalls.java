@@ -0,0 +1,68 @@
+package com.airplane.userpost.grpc;
+
+import com.airplane.userpost.exception.MapperException;
+import com.airplane.userpost.exception.PostNotFoundException;
+import com.airplane.userpost.exception.UserNotFoundException;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+//Completes calls and turns service exceptions into the statuses GlobalExceptionHandler uses for REST
+@Slf4j
+final class GrpcCalls {
+
+    //the cause stays in the server log, clients only learn that the call failed
+    static final String INTERNAL_ERROR = "Internal server error.";
+
+    private GrpcCalls() {
+    }
+
+    static <T> void unary(StreamObserver<T> responseObserver, Supplier<T> call) {
+        try {
+            T response = call.get();
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch(RuntimeException exception) {
+            responseObserver.onError(toStatus(exception).asRuntimeException());
+        }
+    }
+
+    //rows are read page by page as the client takes them, see PagedStream
+    static <D, T> void stream(StreamObserver<T> responseObserver, int pageSize,
+                              BiFunction<Long, Integer, List<D>> pageAfter,
+                              ToLongFunction<D> idOf, Function<D, T> toMessage) {
+        PagedStream.start((ServerCallStreamObserver<T>) responseObserver, pageSize, pageAfter, idOf, toMessage);
+    }
+
+    static Status toStatus(RuntimeException exception) {
+        if(exception instanceof UserNotFoundException || exception instanceof PostNotFoundException) {
+            log.warn(exception.getMessage());
+            return Status.NOT_FOUND.withDescription(exception.getMessage());
+        }
+        if(exception instanceof ConstraintViolationException violationException) {
+            String description = violationException.getConstraintViolations().stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" "));
+            log.error("Validation errors found in Service: {}", description);
+            return Status.INVALID_ARGUMENT.withDescription(description);
+        }
+        if(exception instanceof MapperException) {
+            log.error(exception.getMessage());
+            return Status.INVALID_ARGUMENT.withDescription(exception.getMessage());
+        }
+
+        log.error("gRPC call failed: {}", exception.getMessage(), exception);
+        return Status.INTERNAL.withDescription(INTERNAL_ERROR);
+    }
+}
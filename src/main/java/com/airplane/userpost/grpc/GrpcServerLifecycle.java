@@ -0,0 +1,87 @@
+package com.airplane.userpost.grpc;
+
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//Netty gRPC server on its own port, next to Tomcat. Calls block on JPA, so each one gets a virtual thread.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "userpost.grpc", name = "enabled", matchIfMissing = true)
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private final List<BindableService> services;
+    private final int port;
+    private final Duration shutdownTimeout;
+
+    private ExecutorService executor;
+    private Server server;
+
+    @Autowired
+    public GrpcServerLifecycle(List<BindableService> services,
+                               @Value("${userpost.grpc.port:9090}") int port,
+                               @Value("${userpost.grpc.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        this.services = services;
+        this.port = port;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        NettyServerBuilder builder = NettyServerBuilder.forPort(port).executor(executor);
+        services.forEach(builder::addService);
+
+        try {
+            server = builder.build().start();
+        } catch(IOException exception) {
+            executor.shutdown();
+            throw new UncheckedIOException("gRPC server couldn't start on port " + port, exception);
+        }
+
+        log.info("gRPC server started on port {} with {} services.", server.getPort(), services.size());
+    }
+
+    @Override
+    public void stop() {
+        server.shutdown();
+        try {
+            if(!server.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                server.shutdownNow();
+            }
+        } catch(InterruptedException exception) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+            server = null;
+        }
+
+        log.info("gRPC server stopped.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    //0 binds a random port
+    public int getPort() {
+        return server.getPort();
+    }
+}
@@ -0,0 +1,82 @@
+package com.airplane.userpost.grpc;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+//Server streaming driven by the client's flow control. Messages are only sent while the call is ready,
+//the next keyset page is loaded once the previous one is sent, a cancelled call stops loading.
+//gRPC runs the onReady handler serially per call, so the state needs no locking.
+@Slf4j
+final class PagedStream<D, T> implements Runnable {
+
+    private final ServerCallStreamObserver<T> call;
+    private final BiFunction<Long, Integer, List<D>> pageAfter;
+    private final ToLongFunction<D> idOf;
+    private final Function<D, T> toMessage;
+    private final int pageSize;
+
+    private final ArrayDeque<D> page = new ArrayDeque<>();
+    private long lastId;
+    private boolean lastPage;
+    private boolean finished;
+
+    private PagedStream(ServerCallStreamObserver<T> call, int pageSize, BiFunction<Long, Integer, List<D>> pageAfter,
+                        ToLongFunction<D> idOf, Function<D, T> toMessage) {
+        this.call = call;
+        this.pageSize = pageSize;
+        this.pageAfter = pageAfter;
+        this.idOf = idOf;
+        this.toMessage = toMessage;
+    }
+
+    //must be called from the service method, handlers can't be set once it returned
+    static <D, T> void start(ServerCallStreamObserver<T> call, int pageSize,
+                             BiFunction<Long, Integer, List<D>> pageAfter,
+                             ToLongFunction<D> idOf, Function<D, T> toMessage) {
+        PagedStream<D, T> stream = new PagedStream<>(call, pageSize, pageAfter, idOf, toMessage);
+        call.setOnCancelHandler(() -> log.info("Stream cancelled by the client after Id '{}'.", stream.lastId));
+        call.setOnReadyHandler(stream);
+    }
+
+    @Override
+    public void run() {
+        if(finished) return;
+
+        try {
+            while(call.isReady()) {
+                if(call.isCancelled()) {
+                    finished = true;
+                    return;
+                }
+                if(page.isEmpty() && !loadPage()) {
+                    finished = true;
+                    call.onCompleted();
+                    return;
+                }
+                call.onNext(toMessage.apply(page.poll()));
+            }
+        } catch(RuntimeException exception) {
+            finished = true;
+            call.onError(GrpcCalls.toStatus(exception).asRuntimeException());
+        }
+    }
+
+    //false once every row was sent
+    private boolean loadPage() {
+        if(lastPage) return false;
+
+        List<D> next = pageAfter.apply(lastId, pageSize);
+        lastPage = next.size() < pageSize;
+        if(next.isEmpty()) return false;
+
+        page.addAll(next);
+        lastId = idOf.applyAsLong(next.getLast());
+        return true;
+    }
+}
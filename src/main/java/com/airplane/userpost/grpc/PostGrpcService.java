@@ -0,0 +1,63 @@
+package com.airplane.userpost.grpc;
+
+import com.airplane.userpost.dto.BatchResultDto;
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.grpc.proto.GetByIdRequest;
+import com.airplane.userpost.grpc.proto.GetByIdsRequest;
+import com.airplane.userpost.grpc.proto.GetPostsResponse;
+import com.airplane.userpost.grpc.proto.ListRequest;
+import com.airplane.userpost.grpc.proto.Post;
+import com.airplane.userpost.grpc.proto.PostServiceGrpc;
+import com.airplane.userpost.mapper.ProtoMapper;
+import com.airplane.userpost.service.PostService;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class PostGrpcService extends PostServiceGrpc.PostServiceImplBase {
+
+    private final PostService postService;
+    private final ProtoMapper protoMapper;
+    private final int listPageSize;
+
+    @Autowired
+    public PostGrpcService(PostService postService, ProtoMapper protoMapper,
+                           @Value("${userpost.grpc.list-page-size:500}") int listPageSize) {
+        this.postService = postService;
+        this.protoMapper = protoMapper;
+        this.listPageSize = listPageSize;
+    }
+
+    @Override
+    public void getPost(GetByIdRequest request, StreamObserver<Post> responseObserver) {
+        log.info("GetPost call received with id '{}'.", request.getId());
+
+        GrpcCalls.unary(responseObserver, () -> protoMapper.toProto(postService.getPostById(request.getId())));
+    }
+
+    @Override
+    public void getPosts(GetByIdsRequest request, StreamObserver<GetPostsResponse> responseObserver) {
+        log.info("GetPosts call received with {} ids.", request.getIdsCount());
+
+        GrpcCalls.unary(responseObserver, () -> {
+            BatchResultDto<PostDto> posts = postService.getPostsByIds(request.getIdsList());
+
+            GetPostsResponse.Builder response = GetPostsResponse.newBuilder()
+                    .addAllMissingIds(posts.missingIds());
+            posts.items().forEach(post -> response.addPosts(protoMapper.toProto(post)));
+
+            return response.build();
+        });
+    }
+
+    @Override
+    public void listPosts(ListRequest request, StreamObserver<Post> responseObserver) {
+        log.info("ListPosts call received.");
+
+        GrpcCalls.stream(responseObserver, listPageSize, postService::getPostsAfter, PostDto::id, protoMapper::toProto);
+    }
+}
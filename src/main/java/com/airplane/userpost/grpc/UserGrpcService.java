@@ -0,0 +1,63 @@
+package com.airplane.userpost.grpc;
+
+import com.airplane.userpost.dto.BatchResultDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.grpc.proto.GetByIdRequest;
+import com.airplane.userpost.grpc.proto.GetByIdsRequest;
+import com.airplane.userpost.grpc.proto.GetUsersResponse;
+import com.airplane.userpost.grpc.proto.ListRequest;
+import com.airplane.userpost.grpc.proto.User;
+import com.airplane.userpost.grpc.proto.UserServiceGrpc;
+import com.airplane.userpost.mapper.ProtoMapper;
+import com.airplane.userpost.service.UserService;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
+
+    private final UserService userService;
+    private final ProtoMapper protoMapper;
+    private final int listPageSize;
+
+    @Autowired
+    public UserGrpcService(UserService userService, ProtoMapper protoMapper,
+                           @Value("${userpost.grpc.list-page-size:500}") int listPageSize) {
+        this.userService = userService;
+        this.protoMapper = protoMapper;
+        this.listPageSize = listPageSize;
+    }
+
+    @Override
+    public void getUser(GetByIdRequest request, StreamObserver<User> responseObserver) {
+        log.info("GetUser call received with id '{}'.", request.getId());
+
+        GrpcCalls.unary(responseObserver, () -> protoMapper.toProto(userService.getUserById(request.getId())));
+    }
+
+    @Override
+    public void getUsers(GetByIdsRequest request, StreamObserver<GetUsersResponse> responseObserver) {
+        log.info("GetUsers call received with {} ids.", request.getIdsCount());
+
+        GrpcCalls.unary(responseObserver, () -> {
+            BatchResultDto<UserDto> users = userService.getUsersByIds(request.getIdsList());
+
+            GetUsersResponse.Builder response = GetUsersResponse.newBuilder()
+                    .addAllMissingIds(users.missingIds());
+            users.items().forEach(user -> response.addUsers(protoMapper.toProto(user)));
+
+            return response.build();
+        });
+    }
+
+    @Override
+    public void listUsers(ListRequest request, StreamObserver<User> responseObserver) {
+        log.info("ListUsers call received.");
+
+        GrpcCalls.stream(responseObserver, listPageSize, userService::getUsersAfter, UserDto::getId, protoMapper::toProto);
+    }
+}
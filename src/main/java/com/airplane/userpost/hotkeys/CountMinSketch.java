@@ -0,0 +1,89 @@
+package com.airplane.userpost.hotkeys;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+//depth rows of width counters, a key increments one counter per row and its count is the smallest of them.
+//Never underestimates, overestimates by collisions only. Increments are single atomic adds, no locks.
+final class CountMinSketch {
+
+    private static final int MAX_WIDTH = 1 << 24;
+
+    private final AtomicIntegerArray counters;
+    private final int depth;
+    private final int width;
+    private final int mask;
+
+    //width is rounded up to a power of two
+    CountMinSketch(int depth, int width) {
+        if(depth < 1 || width < 1 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("Invalid sketch size: " + depth + "x" + width);
+        }
+        this.depth = depth;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicIntegerArray(depth * this.width);
+    }
+
+    //increments the key and returns its estimate including base, the sum of the other windows
+    long increment(long key, CountMinSketch base) {
+        return add(key, 1, base);
+    }
+
+    long add(long key, int delta, CountMinSketch base) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        long estimate = Long.MAX_VALUE;
+        for(int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            long count = counters.addAndGet(index, delta) + (long) base.counters.get(index);
+            estimate = Math.min(estimate, count);
+        }
+        return estimate;
+    }
+
+    long estimate(long key, CountMinSketch base) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        long estimate = Long.MAX_VALUE;
+        for(int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            estimate = Math.min(estimate, (long) counters.get(index) + base.counters.get(index));
+        }
+        return estimate;
+    }
+
+    void addTo(CountMinSketch sum) {
+        for(int i = 0; i < counters.length(); i++) {
+            int count = counters.get(i);
+            if(count != 0) sum.counters.addAndGet(i, count);
+        }
+    }
+
+    void clear() {
+        for(int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    CountMinSketch emptyCopy() {
+        return new CountMinSketch(depth, width);
+    }
+
+    int width() {
+        return width;
+    }
+
+    //murmur3 finalizer, sequential ids end up far apart
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,5 @@
+package com.airplane.userpost.hotkeys;
+
+//count is the sketch estimate over the tracked windows
+public record HotKey(long id, long count) {
+}
@@ -0,0 +1,213 @@
+package com.airplane.userpost.hotkeys;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//Heavy hitters of one entity type over a sliding window of `windows` sketches.
+//record() adds to the current window's Count-Min sketch, the estimate includes the previous windows through a summed
+//base sketch recomputed on rotate(). Keys estimated above the smallest tracked count compete for one of topK slots,
+//a hot key that is already tracked costs one map lookup, only new candidates take the lock.
+//estimate() and admits() are meant for cache admission: keep the key the sketch has seen more often.
+//Next to the top-k a larger warm set of up to warmSize ids is kept for the warm-up snapshot: ids recorded since the
+//last rotation are added while there is room, rotate() keeps the warmSize hottest of them by estimate.
+public class HotKeyTracker {
+
+    private final String entityType;
+    private final int topK;
+    private final int warmSize;
+    private final CountMinSketch[] windows;
+
+    //the window record() adds to and the sum of the others, swapped as one so a reader never mixes generations
+    private record Generation(int current, CountMinSketch window, CountMinSketch base) {
+    }
+
+    private volatile Generation generation;
+
+    //tracked keys with the estimate they had when last compared, refreshed under the lock
+    private final Map<Long, Long> candidates = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private volatile long threshold;
+
+    //room for warmSize more ids between rotations
+    private final Set<Long> warm = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder recorded = new LongAdder();
+
+    public HotKeyTracker(String entityType, int topK, int depth, int width, int windowCount) {
+        this(entityType, topK, topK, depth, width, windowCount);
+    }
+
+    public HotKeyTracker(String entityType, int topK, int warmSize, int depth, int width, int windowCount) {
+        if(topK < 1 || windowCount < 1) {
+            throw new IllegalArgumentException("Top-k and window count must be positive: " + topK + ", " + windowCount);
+        }
+        if(warmSize < topK) {
+            throw new IllegalArgumentException("Warm set size must be at least top-k: " + warmSize + ", " + topK);
+        }
+        this.entityType = entityType;
+        this.topK = topK;
+        this.warmSize = warmSize;
+        this.windows = new CountMinSketch[windowCount];
+        for(int i = 0; i < windowCount; i++) {
+            windows[i] = new CountMinSketch(depth, width);
+        }
+        this.generation = new Generation(0, windows[0], windows[0].emptyCopy());
+    }
+
+    public void record(long id) {
+        recorded.increment();
+        Generation live = generation;
+        long estimate = live.window().increment(id, live.base());
+        if(estimate > threshold && !candidates.containsKey(id)) {
+            offer(id, estimate);
+        }
+        addWarm(id);
+    }
+
+    //restores a count persisted before a restart, it ages out with the current window
+    public void seed(long id, long count) {
+        int delta = (int) Math.min(Math.max(count, 0), Integer.MAX_VALUE / 2);
+        if(delta == 0) return;
+        Generation live = generation;
+        long estimate = live.window().add(id, delta, live.base());
+        if(estimate > threshold && !candidates.containsKey(id)) {
+            offer(id, estimate);
+        }
+        addWarm(id);
+    }
+
+    //a known id costs one lookup, the size is only summed for new ones
+    private void addWarm(long id) {
+        if(!warm.contains(id) && warm.size() < 2 * warmSize) {
+            warm.add(id);
+        }
+    }
+
+    public long estimate(long id) {
+        Generation live = generation;
+        return live.window().estimate(id, live.base());
+    }
+
+    //TinyLFU-style admission, a new entry only replaces a victim that was requested less often
+    public boolean admits(long candidateId, long victimId) {
+        return estimate(candidateId) > estimate(victimId);
+    }
+
+    private void offer(long id, long estimate) {
+        synchronized(lock) {
+            if(candidates.containsKey(id)) return;
+            if(candidates.size() < topK) {
+                candidates.put(id, estimate);
+                if(candidates.size() == topK) threshold = refreshCandidates();
+                return;
+            }
+
+            //stored counts only grow stale downwards, compare against current estimates
+            threshold = refreshCandidates();
+            if(estimate <= threshold) return;
+
+            Long coldest = coldestCandidate();
+            candidates.remove(coldest);
+            candidates.put(id, estimate);
+            threshold = refreshCandidates();
+        }
+    }
+
+    //called under the lock, returns the smallest estimate or 0 while slots are free
+    private long refreshCandidates() {
+        long smallest = Long.MAX_VALUE;
+        for(Map.Entry<Long, Long> candidate: candidates.entrySet()) {
+            long estimate = estimate(candidate.getKey());
+            candidate.setValue(estimate);
+            smallest = Math.min(smallest, estimate);
+        }
+        return candidates.size() < topK ? 0 : smallest;
+    }
+
+    private Long coldestCandidate() {
+        return candidates.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElseThrow();
+    }
+
+    //the oldest window is cleared and becomes the current one, keys nobody asked for since drop out.
+    //A record() that read the generation just before the swap adds to the retiring window after the new base was
+    //summed: that count is missing from estimates until the next rotate() sums the windows again. At most one
+    //record per recording thread, never counted twice.
+    public void rotate() {
+        int next = (generation.current() + 1) % windows.length;
+        windows[next].clear();
+
+        CountMinSketch sum = windows[0].emptyCopy();
+        for(int i = 0; i < windows.length; i++) {
+            if(i != next) windows[i].addTo(sum);
+        }
+        generation = new Generation(next, windows[next], sum);
+
+        synchronized(lock) {
+            refreshCandidates();
+            candidates.values().removeIf(count -> count == 0);
+            threshold = refreshCandidates();
+        }
+
+        Set<Long> warmest = new HashSet<>();
+        rank(warm, warmSize).forEach(key -> warmest.add(key.id()));
+        warm.retainAll(warmest);
+    }
+
+    //hottest first, from a heap over the current estimates
+    public List<HotKey> topKeys() {
+        PriorityQueue<HotKey> heap = new PriorityQueue<>(Comparator.comparingLong(HotKey::count).reversed());
+        for(Long id: candidates.keySet()) {
+            long count = estimate(id);
+            if(count > 0) heap.add(new HotKey(id, count));
+        }
+
+        List<HotKey> hottest = new ArrayList<>(heap.size());
+        while(!heap.isEmpty()) {
+            hottest.add(heap.poll());
+        }
+        return hottest;
+    }
+
+    //up to warmSize ids hottest first, the top-k included
+    public List<HotKey> warmKeys() {
+        Set<Long> ids = new HashSet<>(warm);
+        ids.addAll(candidates.keySet());
+        return rank(ids, warmSize);
+    }
+
+    private List<HotKey> rank(Collection<Long> ids, int limit) {
+        return ids.stream()
+                .map(id -> new HotKey(id, estimate(id)))
+                .filter(key -> key.count() > 0)
+                .sorted(Comparator.comparingLong(HotKey::count).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getHottestCount() {
+        return topKeys().stream().mapToLong(HotKey::count).findFirst().orElse(0);
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+}
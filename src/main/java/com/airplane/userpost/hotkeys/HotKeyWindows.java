@@ -0,0 +1,24 @@
+package com.airplane.userpost.hotkeys;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//Slides every tracker by one window, counts older than windows x window are forgotten
+@Component
+public class HotKeyWindows {
+
+    private final List<HotKeyTracker> trackers;
+
+    @Autowired
+    public HotKeyWindows(List<HotKeyTracker> trackers) {
+        this.trackers = trackers;
+    }
+
+    @Scheduled(initialDelayString = "${userpost.hotkeys.window:PT10S}", fixedRateString = "${userpost.hotkeys.window:PT10S}")
+    public void rotate() {
+        trackers.forEach(HotKeyTracker::rotate);
+    }
+}
@@ -0,0 +1,61 @@
+package com.airplane.userpost.hotkeys;
+
+import com.airplane.userpost.invalidation.EntityKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+//Ids served by getPostById/getUserById, GET /actuator/hotkeys lists the hottest per entity type.
+//With the defaults each tracker holds 7 sketches of 4x16384 int counters, about 1.8 MB, and a warm set of up to
+//2 x userpost.warmup.max-ids ids for the warm-up snapshot, under 1 MB.
+@Configuration
+public class HotKeysConfig {
+
+    @Bean
+    public HotKeyTracker postHotKeys(@Value("${userpost.hotkeys.top-k:20}") int topK,
+                                     @Value("${userpost.warmup.max-ids:5000}") int warmSize,
+                                     @Value("${userpost.hotkeys.depth:4}") int depth,
+                                     @Value("${userpost.hotkeys.width:16384}") int width,
+                                     @Value("${userpost.hotkeys.windows:6}") int windows) {
+        return new HotKeyTracker(EntityKey.POST, topK, warmSize, depth, width, windows);
+    }
+
+    @Bean
+    public HotKeyTracker userHotKeys(@Value("${userpost.hotkeys.top-k:20}") int topK,
+                                     @Value("${userpost.warmup.max-ids:5000}") int warmSize,
+                                     @Value("${userpost.hotkeys.depth:4}") int depth,
+                                     @Value("${userpost.hotkeys.width:16384}") int width,
+                                     @Value("${userpost.hotkeys.windows:6}") int windows) {
+        return new HotKeyTracker(EntityKey.USER, topK, warmSize, depth, width, windows);
+    }
+
+    @Bean
+    public HotKeysEndpoint hotKeysEndpoint(List<HotKeyTracker> trackers) {
+        return new HotKeysEndpoint(trackers);
+    }
+
+    @Bean
+    public MeterBinder hotKeysMetrics(List<HotKeyTracker> trackers) {
+        return registry -> {
+            for(HotKeyTracker tracker: trackers) {
+                FunctionCounter.builder("userpost.hotkeys.recorded", tracker, HotKeyTracker::getRecordedCount)
+                        .tag("entity", tracker.getEntityType())
+                        .description("Point reads recorded by the heavy-hitter sketch")
+                        .register(registry);
+                Gauge.builder("userpost.hotkeys.hottest", tracker, HotKeyTracker::getHottestCount)
+                        .tag("entity", tracker.getEntityType())
+                        .description("Estimated reads of the hottest id within the tracked windows")
+                        .register(registry);
+                Gauge.builder("userpost.hotkeys.threshold", tracker, HotKeyTracker::getThreshold)
+                        .tag("entity", tracker.getEntityType())
+                        .description("Estimated reads an id needs to enter the top-k")
+                        .register(registry);
+            }
+        };
+    }
+}
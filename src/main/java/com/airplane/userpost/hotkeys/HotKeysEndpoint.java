@@ -0,0 +1,37 @@
+package com.airplane.userpost.hotkeys;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//GET /actuator/hotkeys and /actuator/hotkeys/{entity}, e.g. /actuator/hotkeys/post
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final List<HotKeyTracker> trackers;
+
+    public HotKeysEndpoint(List<HotKeyTracker> trackers) {
+        this.trackers = trackers;
+    }
+
+    @ReadOperation
+    public Map<String, List<HotKey>> hotKeys() {
+        Map<String, List<HotKey>> hotKeys = new LinkedHashMap<>();
+        trackers.forEach(tracker -> hotKeys.put(tracker.getEntityType(), tracker.topKeys()));
+        return hotKeys;
+    }
+
+    //null answers 404 for an unknown entity type
+    @ReadOperation
+    public List<HotKey> hotKeys(@Selector String entity) {
+        return trackers.stream()
+                .filter(tracker -> tracker.getEntityType().equals(entity))
+                .findFirst()
+                .map(HotKeyTracker::topKeys)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,5 @@
+package com.airplane.userpost.ingestion;
+
+//accepted post waiting for the batch writer, id is already reserved from the posts sequence
+record PendingPost(long id, long userId, String title, String text) {
+}
@@ -0,0 +1,130 @@
+package com.airplane.userpost.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+//Accepted posts the batch writer couldn't insert, one file per spill in the spill directory.
+//Layout, big-endian: magic, version, post count, per post id, user id, title and text as length-prefixed
+//UTF-8 (-1 for a null text), CRC32 of everything before it.
+//Written to a temp file, synced and moved into place, a reader never sees half a spill.
+//A corrupt file is left where it is for an operator, the posts in it were acknowledged with 202.
+@Slf4j
+final class PendingPostSpill {
+
+    static final String SUFFIX = ".spill";
+
+    private static final int MAGIC = 0x55505350;
+    private static final int VERSION = 1;
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private PendingPostSpill() {
+    }
+
+    static Path write(Path directory, List<PendingPost> posts) throws IOException {
+        Files.createDirectories(directory);
+        String name = "posts-" + System.currentTimeMillis() + "-" + sequence.incrementAndGet() + "-" + posts.getFirst().id();
+        Path temp = directory.resolve(name + ".tmp");
+        Path path = directory.resolve(name + SUFFIX);
+
+        try(FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(posts.size());
+            for(PendingPost post: posts) {
+                output.writeLong(post.id());
+                output.writeLong(post.userId());
+                writeString(output, post.title());
+                writeString(output, post.text());
+            }
+            output.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            file.getFD().sync();
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        return path;
+    }
+
+    //oldest first, temp files of an interrupted spill are not listed
+    static List<Path> list(Path directory) throws IOException {
+        if(!Files.isDirectory(directory)) return List.of();
+
+        try(Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static Optional<List<PendingPost>> read(Path path) {
+        try(InputStream file = new BufferedInputStream(Files.newInputStream(path))) {
+            CRC32 crc = new CRC32();
+            DataInputStream input = new DataInputStream(new CheckedInputStream(file, crc));
+            if(input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return corrupt(path, "not a spill of this version");
+            }
+            int count = input.readInt();
+            if(count <= 0) {
+                return corrupt(path, "post count " + count);
+            }
+
+            List<PendingPost> posts = new ArrayList<>(Math.min(count, 10_000));
+            for(int i = 0; i < count; i++) {
+                posts.add(new PendingPost(input.readLong(), input.readLong(), readString(input), readString(input)));
+            }
+            int expected = (int) crc.getValue();
+            if(new DataInputStream(file).readInt() != expected || file.read() != -1) {
+                return corrupt(path, "checksum mismatch");
+            }
+            return Optional.of(posts);
+        } catch(IOException | RuntimeException exception) {
+            log.error("Post spill {} couldn't be read, kept for an operator.", path, exception);
+            return Optional.empty();
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if(value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if(length == -1) return null;
+        if(length < 0) throw new IOException("negative string length " + length);
+        byte[] bytes = input.readNBytes(length);
+        if(bytes.length != length) throw new EOFException("string cut short");
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Optional<List<PendingPost>> corrupt(Path path, String reason) {
+        log.error("Post spill {} is corrupt ({}), kept for an operator.", path, reason);
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,278 @@
+package com.airplane.userpost.ingestion;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.event.ChangeEvent;
+import com.airplane.userpost.exception.IngestionQueueFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Bounded queue of accepted posts drained by one writer thread into batched inserts.
+//Stops after the web server, so every post that got a 202 is written before the pool closes.
+//A batch failing maxAttempts times, and whatever is unwritten when stop() gives up, is spilled to
+//spillDirectory and written first on the next start. Inserts skip ids already written, so a replay is harmless.
+@Slf4j
+public class PostBatchWriter implements SmartLifecycle {
+
+    //inserts nothing when the user doesn't exist or the post is already written, the post is then not counted
+    static final String INSERT_POST = "insert into posts (id, user_id, title, text, created_at) "
+            + "select ?, ?, ?, ?, ? where exists (select 1 from users where id = ?) "
+            + "and not exists (select 1 from posts where id = ?)";
+    //what the column default would store for every row of the batch, read once so the events carry it
+    static final String TRANSACTION_TIMESTAMP = "select localtimestamp";
+    static final String ADJUST_POST_COUNT = "update users set post_count = post_count + ? where id = ?";
+
+    private final BlockingQueue<PendingPost> queue;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final Duration enqueueTimeout;
+    private final Duration retryDelay;
+    private final Duration shutdownTimeout;
+    private final int maxAttempts;
+    private final Path spillDirectory;
+    private final AtomicLong spilled = new AtomicLong();
+
+    private volatile boolean running;
+    //set when stop() spilled what the writer still held, the writer then stops retrying and exits
+    private volatile boolean abandoned;
+    private volatile List<PendingPost> inHand = List.of();
+    private Thread writer;
+
+    public PostBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           ApplicationEventPublisher eventPublisher, int capacity, int batchSize, Duration enqueueTimeout,
+                           Duration retryDelay, Duration shutdownTimeout, int maxAttempts, Path spillDirectory) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.enqueueTimeout = enqueueTimeout;
+        this.retryDelay = retryDelay;
+        this.shutdownTimeout = shutdownTimeout;
+        this.maxAttempts = maxAttempts;
+        this.spillDirectory = spillDirectory;
+    }
+
+    //blocks while the queue is full, gives up after enqueueTimeout so callers get a 503 instead of piling up
+    public void enqueue(PendingPost post) {
+        if(!running) {
+            throw new IngestionQueueFullException("Post ingestion is shutting down, retry later.");
+        }
+        try {
+            if(!queue.offer(post, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IngestionQueueFullException("Post ingestion queue is full, retry later.");
+            }
+        } catch(InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IngestionQueueFullException("Post ingestion was interrupted, retry later.");
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        abandoned = false;
+        writer = Thread.ofPlatform().name("post-batch-writer").daemon(false).start(this::drain);
+        log.info("Post batch writer started with batch size {}.", batchSize);
+    }
+
+    //new posts are refused from here on, the writer empties the queue and exits
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch(InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        if(writer.isAlive()) {
+            //the batch in hand may still commit, its replay then skips the written ids.
+            //A batch the writer took but hadn't handed over yet is spilled by the writer itself
+            abandoned = true;
+            List<PendingPost> unwritten = new ArrayList<>(inHand);
+            queue.drainTo(unwritten);
+            writer.interrupt();
+            log.error("Post batch writer didn't finish within {}, {} accepted posts are spilled.",
+                    shutdownTimeout, unwritten.size());
+            spill(unwritten);
+            return;
+        }
+
+        //a request that passed the running check just before stop() may have enqueued after the writer exited
+        List<PendingPost> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if(!remaining.isEmpty() && !writeWithRetry(remaining)) {
+            spill(remaining);
+        }
+        log.info("Post batch writer stopped, queue flushed.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //stops after the web server (DEFAULT_PHASE - 2048) so no request can enqueue behind the final flush,
+    //and before the invalidation bus so the final flush's evictions are still delivered
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2560;
+    }
+
+    private void drain() {
+        replaySpills();
+
+        List<PendingPost> batch = new ArrayList<>(batchSize);
+        while((running || !queue.isEmpty()) && !abandoned) {
+            try {
+                PendingPost first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if(first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if(!writeWithRetry(batch)) {
+                    spill(batch);
+                }
+                batch.clear();
+            } catch(InterruptedException exception) {
+                //keep draining, stop() decides when to give up
+                log.warn("Post batch writer interrupted, continuing until the queue is empty.");
+            }
+        }
+    }
+
+    //spills are written in file order, a file is deleted once all its posts are in. If the database still
+    //refuses them the file stays for the next start and the queue is served meanwhile
+    private void replaySpills() {
+        List<Path> files;
+        try {
+            files = PendingPostSpill.list(spillDirectory);
+        } catch(IOException exception) {
+            log.error("Post spills in {} couldn't be listed: {}", spillDirectory, exception.getMessage());
+            return;
+        }
+
+        for(Path file: files) {
+            List<PendingPost> posts = PendingPostSpill.read(file).orElse(null);
+            if(posts == null) continue;
+
+            for(int from = 0; from < posts.size(); from += batchSize) {
+                if(abandoned || !writeWithRetry(posts.subList(from, Math.min(posts.size(), from + batchSize)))) {
+                    log.error("Replaying post spill {} failed, kept for the next start.", file);
+                    return;
+                }
+            }
+            try {
+                Files.delete(file);
+                log.info("{} spilled posts from {} written.", posts.size(), file);
+            } catch(IOException exception) {
+                log.error("Replayed post spill {} couldn't be deleted: {}", file, exception.getMessage());
+            }
+        }
+    }
+
+    //a failed batch stays in hand for maxAttempts, the queue fills up meanwhile and enqueue applies backpressure
+    private boolean writeWithRetry(List<PendingPost> batch) {
+        inHand = List.copyOf(batch);
+        try {
+            for(int attempt = 1; !abandoned; attempt++) {
+                try {
+                    write(batch);
+                    return true;
+                } catch(RuntimeException exception) {
+                    if(attempt >= maxAttempts) {
+                        log.error("Writing {} posts failed {} times: {}", batch.size(), attempt, exception.getMessage());
+                        return false;
+                    }
+                    log.warn("Writing {} posts failed, retrying in {}: {}", batch.size(), retryDelay,
+                            exception.getMessage());
+                }
+                try {
+                    Thread.sleep(retryDelay.toMillis());
+                } catch(InterruptedException exception) {
+                    //stop() interrupts once it abandoned the writer, the loop then ends
+                }
+            }
+            return false;
+        } finally {
+            inHand = List.of();
+        }
+    }
+
+    //the posts were acknowledged with 202, losing them is only logged when the spill itself fails
+    private void spill(List<PendingPost> posts) {
+        if(posts.isEmpty()) return;
+
+        try {
+            Path file = PendingPostSpill.write(spillDirectory, posts);
+            spilled.addAndGet(posts.size());
+            log.error("{} accepted posts spilled to {}, they are written on the next start.", posts.size(), file);
+        } catch(IOException exception) {
+            log.error("Spilling {} accepted posts to {} failed, posts with Ids {} are lost.", posts.size(),
+                    spillDirectory, posts.stream().map(PendingPost::id).toList(), exception);
+        }
+    }
+
+    void write(List<PendingPost> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime createdAt = jdbcTemplate.queryForObject(TRANSACTION_TIMESTAMP, LocalDateTime.class);
+            int[] inserted = jdbcTemplate.batchUpdate(INSERT_POST, batch, batch.size(), (statement, post) -> {
+                statement.setLong(1, post.id());
+                statement.setLong(2, post.userId());
+                statement.setString(3, post.title());
+                statement.setString(4, post.text());
+                statement.setObject(5, createdAt);
+                statement.setLong(6, post.userId());
+                statement.setLong(7, post.id());
+            })[0];
+
+            Map<Long, Long> postsPerUser = new LinkedHashMap<>();
+            for(int i = 0; i < batch.size(); i++) {
+                //PostgreSQL and H2 report the row count of every statement in the batch
+                if(inserted[i] == 0) {
+                    log.warn("Post with Id '{}' not inserted, it is already written or user with Id '{}' doesn't exist.",
+                            batch.get(i).id(), batch.get(i).userId());
+                    continue;
+                }
+                PendingPost post = batch.get(i);
+                postsPerUser.merge(post.userId(), 1L, Long::sum);
+                //delivered after commit like PostService's, invalidation evicts the post and its user
+                eventPublisher.publishEvent(ChangeEvent.postCreated(
+                        new PostDto(post.id(), post.title(), post.text(), createdAt, post.userId())));
+            }
+
+            jdbcTemplate.batchUpdate(ADJUST_POST_COUNT, postsPerUser.entrySet().stream()
+                    .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                    .toList());
+        });
+
+        log.debug("{} posts written.", batch.size());
+    }
+}
@@ -0,0 +1,35 @@
+package com.airplane.userpost.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+//Hands out post ids from blocks reserved in one round trip, ids come from the same sequence
+//as regular inserts so both paths never collide. Ids of a block lost on restart are just skipped.
+@Slf4j
+public class PostIdAllocator {
+
+    //the sequence is resolved through the column that owns it
+    static final String BLOCK_QUERY = "select nextval(pg_get_serial_sequence('posts', 'id')) from generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final Deque<Long> ids = new ArrayDeque<>();
+
+    public PostIdAllocator(JdbcTemplate jdbcTemplate, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized long nextId() {
+        if(ids.isEmpty()) {
+            List<Long> block = jdbcTemplate.queryForList(BLOCK_QUERY, Long.class, blockSize);
+            ids.addAll(block);
+            log.debug("Reserved {} post ids starting from {}.", block.size(), block.getFirst());
+        }
+        return ids.removeFirst();
+    }
+}
@@ -0,0 +1,63 @@
+package com.airplane.userpost.ingestion;
+
+import com.airplane.userpost.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+
+//Opt-in, POST /posts/{userId} answers 202 through PostIngestionService when userpost.ingestion.enabled=true
+@Configuration
+@ConditionalOnProperty(prefix = "userpost.ingestion", name = "enabled", havingValue = "true")
+public class PostIngestionConfig {
+
+    @Bean
+    public PostIdAllocator postIdAllocator(DataSource dataSource,
+                                           @Value("${userpost.ingestion.id-block-size:100}") int blockSize) {
+        return new PostIdAllocator(new JdbcTemplate(dataSource), blockSize);
+    }
+
+    @Bean
+    public PostBatchWriter postBatchWriter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                           ApplicationEventPublisher eventPublisher,
+                                           @Value("${userpost.ingestion.queue-capacity:10000}") int capacity,
+                                           @Value("${userpost.ingestion.batch-size:200}") int batchSize,
+                                           @Value("${userpost.ingestion.enqueue-timeout:PT0.2S}") Duration enqueueTimeout,
+                                           @Value("${userpost.ingestion.retry-delay:PT1S}") Duration retryDelay,
+                                           @Value("${userpost.ingestion.shutdown-timeout:PT30S}") Duration shutdownTimeout,
+                                           @Value("${userpost.ingestion.max-attempts:5}") int maxAttempts,
+                                           @Value("${userpost.ingestion.spill-path:ingestion/spill}") Path spillPath) {
+
+        return new PostBatchWriter(new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager),
+                eventPublisher, capacity, batchSize, enqueueTimeout, retryDelay, shutdownTimeout, maxAttempts, spillPath);
+    }
+
+    @Bean
+    public PostIngestionService postIngestionService(PostIdAllocator postIdAllocator, PostBatchWriter postBatchWriter,
+                                                     UserRepository userRepository) {
+        return new PostIngestionService(postIdAllocator, postBatchWriter, userRepository);
+    }
+
+    @Bean
+    public MeterBinder postIngestionMetrics(PostBatchWriter postBatchWriter) {
+        return registry -> {
+            Gauge.builder("userpost.ingestion.queue.size", postBatchWriter, PostBatchWriter::getQueueSize)
+                    .description("Accepted posts waiting for the batch writer")
+                    .register(registry);
+            FunctionCounter.builder("userpost.ingestion.spilled", postBatchWriter, PostBatchWriter::getSpilledCount)
+                    .description("Accepted posts spilled to disk because the database refused them")
+                    .register(registry);
+        };
+    }
+}
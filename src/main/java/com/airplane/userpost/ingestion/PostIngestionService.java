@@ -0,0 +1,45 @@
+package com.airplane.userpost.ingestion;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.exception.UserNotFoundException;
+import com.airplane.userpost.repository.UserRepository;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+
+//Write-behind post creation: validates, checks the user by primary key, reserves an id and queues the post
+@Slf4j
+@Validated
+public class PostIngestionService {
+
+    private final PostIdAllocator postIdAllocator;
+    private final PostBatchWriter postBatchWriter;
+    private final UserRepository userRepository;
+
+    public PostIngestionService(PostIdAllocator postIdAllocator, PostBatchWriter postBatchWriter,
+                                UserRepository userRepository) {
+        this.postIdAllocator = postIdAllocator;
+        this.postBatchWriter = postBatchWriter;
+        this.userRepository = userRepository;
+    }
+
+    //the post is readable once the writer flushed it; unknown users get 404 here,
+    //the writer only drops posts of users deleted while the post was queued
+    public PostDto acceptNewPost(@NotNull(message = "UserId mustn't be null.")
+                                 @Positive(message = "UserId must be positive number.") Long userId,
+                                 @NotNull(message = "PostDto mustn't be null.") @Valid PostDto postDto) {
+
+        if(!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User not found for Id: " + userId);
+        }
+
+        long postId = postIdAllocator.nextId();
+        postBatchWriter.enqueue(new PendingPost(postId, userId, postDto.title(), postDto.text()));
+
+        log.info("New post with Id '{}' accepted for User Id '{}'.", postId, userId);
+
+        return new PostDto(postId, postDto.title(), postDto.text(), null, userId);
+    }
+}
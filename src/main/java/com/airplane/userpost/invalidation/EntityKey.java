@@ -0,0 +1,29 @@
+package com.airplane.userpost.invalidation;
+
+//Cache key of one user or post, "user:42" on the wire
+public record EntityKey(String type, long id) {
+
+    public static final String USER = "user";
+    public static final String POST = "post";
+
+    public static EntityKey user(long id) {
+        return new EntityKey(USER, id);
+    }
+
+    public static EntityKey post(long id) {
+        return new EntityKey(POST, id);
+    }
+
+    public static EntityKey parse(String key) {
+        int separator = key.indexOf(':');
+        if(separator < 1) {
+            throw new IllegalArgumentException("Invalid entity key: " + key);
+        }
+        return new EntityKey(key.substring(0, separator), Long.parseLong(key.substring(separator + 1)));
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + id;
+    }
+}
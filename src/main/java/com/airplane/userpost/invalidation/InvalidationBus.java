@@ -0,0 +1,229 @@
+package com.airplane.userpost.invalidation;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.event.ChangeEvent;
+import com.airplane.userpost.event.UserDeletion;
+import com.airplane.userpost.event.UserUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Evicts committed keys from the local caches right away and from every other node through the transport.
+//Keys are collected for flushInterval, so a burst of writes to the same rows becomes one message.
+@Slf4j
+public class InvalidationBus implements SmartLifecycle, InvalidationTransport.Receiver {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final ObjectProvider<InvalidationListener> listenerProvider;
+    private final Duration flushInterval;
+    private final int maxBatchKeys;
+    private final Set<EntityKey> pending = new LinkedHashSet<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private volatile List<InvalidationListener> listeners = List.of();
+    private volatile boolean running;
+    private ScheduledExecutorService flusher;
+
+    public InvalidationBus(InvalidationTransport transport, ObjectProvider<InvalidationListener> listenerProvider,
+                           Duration flushInterval, int maxBatchKeys) {
+        this.transport = transport;
+        this.listenerProvider = listenerProvider;
+        this.flushInterval = flushInterval;
+        this.maxBatchKeys = maxBatchKeys;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onChange(ChangeEvent event) {
+        enqueue(keysOf(event));
+    }
+
+    //for caches outside the services, keys take effect after commit when called inside a transaction
+    public void invalidate(Collection<EntityKey> keys) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(keys);
+                }
+            });
+            return;
+        }
+        enqueue(keys);
+    }
+
+    //a post is also part of its user's dto: user updates carry the posts they kept and removed and the users
+    //they took posts from, user deletes the posts removed
+    static Set<EntityKey> keysOf(ChangeEvent event) {
+        Set<EntityKey> keys = new LinkedHashSet<>();
+        if(event.isPostEvent()) {
+            keys.add(EntityKey.post(event.id()));
+            if(event.userId() != null) keys.add(EntityKey.user(event.userId()));
+            return keys;
+        }
+
+        keys.add(EntityKey.user(event.id()));
+        switch(event.data()) {
+            case UserDto userDto -> addPosts(keys, userDto);
+            case UserUpdate update -> {
+                addPosts(keys, update.user());
+                update.removedPostIds().forEach(postId -> keys.add(EntityKey.post(postId)));
+                update.previousOwnerIds().forEach(userId -> keys.add(EntityKey.user(userId)));
+            }
+            case UserDeletion deletion -> deletion.postIds().forEach(postId -> keys.add(EntityKey.post(postId)));
+            case null, default -> {
+            }
+        }
+        return keys;
+    }
+
+    private static void addPosts(Set<EntityKey> keys, UserDto userDto) {
+        for(PostDto postDto: userDto.getPosts()) {
+            if(postDto.id() != null) keys.add(EntityKey.post(postDto.id()));
+        }
+    }
+
+    private void enqueue(Collection<EntityKey> keys) {
+        if(keys.isEmpty()) return;
+
+        notifyListeners(Set.copyOf(keys));
+        synchronized(pending) {
+            for(EntityKey key: keys) {
+                if(!pending.add(key)) coalesced.incrementAndGet();
+            }
+        }
+    }
+
+    void flush() {
+        List<EntityKey> batch;
+        synchronized(pending) {
+            if(pending.isEmpty()) return;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        for(int from = 0; from < batch.size(); from += maxBatchKeys) {
+            List<EntityKey> chunk = batch.subList(from, Math.min(batch.size(), from + maxBatchKeys));
+            try {
+                transport.publish(new InvalidationMessage(nodeId, new LinkedHashSet<>(chunk)));
+                sent.incrementAndGet();
+            } catch(RuntimeException exception) {
+                //kept for the next flush, other nodes serve stale entries until then
+                log.error("Publishing {} invalidation keys failed, retrying: {}", chunk.size(), exception.getMessage());
+                synchronized(pending) {
+                    pending.addAll(batch.subList(from, batch.size()));
+                }
+                return;
+            }
+        }
+        log.debug("{} invalidation keys published.", batch.size());
+    }
+
+    @Override
+    public void receive(InvalidationMessage message) {
+        if(nodeId.equals(message.origin())) return;
+
+        received.incrementAndGet();
+        notifyListeners(message.keys());
+    }
+
+    @Override
+    public void reset() {
+        for(InvalidationListener listener: listeners) {
+            try {
+                listener.invalidateAll();
+            } catch(RuntimeException exception) {
+                log.error("Cache reset failed in {}: {}", listener.getClass().getSimpleName(), exception.getMessage());
+            }
+        }
+    }
+
+    private void notifyListeners(Set<EntityKey> keys) {
+        for(InvalidationListener listener: listeners) {
+            try {
+                listener.invalidate(keys);
+            } catch(RuntimeException exception) {
+                log.error("Invalidation failed in {}: {}", listener.getClass().getSimpleName(), exception.getMessage());
+            }
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getPendingCount() {
+        synchronized(pending) {
+            return pending.size();
+        }
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    //listeners are resolved here, caches may depend on the bus themselves
+    @Override
+    public void start() {
+        listeners = listenerProvider.orderedStream().toList();
+        transport.subscribe(this);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable ->
+                Thread.ofPlatform().name("invalidation-flusher").daemon(true).unstarted(runnable));
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Invalidation bus started on node {} with {} listeners.", nodeId, listeners.size());
+    }
+
+    //after the web server and before the transport, the keys of the last requests still go out
+    @Override
+    public void stop() {
+        running = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushInterval.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        } catch(InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //stops after the web server (DEFAULT_PHASE - 2048) and the post batch writer, both still publish
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 3072;
+    }
+}
@@ -0,0 +1,63 @@
+package com.airplane.userpost.invalidation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class InvalidationConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "userpost.invalidation", name = "transport", havingValue = "postgres",
+            matchIfMissing = true)
+    public PostgresInvalidationTransport postgresInvalidationTransport(
+            JdbcTemplate jdbcTemplate, DataSourceProperties properties,
+            @Value("${userpost.invalidation.channel:userpost_invalidation}") String channel,
+            @Value("${userpost.invalidation.poll-timeout:PT1S}") Duration pollTimeout,
+            @Value("${userpost.invalidation.reconnect-delay:PT5S}") Duration reconnectDelay) {
+
+        return new PostgresInvalidationTransport(jdbcTemplate, properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), channel, pollTimeout, reconnectDelay);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "userpost.invalidation", name = "transport", havingValue = "loopback")
+    public LoopbackInvalidationTransport loopbackInvalidationTransport() {
+        return new LoopbackInvalidationTransport();
+    }
+
+    @Bean
+    public InvalidationBus invalidationBus(InvalidationTransport transport,
+                                           ObjectProvider<InvalidationListener> listeners,
+                                           @Value("${userpost.invalidation.flush-interval:PT0.05S}") Duration flushInterval,
+                                           @Value("${userpost.invalidation.max-batch-keys:256}") int maxBatchKeys) {
+        return new InvalidationBus(transport, listeners, flushInterval, maxBatchKeys);
+    }
+
+    @Bean
+    public MeterBinder invalidationMetrics(InvalidationBus invalidationBus) {
+        return registry -> {
+            Gauge.builder("userpost.invalidation.pending", invalidationBus, InvalidationBus::getPendingCount)
+                    .description("Keys waiting for the next flush")
+                    .register(registry);
+            FunctionCounter.builder("userpost.invalidation.sent", invalidationBus, InvalidationBus::getSentCount)
+                    .description("Invalidation messages published to other nodes")
+                    .register(registry);
+            FunctionCounter.builder("userpost.invalidation.received", invalidationBus, InvalidationBus::getReceivedCount)
+                    .description("Invalidation messages received from other nodes")
+                    .register(registry);
+            FunctionCounter.builder("userpost.invalidation.coalesced", invalidationBus, InvalidationBus::getCoalescedCount)
+                    .description("Keys merged into an already pending invalidation")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.airplane.userpost.invalidation;
+
+import java.util.Set;
+
+//Implemented by in-process caches of users and posts, every bean of this type is evicted by the bus
+public interface InvalidationListener {
+
+    void invalidate(Set<EntityKey> keys);
+
+    //the transport may have lost messages, e.g. after a reconnect
+    void invalidateAll();
+}
@@ -0,0 +1,7 @@
+package com.airplane.userpost.invalidation;
+
+import java.util.Set;
+
+//origin lets a node skip its own messages, it already evicted locally on commit
+public record InvalidationMessage(String origin, Set<EntityKey> keys) {
+}
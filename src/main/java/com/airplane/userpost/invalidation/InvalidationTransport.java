@@ -0,0 +1,17 @@
+package com.airplane.userpost.invalidation;
+
+//Carries invalidation messages between nodes. Delivery is at most once,
+//a transport that may have dropped messages calls Receiver.reset instead.
+public interface InvalidationTransport {
+
+    void publish(InvalidationMessage message);
+
+    void subscribe(Receiver receiver);
+
+    interface Receiver {
+
+        void receive(InvalidationMessage message);
+
+        void reset();
+    }
+}
@@ -0,0 +1,24 @@
+package com.airplane.userpost.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+//In-memory transport for tests and single-node runs, buses sharing one instance behave like separate nodes
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        receivers.forEach(receiver -> receiver.receive(message));
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    public void reset() {
+        receivers.forEach(Receiver::reset);
+    }
+}
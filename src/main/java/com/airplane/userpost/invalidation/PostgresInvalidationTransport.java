@@ -0,0 +1,190 @@
+package com.airplane.userpost.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+//LISTEN/NOTIFY on the primary: pg_notify goes through the pool, LISTEN holds its own connection
+//outside the pool so it never counts against it. A reconnect resets the receivers since NOTIFYs
+//sent meanwhile are gone.
+@Slf4j
+public class PostgresInvalidationTransport implements InvalidationTransport, SmartLifecycle {
+
+    //PostgreSQL rejects payloads of 8000 bytes or more, keys are ASCII so chars are bytes
+    static final int MAX_PAYLOAD = 7900;
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresInvalidationTransport(JdbcTemplate jdbcTemplate, String url, String username, String password,
+                                         String channel, Duration pollTimeout, Duration reconnectDelay) {
+        //LISTEN takes an identifier, not a bind parameter
+        if(!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        for(String payload: encode(message, MAX_PAYLOAD)) {
+            jdbcTemplate.execute("select pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) statement -> {
+                statement.setString(1, channel);
+                statement.setString(2, payload);
+                return statement.execute();
+            });
+        }
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = Thread.ofPlatform().name("invalidation-listener").daemon(true).start(this::listen);
+        log.info("Listening for cache invalidations on channel '{}'.", channel);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            listener.join(pollTimeout.toMillis() + 1000);
+        } catch(InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //starts before and stops after the bus
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while(running) {
+            try(Connection connection = DriverManager.getConnection(url, username, password);
+                Statement statement = connection.createStatement()) {
+
+                statement.execute("LISTEN " + channel);
+                if(reconnecting) {
+                    log.warn("Invalidation listener reconnected, resetting caches.");
+                    receivers.forEach(Receiver::reset);
+                }
+                reconnecting = false;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while(running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if(notifications == null) continue;
+
+                    for(PGNotification notification: notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch(SQLException exception) {
+                if(!running) return;
+                reconnecting = true;
+                log.error("Invalidation listener lost its connection, reconnecting in {}: {}",
+                        reconnectDelay, exception.getMessage());
+                sleep(reconnectDelay);
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        InvalidationMessage message;
+        try {
+            message = decode(payload);
+        } catch(IllegalArgumentException exception) {
+            log.warn("Malformed invalidation payload ignored: {}", exception.getMessage());
+            return;
+        }
+        receivers.forEach(receiver -> receiver.receive(message));
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch(InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    //"origin|user:1,post:7", split so that no payload exceeds maxPayload
+    static List<String> encode(InvalidationMessage message, int maxPayload) {
+        String prefix = message.origin() + "|";
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(prefix);
+
+        for(EntityKey key: message.keys()) {
+            String encodedKey = key.toString();
+            boolean empty = payload.length() == prefix.length();
+            if(!empty && payload.length() + 1 + encodedKey.length() > maxPayload) {
+                payloads.add(payload.toString());
+                payload.setLength(prefix.length());
+                empty = true;
+            }
+            if(!empty) payload.append(',');
+            payload.append(encodedKey);
+        }
+        if(payload.length() > prefix.length()) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    static InvalidationMessage decode(String payload) {
+        int separator = payload.indexOf('|');
+        if(separator < 0) {
+            throw new IllegalArgumentException("Missing origin: " + payload);
+        }
+
+        Set<EntityKey> keys = new LinkedHashSet<>();
+        for(String key: payload.substring(separator + 1).split(",")) {
+            if(!key.isEmpty()) keys.add(EntityKey.parse(key));
+        }
+        return new InvalidationMessage(payload.substring(0, separator), keys);
+    }
+}
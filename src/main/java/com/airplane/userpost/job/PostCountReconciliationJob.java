@@ -0,0 +1,50 @@
+package com.airplane.userpost.job;
+
+import com.airplane.userpost.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+//Detects users whose denormalized post_count differs from the posts table and recalculates it
+@Slf4j
+@Component
+public class PostCountReconciliationJob {
+
+    private final UserRepository userRepository;
+    private final int batchSize;
+
+    @Autowired
+    public PostCountReconciliationJob(UserRepository userRepository,
+                                      @Value("${userpost.post-count.reconciliation.batch-size:500}") int batchSize) {
+        this.userRepository = userRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${userpost.post-count.reconciliation.initial-delay:PT10M}",
+            fixedDelayString = "${userpost.post-count.reconciliation.interval:PT1H}")
+    @Transactional
+    public int reconcile() {
+
+        List<Long> driftedUserIds = userRepository.findUserIdsWithPostCountDrift();
+        if(driftedUserIds.isEmpty()) {
+            log.debug("No post count drift found.");
+            return 0;
+        }
+
+        log.warn("Post count drift found for {} users.", driftedUserIds.size());
+
+        int repaired = 0;
+        for(int from = 0; from < driftedUserIds.size(); from += batchSize) {
+            List<Long> batch = driftedUserIds.subList(from, Math.min(from + batchSize, driftedUserIds.size()));
+            repaired += userRepository.repairPostCounts(batch);
+        }
+
+        log.info("Post count repaired for {} users.", repaired);
+        return repaired;
+    }
+}
@@ -0,0 +1,57 @@
+package com.airplane.userpost.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "userpost.limiter", name = "enabled", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter(@Value("${userpost.limiter.initial-limit:20}") int initialLimit,
+                                                 @Value("${userpost.limiter.min-limit:4}") int minLimit,
+                                                 @Value("${userpost.limiter.max-limit:200}") int maxLimit,
+                                                 @Value("${userpost.limiter.smoothing:0.2}") double smoothing,
+                                                 @Value("${userpost.limiter.rtt-tolerance:1.5}") double rttTolerance,
+                                                 @Value("${userpost.limiter.long-window:600}") int longWindow) {
+        return new ConcurrencyLimiter(
+                new GradientLimit(initialLimit, minLimit, maxLimit, smoothing, rttTolerance, longWindow));
+    }
+
+    //only the API, actuator and error pages stay reachable under load
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ConcurrencyLimiter concurrencyLimiter,
+            @Value("${userpost.limiter.retry-after:PT1S}") Duration retryAfter) {
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(concurrencyLimiter, retryAfter));
+        registration.addUrlPatterns("/users", "/users/*", "/posts", "/posts/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder concurrencyLimiterMetrics(ConcurrencyLimiter concurrencyLimiter) {
+        return registry -> {
+            Gauge.builder("userpost.limiter.limit", concurrencyLimiter, ConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .register(registry);
+            Gauge.builder("userpost.limiter.inflight", concurrencyLimiter, ConcurrencyLimiter::getInflight)
+                    .description("Requests currently admitted")
+                    .register(registry);
+            FunctionCounter.builder("userpost.limiter.rejected", concurrencyLimiter, ConcurrencyLimiter::getRejected)
+                    .description("Requests shed with 503")
+                    .register(registry);
+        };
+    }
+}
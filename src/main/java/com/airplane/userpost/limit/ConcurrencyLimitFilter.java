@@ -0,0 +1,59 @@
+package com.airplane.userpost.limit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+//Sheds requests with 503 once the adaptive limit is reached, before they queue on the connection pool
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String STREAM_PATH = "/posts/stream";
+    static final String OVERLOADED_BODY = "{\"Error\":\"Service is overloaded, retry later.\"}";
+
+    private final ConcurrencyLimiter limiter;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter, Duration retryAfter) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    //the change stream goes async right away and then stays open, it would only skew the rtt samples
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return STREAM_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if(permit == null) {
+            log.warn("Request {} {} shed, {} in flight with limit {}.",
+                    request.getMethod(), request.getRequestURI(), limiter.getInflight(), limiter.getLimit());
+
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(OVERLOADED_BODY);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.release();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.airplane.userpost.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Admits requests while the in-flight count is under the adaptive limit
+public class ConcurrencyLimiter {
+
+    private final GradientLimit gradientLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int limit;
+
+    public ConcurrencyLimiter(GradientLimit gradientLimit) {
+        this.gradientLimit = gradientLimit;
+        this.limit = gradientLimit.getLimit();
+    }
+
+    //null when the request has to be shed, otherwise the permit must be released once
+    public Permit tryAcquire() {
+        while(true) {
+            int current = inflight.get();
+            if(current >= limit) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if(inflight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtStart) {
+        limit = gradientLimit.update(rttNanos, inflightAtStart);
+    }
+
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inflightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos, int inflightAtStart) {
+            this.startNanos = startNanos;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        //latency of a completed request feeds the limit
+        public void release() {
+            if(released) return;
+            released = true;
+            inflight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inflightAtStart);
+        }
+    }
+}
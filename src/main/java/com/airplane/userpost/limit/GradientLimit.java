@@ -0,0 +1,66 @@
+package com.airplane.userpost.limit;
+
+//Gradient concurrency limit (same idea as TCP Vegas): the limit follows the ratio between the long-term
+//round trip time and the latest one. Latency above the baseline shrinks it, a steady latency lets it grow
+//by the queue allowance. Not thread-safe, ConcurrencyLimiter serializes the updates.
+public class GradientLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final int longWindow;
+
+    private double estimatedLimit;
+    private double longRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit,
+                         double smoothing, double rttTolerance, int longWindow) {
+        if(minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max.");
+        }
+        if(smoothing <= 0 || smoothing > 1) throw new IllegalArgumentException("Smoothing must be in (0, 1].");
+        if(rttTolerance < 1) throw new IllegalArgumentException("RTT tolerance must be at least 1.");
+        if(longWindow < 1) throw new IllegalArgumentException("Long window must be positive.");
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.longWindow = longWindow;
+        this.estimatedLimit = initialLimit;
+    }
+
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    //rttNanos of a finished request, inflight is the number of requests running when it started
+    public int update(long rttNanos, int inflight) {
+        double shortRtt = rttNanos;
+
+        if(longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) / longWindow;
+        }
+
+        //a long stall raised the baseline, let it drift down again so the limit can recover
+        if(longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        //the limit isn't the bottleneck, no evidence to grow it
+        if(inflight < estimatedLimit / 2) {
+            return getLimit();
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        return getLimit();
+    }
+}
@@ -0,0 +1,60 @@
+package com.airplane.userpost.mapper;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.exception.MapperException;
+import com.airplane.userpost.grpc.proto.Post;
+import com.airplane.userpost.grpc.proto.User;
+import com.google.protobuf.Timestamp;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+//DTOs to the protobuf messages in userpost.proto, unset proto fields stay at their defaults
+@Component
+public class ProtoMapper {
+
+    public Post toProto(PostDto postDto) {
+        if(postDto == null) throw new MapperException("Mapper received null PostDto.");
+
+        Post.Builder post = Post.newBuilder();
+        if(postDto.id() != null) post.setId(postDto.id());
+        if(postDto.title() != null) post.setTitle(postDto.title());
+        if(postDto.text() != null) post.setText(postDto.text());
+        if(postDto.createdAt() != null) post.setCreatedAt(toTimestamp(postDto.createdAt()));
+        if(postDto.userId() != null) post.setUserId(postDto.userId());
+
+        return post.build();
+    }
+
+    public User toProto(UserDto userDto) {
+        if(userDto == null) throw new MapperException("Mapper received null UserDto.");
+
+        User.Builder user = User.newBuilder();
+        if(userDto.getId() != null) user.setId(userDto.getId());
+        if(userDto.getUserName() != null) user.setUserName(userDto.getUserName());
+        if(userDto.getEmail() != null) user.setEmail(userDto.getEmail());
+        if(userDto.getCreatedAt() != null) user.setCreatedAt(toTimestamp(userDto.getCreatedAt()));
+
+        for(PostDto postDto: userDto.getPosts()) {
+            user.addPosts(toProto(postDto));
+        }
+
+        return user.build();
+    }
+
+    //createdAt has no zone, the wall-clock value is sent at UTC offset
+    public LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()), ZoneOffset.UTC);
+    }
+
+    private Timestamp toTimestamp(LocalDateTime dateTime) {
+        Instant instant = dateTime.toInstant(ZoneOffset.UTC);
+        return Timestamp.newBuilder()
+                .setSeconds(instant.getEpochSecond())
+                .setNanos(instant.getNano())
+                .build();
+    }
+}
@@ -2,15 +2,25 @@ package com.airplane.userpost.mapper;
 
 import com.airplane.userpost.dto.PostDto;
 import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.dto.UserSummaryDto;
 import com.airplane.userpost.exception.MapperException;
 import com.airplane.userpost.model.Post;
 import com.airplane.userpost.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
 @Component
 public class UserMapper {
 
+    //posts the database hasn't stamped yet lead, the id breaks ties within one timestamp
+    static final Comparator<PostDto> NEWEST_FIRST = Comparator
+            .comparing(PostDto::createdAt, Comparator.nullsFirst(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(PostDto::id, Comparator.nullsFirst(Comparator.<Long>reverseOrder()));
+
     private final PostMapper postMapper;
 
     @Autowired
@@ -28,13 +38,28 @@ public class UserMapper {
                 user.getCreatedAt()
         );
 
+        List<PostDto> posts = userDto.getPosts();
         for(Post post: user.getPosts()) {
-            userDto.addPost(postMapper.toDto(post));
+            posts.add(postMapper.toDto(post));
         }
+        posts.sort(NEWEST_FIRST);
 
         return userDto;
     }
 
+    //Posts collection isn't touched here
+    public UserSummaryDto toSummaryDto(User user) {
+        if(user == null) throw new MapperException("Mapper received null User.");
+
+        return new UserSummaryDto(
+                user.getId(),
+                user.getUserName(),
+                user.getEmail(),
+                user.getCreatedAt(),
+                user.getPostCount()
+        );
+    }
+
     public User toUser(UserDto userDto) {
         if(userDto == null) throw new MapperException("Mapper received null UserDTO.");
 
@@ -0,0 +1,52 @@
+package com.airplane.userpost.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.SpringProperties;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+//java -jar userpost.jar --migrate-only: applies the changelog with the regular spring.datasource and
+//spring.liquibase settings and exits. Only the DataSource and Liquibase are started, no web server,
+//JPA or jobs. Run it once per release before the pods, which then skip Liquibase (see SchemaVersionCheck).
+@Slf4j
+public final class MigrationRunner {
+
+    public static final String MIGRATE_ONLY = "--migrate-only";
+
+    private MigrationRunner() {
+    }
+
+    public static boolean isRequested(String[] args) {
+        return Arrays.asList(args).contains(MIGRATE_ONLY);
+    }
+
+    public static int run(String[] args) {
+        //no AOT initializers exist for this context, an image built with AOT=true enables AOT for the application itself
+        SpringProperties.setProperty("spring.aot.enabled", "false");
+
+        //pods share the environment with SPRING_LIQUIBASE_ENABLED=false, the faststart profile is lazy
+        String[] migrationArgs = Stream.concat(
+                Arrays.stream(args).filter(arg -> !arg.equals(MIGRATE_ONLY)
+                        && !arg.startsWith("--spring.liquibase.enabled=")
+                        && !arg.startsWith("--spring.main.lazy-initialization=")),
+                Stream.of("--spring.liquibase.enabled=true", "--spring.main.lazy-initialization=false"))
+                .toArray(String[]::new);
+
+        ConfigurableApplicationContext context =
+                new SpringApplicationBuilder(DataSourceAutoConfiguration.class, LiquibaseAutoConfiguration.class)
+                        .web(WebApplicationType.NONE)
+                        .bannerMode(Banner.Mode.OFF)
+                        .run(migrationArgs);
+
+        log.info("Database migration finished.");
+        return SpringApplication.exit(context);
+    }
+}
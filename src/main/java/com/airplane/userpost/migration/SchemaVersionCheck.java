@@ -0,0 +1,84 @@
+package com.airplane.userpost.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+//Boot-time check for pods that skip Liquibase: every changeSet of the master changelog must be recorded
+//in DATABASECHANGELOG. One query, no lock, checksums or preconditions. Startup fails on a schema behind
+//the jar, before the web server accepts requests. SmartInitializingSingleton keeps it eager under lazy init.
+@Slf4j
+public class SchemaVersionCheck implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Resource changeLog;
+    private final String changeLogTable;
+    private final boolean enabled;
+
+    public SchemaVersionCheck(JdbcTemplate jdbcTemplate, Resource changeLog, String changeLogTable, boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeLog = changeLog;
+        this.changeLogTable = changeLogTable;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if(!enabled) return;
+        verify();
+    }
+
+    public void verify() {
+        Set<String> expected = readChangeSets(changeLog);
+
+        Set<String> applied;
+        try {
+            applied = new HashSet<>(jdbcTemplate.query("select id, author from " + changeLogTable,
+                    (resultSet, rowNum) -> resultSet.getString("id") + "::" + resultSet.getString("author")));
+        } catch(DataAccessException exception) {
+            throw new IllegalStateException("Database schema version unknown, " + changeLogTable
+                    + " is not readable. Run java -jar userpost.jar --migrate-only first.", exception);
+        }
+
+        Set<String> missing = new LinkedHashSet<>(expected);
+        missing.removeAll(applied);
+        if(!missing.isEmpty()) {
+            throw new IllegalStateException("Database schema is behind the application, changesets " + missing
+                    + " are not applied. Run java -jar userpost.jar --migrate-only first.");
+        }
+
+        log.info("Database schema is up to date, {} changesets applied.", expected.size());
+    }
+
+    //id::author of every changeSet in the master file, includes aren't followed
+    static Set<String> readChangeSets(Resource changeLog) {
+        Set<String> changeSets = new LinkedHashSet<>();
+        try(InputStream input = changeLog.getInputStream()) {
+            XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(input);
+            while(reader.hasNext()) {
+                if(reader.next() == XMLStreamReader.START_ELEMENT && "changeSet".equals(reader.getLocalName())) {
+                    changeSets.add(reader.getAttributeValue(null, "id") + "::" + reader.getAttributeValue(null, "author"));
+                }
+            }
+            reader.close();
+        } catch(IOException | XMLStreamException exception) {
+            throw new IllegalStateException("Changelog " + changeLog + " is not readable.", exception);
+        }
+
+        if(changeSets.isEmpty()) {
+            throw new IllegalStateException("Changelog " + changeLog + " has no changeSets.");
+        }
+        return changeSets;
+    }
+}
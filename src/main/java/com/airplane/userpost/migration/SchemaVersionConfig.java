@@ -0,0 +1,24 @@
+package com.airplane.userpost.migration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class SchemaVersionConfig {
+
+    //decided at runtime rather than with a condition, AOT builds fix conditions at build time
+    @Bean
+    public SchemaVersionCheck schemaVersionCheck(
+            JdbcTemplate jdbcTemplate, ResourceLoader resourceLoader,
+            @Value("${spring.liquibase.enabled:true}") boolean liquibaseEnabled,
+            @Value("${userpost.migration.verify-on-boot:true}") boolean verifyOnBoot,
+            @Value("${spring.liquibase.change-log:classpath:db/changelog/db.changelog-master.xml}") String changeLog,
+            @Value("${spring.liquibase.database-change-log-table:DATABASECHANGELOG}") String changeLogTable) {
+
+        return new SchemaVersionCheck(jdbcTemplate, resourceLoader.getResource(changeLog), changeLogTable,
+                !liquibaseEnabled && verifyOnBoot);
+    }
+}
@@ -5,20 +5,24 @@ import lombok.Data;
 import org.hibernate.annotations.Generated;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
 
 @Data
 @Entity
 @Table(name = "posts")
 public class Post {
 
+    //persist() draws the id from the sequence the column defaults to, before the insert, so a new post
+    //has its id before it goes into a set. Increment 1, the SQL inserts take values from the same sequence
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_id_seq")
+    @SequenceGenerator(name = "posts_id_seq", sequenceName = "posts_id_seq", allocationSize = 1)
     private Long id;
 
     @Column(nullable = false)
     private String title;
 
+    //needs bytecode enhancement (see pom.xml), loaded on first getText()
+    @Basic(fetch = FetchType.LAZY)
     @Column
     private String text;
 
@@ -30,23 +34,18 @@ public class Post {
     @JoinColumn(name = "user_id")
     private User user;
 
+    //identity is the primary key, a post without one is only equal to itself.
+    //The hash is the id's, equal posts hash alike in any instance; persist a post before adding it to a set
     @Override
     public boolean equals(Object obj) {
         if(this == obj) return true;
-        if(obj == null || this.getClass() != obj.getClass()) return false;
+        if(!(obj instanceof Post other)) return false;
 
-        Post other = (Post) obj;
-        Long thisUserId = this.user != null ? this.user.getId() : null;
-        Long otherUserId = other.user != null ? other.user.getId() : null;
-
-        return Objects.equals(this.id, other.id)
-                && Objects.equals(this.title, other.title)
-                && Objects.equals(this.text, other.text)
-                && Objects.equals(thisUserId, otherUserId);
+        return id != null && id.equals(other.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, text, user == null ? null : user.getId());
+        return id == null ? 0 : Long.hashCode(id);
     }
 }
@@ -2,8 +2,10 @@ package com.airplane.userpost.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
-import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -24,12 +26,23 @@ public class User {
     @Column(unique = true, nullable = false)
     private String email;
 
-    @EqualsAndHashCode.Exclude
     @Column(name = "created_at", insertable = false, updatable = false)
     @Generated
     private LocalDateTime createdAt;
 
+    //maintained by PostService/UserService through UserRepository, never flushed from the entity
+    @Column(name = "post_count", insertable = false, updatable = false)
+    @Generated
+    private Long postCount;
+
+    //size(), contains(), add() and remove() are answered by queries and queued inserts/deletes instead of
+    //initializing the collection, equals() and toString() leave it out for the same reason
+    //@LazyCollection is deprecated in Hibernate 6 without a replacement for EXTRA, the only way to get queued
+    //add()/remove() on an unloaded collection
+    @SuppressWarnings("deprecation")
+    @ToString.Exclude
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @LazyCollection(LazyCollectionOption.EXTRA)
     private Set<Post> posts = new HashSet<>();
 
     public void addPost(Post post) {
@@ -37,9 +50,24 @@ public class User {
         post.setUser(this);
     }
 
+    //orphan removal deletes the row, clearing post.user would only add an update before the delete
     public void removePost(Post post) {
         posts.remove(post);
-        post.setUser(null);
+    }
+
+    //identity is the primary key, hashed the same way as Post. IDENTITY inserts on persist(),
+    //so a user has its id before it can go into a set
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) return true;
+        if(!(obj instanceof User other)) return false;
+
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return id == null ? 0 : Long.hashCode(id);
     }
 
     @PrePersist
@@ -0,0 +1,21 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.PostField;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+//Reads only the requested columns of posts, rows contain exactly the requested fields
+public interface PostProjectionRepository {
+
+    List<Map<String, Object>> findAllProjected(Set<PostField> fields);
+
+    Optional<Map<String, Object>> findProjectedById(Long postId, Set<PostField> fields);
+
+    List<Map<String, Object>> findProjectedByUserId(Long userId, Set<PostField> fields);
+
+    //single query for every post, grouped by owner id
+    Map<Long, List<Map<String, Object>>> findAllProjectedGroupedByUserId(Set<PostField> fields);
+}
@@ -0,0 +1,107 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.PostField;
+import com.airplane.userpost.model.Post;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.airplane.userpost.repository.ProjectionSupport.path;
+import static com.airplane.userpost.repository.ProjectionSupport.selectKey;
+import static com.airplane.userpost.repository.ProjectionSupport.toRow;
+
+class PostProjectionRepositoryImpl implements PostProjectionRepository {
+
+    private static final String OWNER_ALIAS = "_ownerId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${userpost.posts.excerpt-length:200}")
+    private int excerptLength;
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(Set<PostField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> root = query.from(Post.class);
+
+        query.multiselect(selections(cb, root, fields))
+                .orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query).getResultStream()
+                .map(tuple -> toRow(tuple, fields))
+                .toList();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findProjectedById(Long postId, Set<PostField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> root = query.from(Post.class);
+
+        query.multiselect(selections(cb, root, fields))
+                .where(cb.equal(root.get("id"), postId));
+
+        return entityManager.createQuery(query).getResultStream()
+                .findFirst()
+                .map(tuple -> toRow(tuple, fields));
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedByUserId(Long userId, Set<PostField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> root = query.from(Post.class);
+
+        query.multiselect(selections(cb, root, fields))
+                .where(cb.equal(path(root, PostField.USER_ID.attributePath()), userId))
+                .orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query).getResultStream()
+                .map(tuple -> toRow(tuple, fields))
+                .toList();
+    }
+
+    //excerpt and length are computed by the database, so the full text never leaves it
+    private List<Selection<?>> selections(CriteriaBuilder cb, Root<Post> root, Set<PostField> fields) {
+        return ProjectionSupport.selections(fields, field -> switch(field) {
+            case EXCERPT -> cb.substring(root.get("text"), 1, excerptLength);
+            case TEXT_LENGTH -> cb.length(root.get("text"));
+            default -> path(root, field.attributePath());
+        });
+    }
+
+    @Override
+    public Map<Long, List<Map<String, Object>>> findAllProjectedGroupedByUserId(Set<PostField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> root = query.from(Post.class);
+
+        List<Selection<?>> selections = selections(cb, root, fields);
+        String ownerAlias = selectKey(selections, root, fields, PostField.USER_ID, OWNER_ALIAS);
+
+        query.multiselect(selections)
+                .orderBy(cb.asc(root.get("id")));
+
+        Map<Long, List<Map<String, Object>>> postsByUserId = new HashMap<>();
+        entityManager.createQuery(query).getResultStream()
+                .forEach(tuple -> postsByUserId
+                        .computeIfAbsent(tuple.get(ownerAlias, Long.class), userId -> new ArrayList<>())
+                        .add(toRow(tuple, fields)));
+
+        return postsByUserId;
+    }
+}
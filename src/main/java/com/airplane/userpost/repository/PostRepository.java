@@ -1,7 +1,34 @@
 package com.airplane.userpost.repository;
 
 import com.airplane.userpost.model.Post;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.lang.NonNull;
 
-public interface PostRepository extends CrudRepository<Post, Long> {
+import java.util.List;
+import java.util.Optional;
+
+public interface PostRepository extends CrudRepository<Post, Long>, PostProjectionRepository,
+        PostWriteRepository {
+
+    //text is a lazy attribute, fetched in the same select for entity reads that map it
+    @Override
+    @EntityGraph(attributePaths = "text")
+    @NonNull
+    Iterable<Post> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "text")
+    @NonNull
+    Optional<Post> findById(@NonNull Long postId);
+
+    @Override
+    @EntityGraph(attributePaths = "text")
+    @NonNull
+    Iterable<Post> findAllById(@NonNull Iterable<Long> postIds);
+
+    //keyset page for streaming, the next page starts after the last id of this one
+    @EntityGraph(attributePaths = "text")
+    List<Post> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 }
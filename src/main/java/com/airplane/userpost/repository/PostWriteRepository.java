@@ -0,0 +1,18 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.PostDto;
+
+import java.util.Optional;
+
+//Writes posts with one SQL statement each, nothing is loaded into or flushed from the persistence context
+public interface PostWriteRepository {
+
+    //empty when the user doesn't exist, the user's post_count is incremented with the insert
+    Optional<PostDto> insertPost(Long userId, String title, String text);
+
+    //empty when no post has the id
+    Optional<PostDto> updatePost(Long postId, String title, String text);
+
+    //owner's id, empty when no post had the id. The owner's post_count is decremented with the delete.
+    Optional<Long> deletePost(Long postId);
+}
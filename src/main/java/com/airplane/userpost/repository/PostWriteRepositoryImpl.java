@@ -0,0 +1,53 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.PostDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+class PostWriteRepositoryImpl implements PostWriteRepository {
+
+    //the post_count update returns the user id the insert selects from: no user, no row.
+    //It also locks the user's row until commit, so the user can't be deleted in between.
+    static final String INSERT_POST = "with counted as ("
+            + "update users set post_count = post_count + 1 where id = ? returning id) "
+            + "insert into posts (user_id, title, text) select id, ?, ? from counted "
+            + "returning id, created_at";
+
+    static final String UPDATE_POST = "update posts set title = ?, text = ? where id = ? "
+            + "returning created_at, user_id";
+
+    static final String DELETE_POST = "with deleted as (delete from posts where id = ? returning user_id), "
+            + "counted as (update users set post_count = post_count - 1 where id in (select user_id from deleted)) "
+            + "select user_id from deleted";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PostWriteRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<PostDto> insertPost(Long userId, String title, String text) {
+        return jdbcTemplate.query(INSERT_POST, resultSet -> resultSet.next()
+                ? Optional.of(new PostDto(resultSet.getLong("id"), title, text,
+                        resultSet.getObject("created_at", LocalDateTime.class), userId))
+                : Optional.empty(), userId, title, text);
+    }
+
+    @Override
+    public Optional<PostDto> updatePost(Long postId, String title, String text) {
+        return jdbcTemplate.query(UPDATE_POST, resultSet -> resultSet.next()
+                ? Optional.of(new PostDto(postId, title, text,
+                        resultSet.getObject("created_at", LocalDateTime.class), resultSet.getLong("user_id")))
+                : Optional.empty(), title, text, postId);
+    }
+
+    @Override
+    public Optional<Long> deletePost(Long postId) {
+        return jdbcTemplate.query(DELETE_POST, resultSet -> resultSet.next()
+                ? Optional.of(resultSet.getLong("user_id"))
+                : Optional.empty(), postId);
+    }
+}
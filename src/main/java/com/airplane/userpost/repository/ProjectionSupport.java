@@ -0,0 +1,59 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.ProjectedField;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+//Turns requested fields into criteria selections and the resulting tuples into response rows
+final class ProjectionSupport {
+
+    private ProjectionSupport() {
+    }
+
+    static Path<?> path(Path<?> root, String attributePath) {
+        Path<?> path = root;
+        for(String attribute: attributePath.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+
+    static List<Selection<?>> selections(Path<?> root, Collection<? extends ProjectedField> fields) {
+        return selections(fields, field -> path(root, field.attributePath()));
+    }
+
+    static <F extends ProjectedField> List<Selection<?>> selections(Collection<F> fields,
+                                                                   Function<F, Expression<?>> expressions) {
+        List<Selection<?>> selections = new ArrayList<>(fields.size() + 1);
+        for(F field: fields) {
+            selections.add(expressions.apply(field).alias(field.fieldName()));
+        }
+        return selections;
+    }
+
+    //adds the key column unless it is requested anyway and returns the alias it can be read by
+    static String selectKey(List<Selection<?>> selections, Path<?> root,
+                            Collection<? extends ProjectedField> fields, ProjectedField keyField, String keyAlias) {
+        if(fields.contains(keyField)) return keyField.fieldName();
+
+        selections.add(path(root, keyField.attributePath()).alias(keyAlias));
+        return keyAlias;
+    }
+
+    static Map<String, Object> toRow(Tuple tuple, Collection<? extends ProjectedField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for(ProjectedField field: fields) {
+            row.put(field.fieldName(), tuple.get(field.fieldName()));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,16 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.UserField;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+//Reads only the requested columns of users, posts are never touched here
+public interface UserProjectionRepository {
+
+    //keyed by user id in id order, the id is selected even when not requested
+    Map<Long, Map<String, Object>> findAllProjected(Set<UserField> fields);
+
+    Optional<Map<String, Object>> findProjectedById(Long userId, Set<UserField> fields);
+}
@@ -0,0 +1,66 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.UserField;
+import com.airplane.userpost.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.airplane.userpost.repository.ProjectionSupport.selectKey;
+import static com.airplane.userpost.repository.ProjectionSupport.selections;
+import static com.airplane.userpost.repository.ProjectionSupport.toRow;
+
+class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    private static final String KEY_ALIAS = "_userId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Map<Long, Map<String, Object>> findAllProjected(Set<UserField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+
+        List<Selection<?>> selections = selections(root, fields);
+        String keyAlias = selectKey(selections, root, fields, UserField.ID, KEY_ALIAS);
+
+        query.multiselect(selections)
+                .orderBy(cb.asc(root.get("id")));
+
+        Map<Long, Map<String, Object>> usersById = new LinkedHashMap<>();
+        entityManager.createQuery(query).getResultStream()
+                .forEach(tuple -> usersById.put(tuple.get(keyAlias, Long.class), toRow(tuple, fields)));
+
+        return usersById;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findProjectedById(Long userId, Set<UserField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+
+        //at least one column is needed to tell an existing user from a missing one
+        List<Selection<?>> selections = selections(root, fields);
+        selectKey(selections, root, fields, UserField.ID, KEY_ALIAS);
+
+        query.multiselect(selections)
+                .where(cb.equal(root.get("id"), userId));
+
+        return entityManager.createQuery(query).getResultStream()
+                .findFirst()
+                .map(tuple -> toRow(tuple, fields));
+    }
+}
@@ -1,18 +1,54 @@
 package com.airplane.userpost.repository;
 
 import com.airplane.userpost.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends CrudRepository<User, Long>, UserProjectionRepository,
+        UserWriteRepository {
 
     @Override
-    @EntityGraph(attributePaths = "posts")
+    @EntityGraph(attributePaths = {"posts", "posts.text"})
     @NonNull
     List<User> findAll();
+
+    @EntityGraph(attributePaths = {"posts", "posts.text"})
+    Optional<User> findWithPostsById(Long userId);
+
+    @EntityGraph(attributePaths = {"posts", "posts.text"})
+    List<User> findWithPostsByIdIn(Collection<Long> userIds);
+
+    //keyset page of ids for streaming, limiting the fetch join itself would page in memory
+    @Query("select u.id from User u where u.id > :afterId order by u.id")
+    List<Long> findIdsAfter(Long afterId, Limit limit);
+
+    //both columns carry a unique index, values are stored lowercased
+    boolean existsByUserName(String userName);
+
+    boolean existsByEmail(String email);
+
+    @Modifying
+    @Query("update User u set u.postCount = u.postCount + :delta where u.id = :userId")
+    int adjustPostCount(Long userId, long delta);
+
+    @Modifying
+    @Query("update User u set u.postCount = :postCount where u.id = :userId")
+    int setPostCount(Long userId, long postCount);
+
+    @Query("select u.id from User u where u.postCount <> (select count(p) from Post p where p.user = u)")
+    List<Long> findUserIdsWithPostCountDrift();
+
+    @Modifying
+    @Query("update User u set u.postCount = (select count(p) from Post p where p.user = u) where u.id in :userIds")
+    int repairPostCounts(Collection<Long> userIds);
 }
@@ -0,0 +1,11 @@
+package com.airplane.userpost.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+//Deletes a user with one SQL statement, the user and its posts are never loaded
+public interface UserWriteRepository {
+
+    //ids of the user's deleted posts, empty when no user had the id
+    Optional<List<Long>> deleteUserWithPosts(Long userId);
+}
@@ -0,0 +1,36 @@
+package com.airplane.userpost.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class UserWriteRepositoryImpl implements UserWriteRepository {
+
+    //the foreign key is checked at the end of the statement, when the posts are already gone.
+    //One row per deleted post, or a single row without post_id when the user had none.
+    static final String DELETE_USER = "with deleted_posts as (delete from posts where user_id = ? returning id), "
+            + "deleted_user as (delete from users where id = ? returning id) "
+            + "select deleted_posts.id as post_id from deleted_user left join deleted_posts on true";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserWriteRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<List<Long>> deleteUserWithPosts(Long userId) {
+        return jdbcTemplate.query(DELETE_USER, resultSet -> {
+            if(!resultSet.next()) return Optional.<List<Long>>empty();
+
+            List<Long> postIds = new ArrayList<>();
+            do {
+                long postId = resultSet.getLong("post_id");
+                if(!resultSet.wasNull()) postIds.add(postId);
+            } while(resultSet.next());
+            return Optional.of(postIds);
+        }, userId, userId);
+    }
+}
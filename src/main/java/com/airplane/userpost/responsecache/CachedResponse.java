@@ -0,0 +1,100 @@
+package com.airplane.userpost.responsecache;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+//A serialized JSON body, with a gzip copy when that is smaller. Bodies are serialized on the heap and only the copy
+//ResponseCache admits is moved to direct memory, a body that is served once and dropped never allocates any.
+//Buffers are never written to after construction, every reader works on its own duplicate.
+//Direct memory is released by the buffers' cleaner once no evicted entry is still being written.
+public final class CachedResponse {
+
+    static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    private final ByteBuffer json;
+    private final ByteBuffer gzip;
+    private final String etag;
+
+    CachedResponse(byte[] json, byte[] gzip, String etag) {
+        this(ByteBuffer.wrap(json), gzip == null ? null : ByteBuffer.wrap(gzip), etag);
+    }
+
+    private CachedResponse(ByteBuffer json, ByteBuffer gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    //the copy the cache keeps
+    CachedResponse offHeap() {
+        return new CachedResponse(offHeap(json), gzip == null ? null : offHeap(gzip), etag);
+    }
+
+    private static ByteBuffer offHeap(ByteBuffer body) {
+        return ByteBuffer.allocateDirect(body.remaining()).put(body.duplicate()).flip().asReadOnlyBuffer();
+    }
+
+    //If-None-Match is compared weakly, as RFC 9110 asks for, so both encodings of the same body match.
+    //Accept picks between this body and the binary converters, so Vary names it on every response, 304 included
+    public void write(HttpServletResponse response, String ifNoneMatch, boolean gzipAccepted) throws IOException {
+        boolean compressed = gzipAccepted && gzip != null;
+        String responseEtag = compressed ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+
+        response.setHeader(HttpHeaders.ETAG, responseEtag);
+        response.setHeader(HttpHeaders.VARY, VARY);
+        if(matches(ifNoneMatch)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteBuffer body = (compressed ? gzip : json).duplicate();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if(compressed) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(body.remaining());
+
+        OutputStream out = response.getOutputStream();
+        if(body.hasArray()) {
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+        } else {
+            Channels.newChannel(out).write(body);
+        }
+        out.flush();
+    }
+
+    private boolean matches(String ifNoneMatch) {
+        if(ifNoneMatch == null) return false;
+
+        String opaque = etag.substring(1, etag.length() - 1);
+        for(String tag: ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if(candidate.equals("*")) return true;
+            if(candidate.startsWith("W/")) candidate = candidate.substring(2);
+            if(candidate.equals(etag) || candidate.equals("\"" + opaque + "-gzip\"")) return true;
+        }
+        return false;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    //body bytes, direct memory once copied by offHeap()
+    int size() {
+        return json.capacity() + (gzip == null ? 0 : gzip.capacity());
+    }
+
+    boolean hasGzip() {
+        return gzip != null;
+    }
+
+    boolean isOffHeap() {
+        return json.isDirect();
+    }
+}
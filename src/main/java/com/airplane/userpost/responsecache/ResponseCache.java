@@ -0,0 +1,339 @@
+package com.airplane.userpost.responsecache;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.exception.MapperException;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.airplane.userpost.invalidation.InvalidationListener;
+import com.airplane.userpost.warmup.CacheWarmer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+//JSON bodies of GET /posts/{id} and /users/{id}, serialized once and written as bytes until the bus evicts them.
+//Every key hashes to one of STRIPES version counters, a load captures the version first and its body is only
+//cached when no invalidation bumped it meanwhile. With read replicas bodies are also not cached for fillDelay
+//after an invalidation, a lagging replica could still return the old row.
+//Entries are evicted oldest first once maxBytes of direct memory is used, unless the hot-key sketch estimates
+//the oldest entry is read more often than the new one, then the new body is served but not cached (TinyLFU).
+@Slf4j
+public class ResponseCache implements InvalidationListener, CacheWarmer {
+
+    private static final int STRIPES = 1024;
+    private static final List<MediaType> PRODUCIBLE = List.of(MediaType.APPLICATION_JSON,
+            MediaType.parseMediaType("application/cbor"), MediaType.parseMediaType("application/x-jackson-smile"));
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, HotKeyTracker> hotKeys;
+    private final BooleanSupplier bypass;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final int gzipMinBytes;
+    private final long fillDelayNanos;
+
+    private final Map<EntityKey, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray invalidatedAt = new AtomicLongArray(STRIPES);
+
+    //insertion order for eviction, holds stale nodes of replaced or invalidated entries until they are polled
+    private final ArrayDeque<Node> fifo = new ArrayDeque<>();
+    private final Object lock = new Object();
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Node(EntityKey key, CachedResponse response) {
+    }
+
+    public ResponseCache(ObjectMapper objectMapper, Map<String, HotKeyTracker> hotKeys, BooleanSupplier bypass,
+                         boolean enabled, long maxBytes, int maxEntryBytes, int gzipMinBytes, Duration fillDelay) {
+        if(maxEntryBytes < 1 || maxEntryBytes > maxBytes) {
+            throw new IllegalArgumentException("Invalid response cache size: " + maxEntryBytes + " of " + maxBytes);
+        }
+        this.objectMapper = objectMapper;
+        this.hotKeys = hotKeys;
+        this.bypass = bypass;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.gzipMinBytes = gzipMinBytes;
+        this.fillDelayNanos = fillDelay.toNanos();
+
+        long longAgo = System.nanoTime() - fillDelayNanos - 1;
+        for(int i = 0; i < STRIPES; i++) {
+            invalidatedAt.set(i, longAgo);
+        }
+    }
+
+    //false leaves the request to the message converters: cache disabled or bypassed, or CBOR/Smile preferred
+    public boolean serve(EntityKey key, Supplier<?> loader,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if(!enabled || bypass.getAsBoolean() || !prefersJson(request)) {
+            return false;
+        }
+
+        CachedResponse cached = get(key);
+        if(cached == null) {
+            long version = version(key);
+            cached = fill(key, version, loader.get());
+        }
+        cached.write(response, request.getHeader(HttpHeaders.IF_NONE_MATCH), acceptsGzip(request));
+        return true;
+    }
+
+    //hits skip the service, they are counted for the hot-key sketch here
+    public CachedResponse get(EntityKey key) {
+        CachedResponse cached = entries.get(key);
+        if(cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        HotKeyTracker tracker = hotKeys.get(key.type());
+        if(tracker != null) tracker.record(key.id());
+        return cached;
+    }
+
+    //read before loading the entity
+    public long version(EntityKey key) {
+        return versions.get(stripe(key));
+    }
+
+    //serializes the dto on the heap, caches a direct copy when the key wasn't invalidated since version was read
+    public CachedResponse fill(EntityKey key, long version, Object dto) {
+        CachedResponse cached = serialize(dto);
+        if(cached.size() <= maxEntryBytes) {
+            admit(key, version, cached);
+        }
+        return cached;
+    }
+
+    private void admit(EntityKey key, long version, CachedResponse cached) {
+        int stripe = stripe(key);
+        if(System.nanoTime() - invalidatedAt.get(stripe) < fillDelayNanos) {
+            return;
+        }
+
+        synchronized(lock) {
+            //invalidate() bumps the version before it takes the lock, so a stale body is either refused here
+            //or removed by it afterwards
+            if(versions.get(stripe) != version || entries.containsKey(key)) return;
+
+            while(usedBytes + cached.size() > maxBytes) {
+                Node oldest = fifo.pollFirst();
+                if(oldest == null) return;
+                if(entries.get(oldest.key()) != oldest.response()) continue;
+
+                if(estimate(oldest.key()) >= estimate(key)) {
+                    fifo.addLast(oldest);
+                    rejected.increment();
+                    return;
+                }
+                entries.remove(oldest.key());
+                usedBytes -= oldest.response().size();
+                evictions.increment();
+            }
+
+            //copied only once the entry is accepted, the copy is at most maxEntryBytes
+            CachedResponse offHeap = cached.offHeap();
+            entries.put(key, offHeap);
+            fifo.addLast(new Node(key, offHeap));
+            usedBytes += offHeap.size();
+            compact();
+        }
+    }
+
+    private long estimate(EntityKey key) {
+        HotKeyTracker tracker = hotKeys.get(key.type());
+        return tracker == null ? 0 : tracker.estimate(key.id());
+    }
+
+    //called under the lock, drops stale nodes once they outnumber the live ones
+    private void compact() {
+        if(fifo.size() > 2 * entries.size() + 64) {
+            fifo.removeIf(node -> entries.get(node.key()) != node.response());
+        }
+    }
+
+    @Override
+    public void invalidate(Set<EntityKey> keys) {
+        long now = System.nanoTime();
+        for(EntityKey key: keys) {
+            int stripe = stripe(key);
+            versions.incrementAndGet(stripe);
+            invalidatedAt.set(stripe, now);
+        }
+
+        synchronized(lock) {
+            for(EntityKey key: keys) {
+                CachedResponse removed = entries.remove(key);
+                if(removed != null) usedBytes -= removed.size();
+            }
+            compact();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        long now = System.nanoTime();
+        for(int stripe = 0; stripe < STRIPES; stripe++) {
+            versions.incrementAndGet(stripe);
+            invalidatedAt.set(stripe, now);
+        }
+
+        synchronized(lock) {
+            entries.clear();
+            fifo.clear();
+            usedBytes = 0;
+        }
+        log.info("Response cache cleared.");
+    }
+
+    //warm-up entries count as loaded at startup, a stripe invalidated since then isn't warmed
+    @Override
+    public void warmPosts(List<PostDto> posts) {
+        if(!enabled) return;
+        posts.forEach(post -> fill(EntityKey.post(post.id()), 0, post));
+    }
+
+    @Override
+    public void warmUsers(List<UserDto> users) {
+        if(!enabled) return;
+        users.forEach(user -> fill(EntityKey.user(user.getId()), 0, user));
+    }
+
+    private CachedResponse serialize(Object dto) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(dto);
+            return new CachedResponse(json, gzip(json), etag(json));
+        } catch(JsonProcessingException exception) {
+            throw new MapperException("Response body couldn't be serialized: " + exception.getOriginalMessage());
+        }
+    }
+
+    //null when the body is too small to gain from compression
+    private byte[] gzip(byte[] json) {
+        if(json.length < gzipMinBytes) return null;
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 2);
+        try(GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        } catch(IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+        return compressed.size() < json.length ? compressed.toByteArray() : null;
+    }
+
+    //content hash, the same body gets the same tag on every node and after restarts
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch(NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    //the choice Spring MVC would make for the controllers' produces list
+    static boolean prefersJson(HttpServletRequest request) {
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(Collections.list(request.getHeaders(HttpHeaders.ACCEPT)));
+        } catch(InvalidMediaTypeException exception) {
+            return false;
+        }
+        if(accepted.isEmpty()) return true;
+
+        List<MediaType> compatible = new ArrayList<>();
+        for(MediaType acceptedType: accepted) {
+            for(MediaType producible: PRODUCIBLE) {
+                if(acceptedType.isCompatibleWith(producible)) compatible.add(producible.copyQualityValue(acceptedType));
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatible);
+        return !compatible.isEmpty() && compatible.getFirst().equalsTypeAndSubtype(MediaType.APPLICATION_JSON);
+    }
+
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if(acceptEncoding == null) return false;
+
+        for(String coding: acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            if(!parameters[0].trim().equalsIgnoreCase("gzip")) continue;
+
+            for(int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if(!parameter.startsWith("q=")) continue;
+                try {
+                    return Double.parseDouble(parameter.substring(2)) > 0;
+                } catch(NumberFormatException exception) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static int stripe(EntityKey key) {
+        long hash = key.id() * 0x9e3779b97f4a7c15L + key.type().hashCode();
+        return (int) (hash >>> 54) & (STRIPES - 1);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getUsedBytes() {
+        synchronized(lock) {
+            return usedBytes;
+        }
+    }
+}
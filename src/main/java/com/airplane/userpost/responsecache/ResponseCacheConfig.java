@@ -0,0 +1,67 @@
+package com.airplane.userpost.responsecache;
+
+import com.airplane.userpost.datasource.ReadYourWritesTracker;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+//Direct buffers count against -XX:MaxDirectMemorySize, which defaults to the maximum heap size
+@Configuration
+public class ResponseCacheConfig {
+
+    //clients within their read-your-writes window skip the cache like they skip coalescing
+    @Bean
+    public ResponseCache responseCache(ObjectMapper objectMapper,
+                                       @Qualifier("postHotKeys") HotKeyTracker postHotKeys,
+                                       @Qualifier("userHotKeys") HotKeyTracker userHotKeys,
+                                       ObjectProvider<ReadYourWritesTracker> readYourWritesTracker,
+                                       @Value("${userpost.datasource.read-your-writes-window:PT5S}") Duration replicaLag,
+                                       @Value("${userpost.response-cache.enabled:true}") boolean enabled,
+                                       @Value("${userpost.response-cache.max-size:64MB}") DataSize maxSize,
+                                       @Value("${userpost.response-cache.max-entry-size:1MB}") DataSize maxEntrySize,
+                                       @Value("${userpost.response-cache.gzip-min-size:1KB}") DataSize gzipMinSize) {
+        ReadYourWritesTracker tracker = readYourWritesTracker.getIfAvailable();
+        return new ResponseCache(objectMapper, Map.of(EntityKey.POST, postHotKeys, EntityKey.USER, userHotKeys),
+                tracker == null ? () -> false : tracker::isWithinWindow, enabled, maxSize.toBytes(),
+                (int) maxEntrySize.toBytes(), (int) gzipMinSize.toBytes(), tracker == null ? Duration.ZERO : replicaLag);
+    }
+
+    @Bean
+    public MeterBinder responseCacheMetrics(ResponseCache responseCache) {
+        return registry -> {
+            FunctionCounter.builder("userpost.response-cache.requests", responseCache, ResponseCache::getHitCount)
+                    .tag("result", "hit")
+                    .description("JSON point reads served from the response cache")
+                    .register(registry);
+            FunctionCounter.builder("userpost.response-cache.requests", responseCache, ResponseCache::getMissCount)
+                    .tag("result", "miss")
+                    .description("JSON point reads that serialized the entity")
+                    .register(registry);
+            FunctionCounter.builder("userpost.response-cache.rejected", responseCache, ResponseCache::getRejectedCount)
+                    .description("Bodies not cached because the oldest entry was read more often")
+                    .register(registry);
+            FunctionCounter.builder("userpost.response-cache.evictions", responseCache, ResponseCache::getEvictionCount)
+                    .description("Entries evicted to make room")
+                    .register(registry);
+            Gauge.builder("userpost.response-cache.entries", responseCache, ResponseCache::getEntryCount)
+                    .description("Cached response bodies")
+                    .register(registry);
+            Gauge.builder("userpost.response-cache.size", responseCache, ResponseCache::getUsedBytes)
+                    .description("Direct memory held by cached bodies")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
@@ -1,23 +1,40 @@
 package com.airplane.userpost.service;
 
+import com.airplane.userpost.coalescing.BatchLoader;
+import com.airplane.userpost.coalescing.BatchLoaders;
+import com.airplane.userpost.coalescing.SingleFlight;
+import com.airplane.userpost.dto.BatchResultDto;
 import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.PostField;
+import com.airplane.userpost.event.ChangeEvent;
 import com.airplane.userpost.exception.PostNotFoundException;
 import com.airplane.userpost.exception.UserNotFoundException;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
 import com.airplane.userpost.mapper.PostMapper;
 import com.airplane.userpost.model.Post;
-import com.airplane.userpost.model.User;
 import com.airplane.userpost.repository.PostRepository;
-import com.airplane.userpost.repository.UserRepository;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.StreamSupport;
 
 @Slf4j
@@ -25,15 +42,26 @@ import java.util.stream.StreamSupport;
 @Validated
 public class PostService {
 
+    public static final int MAX_BATCH_SIZE = 500;
+
     private final PostRepository postRepository;
-    private final UserRepository userRepository;
     private final PostMapper postMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<PostDto> postLoads;
+    private final BatchLoader<PostDto> postBatches;
+    private final HotKeyTracker postHotKeys;
 
     @Autowired
-    public PostService(PostRepository postRepository, UserRepository userRepository, PostMapper postMapper) {
+    public PostService(PostRepository postRepository, PostMapper postMapper,
+                       ApplicationEventPublisher eventPublisher, SingleFlight<PostDto> postLoads,
+                       BatchLoaders batchLoaders, @Qualifier("postHotKeys") HotKeyTracker postHotKeys) {
         this.postRepository = postRepository;
-        this.userRepository = userRepository;
         this.postMapper = postMapper;
+        this.eventPublisher = eventPublisher;
+        this.postLoads = postLoads;
+        this.postHotKeys = postHotKeys;
+        this.postBatches = batchLoaders.create(this::findPosts,
+                postId -> new PostNotFoundException("Post not found for Id: " + postId));
     }
 
     @Transactional(readOnly = true)
@@ -46,60 +74,134 @@ public class PostService {
                 .map(postMapper::toDto).toList();
     }
 
+    //one page of posts ordered by id, getAllPosts() without holding every post at once
     @Transactional(readOnly = true)
+    public List<PostDto> getPostsAfter(@NotNull(message = "PostId mustn't be null.")
+                                       @PositiveOrZero(message = "PostId mustn't be negative.") Long afterId,
+                                       @Positive(message = "Page size must be positive number.") int limit) {
+
+        List<PostDto> posts = postRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)).stream()
+                .map(postMapper::toDto)
+                .toList();
+        log.debug("{} posts after Id '{}' retrieved from DB.", posts.size(), afterId);
+
+        return posts;
+    }
+
+    //only requested columns are selected
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllPosts(@NotEmpty(message = "Fields mustn't be empty.") Set<PostField> fields) {
+
+        List<Map<String, Object>> posts = postRepository.findAllProjected(fields);
+        log.info("All posts retrieved from DB with fields {}.", fields);
+
+        return posts;
+    }
+
+    //concurrent requests for the same post share one load, postLoads or the batch opens the read-only transaction
     public PostDto getPostById(@NotNull(message = "PostId mustn't be null.")
 								@Positive(message = "PostId must be positive number.") Long postId) {
 
-        Post post = postRepository.findById(postId)
+        PostDto postDto = postLoads.load(postId, postBatches, () -> {
+            Post post = postRepository.findById(postId)
+                    .orElseThrow(() -> new PostNotFoundException("Post not found for Id: " + postId));
+
+            log.info("Post with Id '{}' found.", post.getId());
+
+            return postMapper.toDto(post);
+        });
+
+        //served ids only, unknown ids must not push real ones out of the top-k
+        postHotKeys.record(postId);
+        return postDto;
+    }
+
+    //one IN query (padded, see application.yml), duplicates are resolved once
+    @Transactional(readOnly = true)
+    public BatchResultDto<PostDto> getPostsByIds(@NotEmpty(message = "PostIds mustn't be empty.")
+                                                 @Size(max = MAX_BATCH_SIZE, message = "At most " + MAX_BATCH_SIZE + " PostIds per request.")
+                                                 List<@NotNull(message = "PostId mustn't be null.")
+                                                 @Positive(message = "PostId must be positive number.") Long> postIds) {
+
+        Set<Long> requestedIds = new LinkedHashSet<>(postIds);
+        Map<Long, PostDto> posts = findPosts(requestedIds);
+
+        List<PostDto> found = new ArrayList<>(posts.size());
+        List<Long> missingIds = new ArrayList<>();
+        for(Long postId: requestedIds) {
+            PostDto post = posts.get(postId);
+            if(post == null) {
+                missingIds.add(postId);
+            } else {
+                found.add(post);
+            }
+        }
+
+        log.info("{} of {} requested posts found.", found.size(), requestedIds.size());
+
+        return new BatchResultDto<>(found, missingIds);
+    }
+
+    //also the batch query of postBatches, called inside its read-only transaction
+    private Map<Long, PostDto> findPosts(Collection<Long> postIds) {
+        Map<Long, PostDto> posts = new HashMap<>();
+        postRepository.findAllById(postIds).forEach(post -> posts.put(post.getId(), postMapper.toDto(post)));
+        return posts;
+    }
+
+    //only requested columns are selected
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPostById(@NotNull(message = "PostId mustn't be null.")
+                                @Positive(message = "PostId must be positive number.") Long postId,
+                                           @NotEmpty(message = "Fields mustn't be empty.") Set<PostField> fields) {
+
+        Map<String, Object> post = postRepository.findProjectedById(postId, fields)
                 .orElseThrow(() -> new PostNotFoundException("Post not found for Id: " + postId));
 
-        log.info("Post with Id '{}' found.", post.getId());
+        log.info("Post with Id '{}' found with fields {}.", postId, fields);
 
-        return postMapper.toDto(post);
+        return post;
     }
 
+    //one statement checks the user, inserts the post and counts it, no row means the user doesn't exist
     @Transactional
     public PostDto createNewPost(@NotNull(message = "UserId mustn't be null.")
 								@Positive(message = "UserId must be positive number.") Long userId,
                                  @NotNull(message = "PostDto mustn't be null.") @Valid PostDto postDto) {
 
-        User user = userRepository.findById(userId)
+        PostDto createdPost = postRepository.insertPost(userId, postDto.title(), postDto.text())
                 .orElseThrow(() -> new UserNotFoundException("User not found for Id: " + userId));
 
-        Post post = postMapper.toPost(postDto);
-        post.setId(null);
-        post.setUser(user);
+        log.info("New post with Id '{}' created.", createdPost.id());
 
-        Post savedPost = postRepository.save(post);
-
-        log.info("New post with Id '{}' created.", savedPost.getId());
-
-        return postMapper.toDto(savedPost);
+        eventPublisher.publishEvent(ChangeEvent.postCreated(createdPost));
+        return createdPost;
     }
 
+    //user, id and createdAt are left as they are, no row means no post had the id
     @Transactional
     public PostDto updateExistingPost(@NotNull(message = "PostId mustn't be null.")
 									@Positive(message = "PostId must be positive number.") Long postId,
                                       @NotNull(message = "PostDto mustn't be null.") @Valid PostDto postDto) {
 
-        Post post = postRepository.findById(postId)
+        PostDto updatedPostDto = postRepository.updatePost(postId, postDto.title(), postDto.text())
                 .orElseThrow(() -> new PostNotFoundException("Post wasn't found for Id: " + postId));
 
-        //no need to update user, id and createdAt fields
-        post.setTitle(postDto.title());
-        post.setText(postDto.text());
+        log.info("Post with Id '{}' updated.", postId);
 
-        Post updatedPost = postRepository.save(post);
-        log.info("Post with Id '{}' updated.", updatedPost.getId());
-        return postMapper.toDto(updatedPost);
+        eventPublisher.publishEvent(ChangeEvent.postUpdated(updatedPostDto));
+        return updatedPostDto;
     }
 
+    //the owner's post_count is decremented by the same statement
     @Transactional
     public void deletePostById(@NotNull(message = "PostId mustn't be null.")
 							@Positive(message = "PostId must be positive number.") Long postId) {
 
-        postRepository.deleteById(postId);
+        Long userId = postRepository.deletePost(postId)
+                .orElseThrow(() -> new PostNotFoundException("Post wasn't found for Id: " + postId));
 
         log.info("Post with Id '{}' deleted.", postId);
+        eventPublisher.publishEvent(ChangeEvent.postDeleted(postId, userId));
     }
 }
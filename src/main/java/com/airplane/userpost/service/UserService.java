@@ -1,24 +1,45 @@
 package com.airplane.userpost.service;
 
+import com.airplane.userpost.coalescing.BatchLoader;
+import com.airplane.userpost.coalescing.BatchLoaders;
+import com.airplane.userpost.coalescing.SingleFlight;
+import com.airplane.userpost.dto.BatchResultDto;
 import com.airplane.userpost.dto.PostDto;
 import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.dto.UserFieldSet;
+import com.airplane.userpost.dto.UserSummaryDto;
+import com.airplane.userpost.event.ChangeEvent;
 import com.airplane.userpost.exception.UserNotFoundException;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
 import com.airplane.userpost.mapper.UserMapper;
 import com.airplane.userpost.model.Post;
 import com.airplane.userpost.model.User;
 import com.airplane.userpost.repository.PostRepository;
 import com.airplane.userpost.repository.UserRepository;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.StreamSupport;
 
@@ -27,16 +48,29 @@ import java.util.stream.StreamSupport;
 @Validated
 public class UserService {
 
+    public static final int MAX_BATCH_SIZE = 500;
+
     private final UserRepository userRepository;
     private final PostRepository postRepository;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<UserDto> userLoads;
+    private final BatchLoader<UserDto> userBatches;
+    private final HotKeyTracker userHotKeys;
 
     @Autowired
-    public UserService(UserRepository userRepository, PostRepository postRepository, UserMapper userMapper) {
+    public UserService(UserRepository userRepository, PostRepository postRepository, UserMapper userMapper,
+                       ApplicationEventPublisher eventPublisher, SingleFlight<UserDto> userLoads,
+                       BatchLoaders batchLoaders, @Qualifier("userHotKeys") HotKeyTracker userHotKeys) {
 
         this.userRepository = userRepository;
         this.postRepository = postRepository;
         this.userMapper = userMapper;
+        this.eventPublisher = eventPublisher;
+        this.userLoads = userLoads;
+        this.userHotKeys = userHotKeys;
+        this.userBatches = batchLoaders.create(this::findUsers,
+                userId -> new UserNotFoundException("User not found with Id: " + userId));
     }
 
     @Transactional(readOnly = true)
@@ -49,16 +83,121 @@ public class UserService {
                 .toList();
     }
 
+    //one page of users ordered by id with their posts, getAllUsers() without holding every user at once
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersAfter(@NotNull(message = "UserId mustn't be null.")
+                                       @PositiveOrZero(message = "UserId mustn't be negative.") Long afterId,
+                                       @Positive(message = "Page size must be positive number.") int limit) {
+
+        List<Long> userIds = userRepository.findIdsAfter(afterId, Limit.of(limit));
+        if(userIds.isEmpty()) return List.of();
+
+        List<UserDto> users = userRepository.findWithPostsByIdIn(userIds).stream()
+                .sorted(Comparator.comparing(User::getId))
+                .map(userMapper::toDto)
+                .toList();
+        log.debug("{} users after Id '{}' retrieved from DB.", users.size(), afterId);
+
+        return users;
+    }
+
+    //only requested columns are selected, posts are fetched in one extra query when requested
     @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllUsers(@NotNull(message = "Fields mustn't be null.") UserFieldSet fields) {
+
+        Map<Long, Map<String, Object>> users = userRepository.findAllProjected(fields.userFields());
+
+        if(fields.includesPosts()) {
+            Map<Long, List<Map<String, Object>>> postsByUserId =
+                    postRepository.findAllProjectedGroupedByUserId(fields.postFields());
+            users.forEach((userId, user) ->
+                    user.put(UserFieldSet.POSTS, postsByUserId.getOrDefault(userId, List.of())));
+        }
+
+        log.info("All users retrieved from DB with fields {}.", fields);
+        return new ArrayList<>(users.values());
+    }
+
+    //concurrent requests for the same user share one load and one UserDto,
+    //userLoads or the batch opens the read-only transaction
     public UserDto getUserById(@NotNull(message = "UserId mustn't be null.")
 							@Positive(message = "UserId must be positive number.") Long userId) {
 
+        UserDto userDto = userLoads.load(userId, userBatches, () -> {
+            User user = userRepository.findWithPostsById(userId)
+                    .orElseThrow(() -> new UserNotFoundException("User not found with Id: " + userId));
+
+            log.info("User with Id '{}' received.", userId);
+
+            return userMapper.toDto(user);
+        });
+
+        //existing users only
+        userHotKeys.record(userId);
+        return userDto;
+    }
+
+    //one IN query with posts joined (padded, see application.yml), duplicates are resolved once
+    @Transactional(readOnly = true)
+    public BatchResultDto<UserDto> getUsersByIds(@NotEmpty(message = "UserIds mustn't be empty.")
+                                                 @Size(max = MAX_BATCH_SIZE, message = "At most " + MAX_BATCH_SIZE + " UserIds per request.")
+                                                 List<@NotNull(message = "UserId mustn't be null.")
+                                                 @Positive(message = "UserId must be positive number.") Long> userIds) {
+
+        Set<Long> requestedIds = new LinkedHashSet<>(userIds);
+        Map<Long, UserDto> users = findUsers(requestedIds);
+
+        List<UserDto> found = new ArrayList<>(users.size());
+        List<Long> missingIds = new ArrayList<>();
+        for(Long userId: requestedIds) {
+            UserDto user = users.get(userId);
+            if(user == null) {
+                missingIds.add(userId);
+            } else {
+                found.add(user);
+            }
+        }
+
+        log.info("{} of {} requested users found.", found.size(), requestedIds.size());
+
+        return new BatchResultDto<>(found, missingIds);
+    }
+
+    //also the batch query of userBatches, called inside its read-only transaction
+    private Map<Long, UserDto> findUsers(Collection<Long> userIds) {
+        Map<Long, UserDto> users = new HashMap<>();
+        userRepository.findWithPostsByIdIn(userIds).forEach(user -> users.put(user.getId(), userMapper.toDto(user)));
+        return users;
+    }
+
+    //only requested columns are selected, posts are fetched in one extra query when requested
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUserById(@NotNull(message = "UserId mustn't be null.")
+                            @Positive(message = "UserId must be positive number.") Long userId,
+                                           @NotNull(message = "Fields mustn't be null.") UserFieldSet fields) {
+
+        Map<String, Object> user = userRepository.findProjectedById(userId, fields.userFields())
+                .orElseThrow(() -> new UserNotFoundException("User not found with Id: " + userId));
+
+        if(fields.includesPosts()) {
+            user.put(UserFieldSet.POSTS, postRepository.findProjectedByUserId(userId, fields.postFields()));
+        }
+
+        log.info("User with Id '{}' received with fields {}.", userId, fields);
+        return user;
+    }
+
+    //single users row read, posts collection stays uninitialized
+    @Transactional(readOnly = true)
+    public UserSummaryDto getUserSummary(@NotNull(message = "UserId mustn't be null.")
+                                @Positive(message = "UserId must be positive number.") Long userId) {
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found with Id: " + userId));
 
-        log.info("User with Id '{}' received.", userId);
-		
-        return userMapper.toDto(user);
+        log.info("User summary with Id '{}' received.", userId);
+
+        return userMapper.toSummaryDto(user);
     }
 
     @Transactional
@@ -74,7 +213,9 @@ public class UserService {
 		
         log.info("New user with Id '{}' created.", savedUser.getId());
 
-        return userMapper.toDto(savedUser);
+        UserDto createdUser = userMapper.toDto(savedUser);
+        eventPublisher.publishEvent(ChangeEvent.userCreated(createdUser));
+        return createdUser;
     }
 
     //do not updates CreatedAt field
@@ -92,7 +233,17 @@ public class UserService {
         existingUser.setEmail(userDto.getEmail());
         log.info("User with Id '{}'. Email updated.", existingUser.getId());
 
+        //posts left out of the dto are deleted as orphans, posts listed by id may come from other users;
+        //both are in cached dtos the event has to evict
+        Set<Long> keptPostIds = new HashSet<>();
+        userDto.getPosts().forEach(postDto -> keptPostIds.add(postDto.id()));
         Set<Post> posts = existingUser.getPosts();
+        List<Long> removedPostIds = posts.stream()
+                .map(Post::getId)
+                .filter(postId -> !keptPostIds.contains(postId))
+                .toList();
+        Set<Long> previousOwnerIds = new LinkedHashSet<>();
+
         posts.clear();
         for(PostDto postDto: userDto.getPosts()) {
 			Post post = null;
@@ -102,24 +253,37 @@ public class UserService {
 			else {
 				post = postRepository.findById(postDto.id()).orElse(new Post());
 			}
+			if(post.getUser() != null && !userId.equals(post.getUser().getId())) {
+				previousOwnerIds.add(post.getUser().getId());
+				userRepository.adjustPostCount(post.getUser().getId(), -1);
+			}
 			post.setTitle(postDto.title());
 			post.setText(postDto.text());
 			post.setUser(existingUser);
+			//a new post gets its id before it is hashed into the set
+			if(post.getId() == null) postRepository.save(post);
 			posts.add(post);
         }
 
         //update user
         User savedUser = userRepository.save(existingUser);
+        userRepository.setPostCount(userId, posts.size());
         log.info("User with Id '{}' updated successfully.", existingUser.getId());
-        return userMapper.toDto(savedUser);
+
+        UserDto updatedUser = userMapper.toDto(savedUser);
+        eventPublisher.publishEvent(ChangeEvent.userUpdated(updatedUser, removedPostIds, List.copyOf(previousOwnerIds)));
+        return updatedUser;
     }
 
     @Transactional
     public void deleteUser(@NotNull(message = "UserId mustn't be null.")
 						@Positive(message = "UserId must be positive number.") Long userId) {
-        
-        userRepository.deleteById(userId);
+
+        //the posts go with the user in the same statement, their ids let caches evict them
+        List<Long> postIds = userRepository.deleteUserWithPosts(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found with Id: " + userId));
 		
 		log.info("User with Id '{}' deleted.", userId);
+        eventPublisher.publishEvent(ChangeEvent.userDeleted(userId, postIds));
     }
 }
@@ -0,0 +1,114 @@
+package com.airplane.userpost.stream;
+
+import com.airplane.userpost.event.ChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Fans committed changes out to every open /posts/stream connection. Publishing never blocks:
+//each event is serialized once and offered to the per-subscriber buffers, a full buffer evicts its subscriber.
+@Slf4j
+public class ChangeBroadcaster implements SmartLifecycle {
+
+    private final Set<ChangeSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long heartbeatNanos;
+    private final Duration timeout;
+
+    private volatile boolean running;
+
+    public ChangeBroadcaster(ObjectMapper objectMapper, int bufferSize, Duration heartbeat, Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.timeout = timeout;
+    }
+
+    //streams end after timeout, clients reconnect and spread over the nodes again
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        register(emitter);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter) {
+        ChangeSubscriber subscriber = new ChangeSubscriber(emitter, bufferSize, heartbeatNanos, subscribers::remove);
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(exception -> subscriber.close());
+
+        subscribers.add(subscriber);
+        subscriber.start();
+        log.debug("Change stream subscribed, {} subscribers.", subscribers.size());
+    }
+
+    //runs on the committing thread, rolled back changes never reach subscribers
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onChange(ChangeEvent event) {
+        publish(event);
+    }
+
+    void publish(ChangeEvent event) {
+        if(subscribers.isEmpty()) return;
+
+        Set<DataWithMediaType> frame;
+        try {
+            frame = SseEmitter.event()
+                    .id(String.valueOf(sequence.incrementAndGet()))
+                    .name(event.name())
+                    .data(objectMapper.writeValueAsString(event.data()))
+                    .build();
+        } catch(JsonProcessingException exception) {
+            log.error("Change event {} for Id '{}' not streamed: {}", event.name(), event.id(), exception.getMessage());
+            return;
+        }
+
+        for(ChangeSubscriber subscriber: subscribers) {
+            if(subscriber.offerOrEvict(frame)) {
+                subscribers.remove(subscriber);
+                evicted.incrementAndGet();
+                log.warn("Slow change stream subscriber evicted, {} events buffered.", bufferSize);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    //default phase stops before the web server, open streams would otherwise hold up graceful shutdown
+    @Override
+    public void stop() {
+        running = false;
+        subscribers.forEach(ChangeSubscriber::close);
+        log.info("Change stream closed.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,35 @@
+package com.airplane.userpost.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ChangeStreamConfig {
+
+    @Bean
+    public ChangeBroadcaster changeBroadcaster(ObjectMapper objectMapper,
+                                               @Value("${userpost.stream.buffer-size:256}") int bufferSize,
+                                               @Value("${userpost.stream.heartbeat:PT15S}") Duration heartbeat,
+                                               @Value("${userpost.stream.timeout:PT30M}") Duration timeout) {
+        return new ChangeBroadcaster(objectMapper, bufferSize, heartbeat, timeout);
+    }
+
+    @Bean
+    public MeterBinder changeStreamMetrics(ChangeBroadcaster changeBroadcaster) {
+        return registry -> {
+            Gauge.builder("userpost.stream.subscribers", changeBroadcaster, ChangeBroadcaster::getSubscriberCount)
+                    .description("Open change stream connections")
+                    .register(registry);
+            FunctionCounter.builder("userpost.stream.evicted", changeBroadcaster, ChangeBroadcaster::getEvictedCount)
+                    .description("Subscribers dropped for not keeping up")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.airplane.userpost.stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+//One SSE connection: a bounded buffer filled by the broadcaster and drained by its own virtual thread,
+//so a slow socket only ever blocks this subscriber. An idle subscriber is a parked virtual thread.
+final class ChangeSubscriber {
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("keep-alive").build();
+
+    private final SseEmitter emitter;
+    private final int bufferSize;
+    private final long heartbeatNanos;
+    private final Queue<Set<DataWithMediaType>> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final Thread writer;
+
+    private final AtomicBoolean evicted = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    ChangeSubscriber(SseEmitter emitter, int bufferSize, long heartbeatNanos, Consumer<ChangeSubscriber> onClose) {
+        this.emitter = emitter;
+        this.bufferSize = bufferSize;
+        this.heartbeatNanos = heartbeatNanos;
+        this.writer = Thread.ofVirtual().name("change-stream").unstarted(() -> {
+            try {
+                drain();
+            } finally {
+                closed = true;
+                onClose.accept(this);
+            }
+        });
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    //true only for the offer that found the buffer full and evicted the subscriber
+    boolean offerOrEvict(Set<DataWithMediaType> event) {
+        if(closed) return false;
+
+        if(buffered.incrementAndGet() > bufferSize) {
+            close();
+            return evicted.compareAndSet(false, true);
+        }
+        buffer.offer(event);
+        LockSupport.unpark(writer);
+        return false;
+    }
+
+    void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+    }
+
+    private void drain() {
+        long lastWrite = System.nanoTime();
+        try {
+            while(!closed) {
+                Set<DataWithMediaType> event = buffer.poll();
+                if(event != null) {
+                    buffered.decrementAndGet();
+                    emitter.send(event);
+                    lastWrite = System.nanoTime();
+                    continue;
+                }
+
+                //a comment line every heartbeat finds connections the client dropped silently
+                long idle = System.nanoTime() - lastWrite;
+                if(idle >= heartbeatNanos) {
+                    emitter.send(HEARTBEAT);
+                    lastWrite = System.nanoTime();
+                } else {
+                    LockSupport.parkNanos(this, heartbeatNanos - idle);
+                }
+            }
+            //ends the response, EventSource clients reconnect and resync with a regular GET
+            emitter.complete();
+        } catch(IOException | IllegalStateException exception) {
+            //client disconnected or the emitter already timed out
+            emitter.completeWithError(exception);
+        }
+    }
+}
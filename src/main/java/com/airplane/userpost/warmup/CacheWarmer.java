@@ -0,0 +1,16 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+
+import java.util.List;
+
+//Implemented by in-process caches, every bean of this type gets the prefetched entities before the node reports ready
+public interface CacheWarmer {
+
+    default void warmPosts(List<PostDto> posts) {
+    }
+
+    default void warmUsers(List<UserDto> users) {
+    }
+}
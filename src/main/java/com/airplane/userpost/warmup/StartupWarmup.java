@@ -0,0 +1,108 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.dto.BatchResultDto;
+import com.airplane.userpost.hotkeys.HotKey;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.service.PostService;
+import com.airplane.userpost.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//Runners finish before Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC, so /actuator/health/readiness
+//stays down until the snapshot's hot posts and users are loaded in batches of batchSize ids.
+//The trackers are seeded with the snapshot counts, the next snapshot doesn't start from an empty top-k.
+//Failures and the timeout end the warm-up early, they never keep the node from becoming ready.
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    private final Path path;
+    private final PostService postService;
+    private final UserService userService;
+    private final HotKeyTracker postHotKeys;
+    private final HotKeyTracker userHotKeys;
+    private final List<CacheWarmer> warmers;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final Duration timeout;
+    private final int batchSize;
+
+    private final AtomicLong prefetchedPosts = new AtomicLong();
+    private final AtomicLong prefetchedUsers = new AtomicLong();
+
+    public StartupWarmup(Path path, PostService postService, UserService userService,
+                         HotKeyTracker postHotKeys, HotKeyTracker userHotKeys, List<CacheWarmer> warmers,
+                         boolean enabled, Duration maxAge, Duration timeout, int batchSize) {
+        if(batchSize < 1 || batchSize > PostService.MAX_BATCH_SIZE || batchSize > UserService.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Invalid warm-up batch size: " + batchSize);
+        }
+        this.path = path;
+        this.postService = postService;
+        this.userService = userService;
+        this.postHotKeys = postHotKeys;
+        this.userHotKeys = userHotKeys;
+        this.warmers = warmers;
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.timeout = timeout;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if(enabled) {
+            WarmupSnapshotFile.read(path, maxAge, Instant.now()).ifPresent(this::warm);
+        }
+    }
+
+    public void warm(WarmupSnapshot snapshot) {
+        long started = System.nanoTime();
+        long deadline = started + timeout.toNanos();
+
+        snapshot.posts().forEach(key -> postHotKeys.seed(key.id(), key.count()));
+        snapshot.users().forEach(key -> userHotKeys.seed(key.id(), key.count()));
+
+        try {
+            prefetch(snapshot.posts(), deadline, postService::getPostsByIds,
+                    posts -> warmers.forEach(warmer -> warmer.warmPosts(posts)), prefetchedPosts);
+            prefetch(snapshot.users(), deadline, userService::getUsersByIds,
+                    users -> warmers.forEach(warmer -> warmer.warmUsers(users)), prefetchedUsers);
+        } catch(RuntimeException exception) {
+            log.warn("Warm-up stopped early.", exception);
+        }
+
+        log.info("Warmed up {} posts and {} users from a snapshot taken at {} in {} ms.",
+                prefetchedPosts.get(), prefetchedUsers.get(), snapshot.createdAt(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private <T> void prefetch(List<HotKey> keys, long deadline, Function<List<Long>, BatchResultDto<T>> load,
+                              Consumer<List<T>> warm, AtomicLong prefetched) {
+        List<Long> ids = keys.stream().map(HotKey::id).toList();
+        for(int from = 0; from < ids.size(); from += batchSize) {
+            if(System.nanoTime() - deadline > 0) {
+                log.warn("Warm-up timed out after {}, {} of {} ids left.", timeout, ids.size() - from, ids.size());
+                return;
+            }
+            BatchResultDto<T> loaded = load.apply(ids.subList(from, Math.min(from + batchSize, ids.size())));
+            warm.accept(loaded.items());
+            prefetched.addAndGet(loaded.items().size());
+        }
+    }
+
+    public long getPrefetchedPostCount() {
+        return prefetchedPosts.get();
+    }
+
+    public long getPrefetchedUserCount() {
+        return prefetchedUsers.get();
+    }
+}
@@ -0,0 +1,63 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.airplane.userpost.service.PostService;
+import com.airplane.userpost.service.UserService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+//The snapshot path has to outlive the container, see the warmup volume in docker-compose.yml
+@Configuration
+public class WarmupConfig {
+
+    @Bean
+    public WarmupSnapshotWriter warmupSnapshotWriter(
+            @Qualifier("postHotKeys") HotKeyTracker postHotKeys,
+            @Qualifier("userHotKeys") HotKeyTracker userHotKeys,
+            @Value("${userpost.warmup.snapshot-path:warmup/userpost.snapshot}") Path path,
+            @Value("${userpost.warmup.enabled:true}") boolean enabled) {
+        return new WarmupSnapshotWriter(path, postHotKeys, userHotKeys, enabled);
+    }
+
+    @Bean
+    public StartupWarmup startupWarmup(
+            PostService postService, UserService userService,
+            @Qualifier("postHotKeys") HotKeyTracker postHotKeys,
+            @Qualifier("userHotKeys") HotKeyTracker userHotKeys,
+            ObjectProvider<CacheWarmer> warmers,
+            @Value("${userpost.warmup.snapshot-path:warmup/userpost.snapshot}") Path path,
+            @Value("${userpost.warmup.enabled:true}") boolean enabled,
+            @Value("${userpost.warmup.max-age:PT1H}") Duration maxAge,
+            @Value("${userpost.warmup.timeout:PT30S}") Duration timeout,
+            @Value("${userpost.warmup.batch-size:500}") int batchSize) {
+        return new StartupWarmup(path, postService, userService, postHotKeys, userHotKeys,
+                warmers.orderedStream().toList(), enabled, maxAge, timeout, batchSize);
+    }
+
+    @Bean
+    public MeterBinder warmupMetrics(WarmupSnapshotWriter warmupSnapshotWriter, StartupWarmup startupWarmup) {
+        return registry -> {
+            FunctionCounter.builder("userpost.warmup.snapshots", warmupSnapshotWriter,
+                            WarmupSnapshotWriter::getWrittenCount)
+                    .description("Warm-up snapshots written")
+                    .register(registry);
+            FunctionCounter.builder("userpost.warmup.prefetched", startupWarmup, StartupWarmup::getPrefetchedPostCount)
+                    .tag("entity", EntityKey.POST)
+                    .description("Entities loaded from the warm-up snapshot at startup")
+                    .register(registry);
+            FunctionCounter.builder("userpost.warmup.prefetched", startupWarmup, StartupWarmup::getPrefetchedUserCount)
+                    .tag("entity", EntityKey.USER)
+                    .description("Entities loaded from the warm-up snapshot at startup")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.hotkeys.HotKey;
+
+import java.time.Instant;
+import java.util.List;
+
+//hot ids with their estimated reads when the snapshot was taken, hottest first
+public record WarmupSnapshot(Instant createdAt, List<HotKey> posts, List<HotKey> users) {
+}
@@ -0,0 +1,141 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.hotkeys.HotKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+//Layout, big-endian: magic, version, created-at epoch millis, post count, user count,
+//(id, count) longs for posts then users, CRC32 of everything before it.
+//Written to a sibling temp file and moved over the old one, a reader sees either snapshot but never half of one.
+//A missing, truncated, corrupt or stale file reads as empty, warm-up is best effort.
+@Slf4j
+public final class WarmupSnapshotFile {
+
+    private static final int MAGIC = 0x55505753;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4;
+    private static final int ENTRY_BYTES = 16;
+    private static final int MAX_ENTRIES = 1 << 20;
+
+    private WarmupSnapshotFile() {
+    }
+
+    public static void write(Path path, WarmupSnapshot snapshot) throws IOException {
+        int entries = snapshot.posts().size() + snapshot.users().size();
+        if(entries > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Too many snapshot entries: " + entries);
+        }
+        int size = HEADER_BYTES + entries * ENTRY_BYTES + 4;
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = parent.resolve(path.getFileName() + ".tmp");
+
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(snapshot.createdAt().toEpochMilli())
+                    .putInt(snapshot.posts().size())
+                    .putInt(snapshot.users().size());
+            putEntries(buffer, snapshot.posts());
+            putEntries(buffer, snapshot.users());
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().flip());
+            buffer.putInt((int) crc.getValue());
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static Optional<WarmupSnapshot> read(Path path, Duration maxAge, Instant now) {
+        if(!Files.isRegularFile(path)) {
+            log.info("No warm-up snapshot at {}.", path);
+            return Optional.empty();
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_BYTES + 4 || size > HEADER_BYTES + (long) MAX_ENTRIES * ENTRY_BYTES + 4) {
+                return ignore(path, "unexpected size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if(buffer.getInt((int) size - 4) != (int) crc.getValue()) {
+                return ignore(path, "checksum mismatch");
+            }
+            if(buffer.getInt() != MAGIC) {
+                return ignore(path, "not a warm-up snapshot");
+            }
+            int version = buffer.getInt();
+            if(version != VERSION) {
+                return ignore(path, "unsupported version " + version);
+            }
+
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            int postCount = buffer.getInt();
+            int userCount = buffer.getInt();
+            if(postCount < 0 || userCount < 0
+                    || size != HEADER_BYTES + ((long) postCount + userCount) * ENTRY_BYTES + 4) {
+                return ignore(path, "entry counts don't match the size");
+            }
+
+            Duration age = Duration.between(createdAt, now);
+            if(age.compareTo(maxAge) > 0) {
+                log.info("Warm-up snapshot {} is {} old, older than {}, ignored.", path, age, maxAge);
+                return Optional.empty();
+            }
+
+            List<HotKey> posts = getEntries(buffer, postCount);
+            List<HotKey> users = getEntries(buffer, userCount);
+            if(posts == null || users == null) {
+                return ignore(path, "non-positive id");
+            }
+            return Optional.of(new WarmupSnapshot(createdAt, posts, users));
+        } catch(IOException | RuntimeException exception) {
+            log.warn("Warm-up snapshot {} couldn't be read, ignored.", path, exception);
+            return Optional.empty();
+        }
+    }
+
+    private static void putEntries(ByteBuffer buffer, List<HotKey> keys) {
+        for(HotKey key: keys) {
+            buffer.putLong(key.id()).putLong(key.count());
+        }
+    }
+
+    //null when an entry can't come from a tracker, the checksum only catches accidental damage
+    private static List<HotKey> getEntries(ByteBuffer buffer, int count) {
+        List<HotKey> keys = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            long id = buffer.getLong();
+            long reads = buffer.getLong();
+            if(id <= 0 || reads < 0) return null;
+            keys.add(new HotKey(id, reads));
+        }
+        return keys;
+    }
+
+    private static Optional<WarmupSnapshot> ignore(Path path, String reason) {
+        log.warn("Warm-up snapshot {} is corrupt ({}), ignored.", path, reason);
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,68 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.hotkeys.HotKey;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Persists the trackers' warm sets (userpost.warmup.max-ids per entity type, not just the top-k) on the scheduler
+//thread and once more on shutdown, requests never wait for it
+@Slf4j
+public class WarmupSnapshotWriter implements DisposableBean {
+
+    private final Path path;
+    private final HotKeyTracker postHotKeys;
+    private final HotKeyTracker userHotKeys;
+    private final boolean enabled;
+
+    private final AtomicLong written = new AtomicLong();
+
+    public WarmupSnapshotWriter(Path path, HotKeyTracker postHotKeys, HotKeyTracker userHotKeys, boolean enabled) {
+        this.path = path;
+        this.postHotKeys = postHotKeys;
+        this.userHotKeys = userHotKeys;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(initialDelayString = "${userpost.warmup.snapshot-interval:PT1M}",
+            fixedDelayString = "${userpost.warmup.snapshot-interval:PT1M}")
+    public void scheduledWrite() {
+        if(enabled) write();
+    }
+
+    //an idle node keeps the previous snapshot instead of replacing it with an empty one
+    public boolean write() {
+        List<HotKey> posts = postHotKeys.warmKeys();
+        List<HotKey> users = userHotKeys.warmKeys();
+        if(posts.isEmpty() && users.isEmpty()) {
+            log.debug("No hot keys, warm-up snapshot not written.");
+            return false;
+        }
+
+        try {
+            WarmupSnapshotFile.write(path, new WarmupSnapshot(Instant.now(), posts, users));
+            written.incrementAndGet();
+            log.debug("Warm-up snapshot written with {} posts and {} users.", posts.size(), users.size());
+            return true;
+        } catch(IOException | RuntimeException exception) {
+            log.warn("Warm-up snapshot {} couldn't be written.", path, exception);
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if(enabled) write();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+}
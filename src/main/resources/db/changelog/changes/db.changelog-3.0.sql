@@ -0,0 +1,6 @@
+ALTER TABLE users ADD COLUMN post_count BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_posts_user_id ON posts (user_id);
+
+UPDATE users u
+SET post_count = (SELECT COUNT(*) FROM posts p WHERE p.user_id = u.id);
\ No newline at end of file
@@ -0,0 +1 @@
+ALTER TABLE posts ALTER COLUMN id SET GENERATED BY DEFAULT;
\ No newline at end of file
@@ -0,0 +1,7 @@
+ALTER TABLE posts ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE posts_id_seq OWNED BY posts.id;
+
+SELECT setval('posts_id_seq', COALESCE((SELECT MAX(id) FROM posts), 0) + 1, false);
+
+ALTER TABLE posts ALTER COLUMN id SET DEFAULT nextval('posts_id_seq');
@@ -0,0 +1,51 @@
+package com.airplane.userpost.availability;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    public void shouldContainEveryInsertedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for(int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@mail.com");
+        }
+
+        for(int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@mail.com"));
+        }
+    }
+
+    @Test
+    public void shouldStayNearConfiguredFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for(int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+
+        int falsePositives = 0;
+        for(int i = 0; i < 100_000; i++) {
+            if(filter.mightContain("free" + i)) falsePositives++;
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void shouldSizeForExpectedInsertions() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        //9.59 bits and 7 hashes per value at 1%
+        assertTrue(filter.bitCount() >= 9_585_059 && filter.bitCount() < 9_585_059 + 64);
+        assertEquals(7, filter.hashCount());
+        assertFalse(filter.mightContain("anything"));
+    }
+
+    @Test
+    public void shouldRejectInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+}
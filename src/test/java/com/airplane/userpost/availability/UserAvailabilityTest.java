@@ -0,0 +1,142 @@
+package com.airplane.userpost.availability;
+
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class UserAvailabilityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserAvailabilityService userAvailabilityService;
+
+    //users saved through the repository bypass the services, the filter only learns them from a rebuild
+    @BeforeEach
+    public void initTest() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        userRepository.save(buildUser("Taken", "Taken@Mail.com"));
+        userAvailabilityService.rebuild();
+    }
+
+    @Test
+    public void shouldAnswerFreeValuesFromFilter() throws Exception {
+        long definitelyFree = userAvailabilityService.getDefinitelyFreeCount();
+
+        mockMvc.perform(get("/users/availability")
+                        .param("username", "free name")
+                        .param("email", "free@mail.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(true))
+                .andExpect(jsonPath("$.email").value(true));
+
+        assertEquals(definitelyFree + 2, userAvailabilityService.getDefinitelyFreeCount());
+    }
+
+    @Test
+    public void shouldConfirmTakenValuesIgnoringCase() throws Exception {
+        long confirmed = userAvailabilityService.getConfirmedCount();
+
+        mockMvc.perform(get("/users/availability")
+                        .param("username", "TAKEN")
+                        .param("email", "taken@mail.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(false))
+                .andExpect(jsonPath("$.email").value(false));
+
+        assertEquals(confirmed + 2, userAvailabilityService.getConfirmedCount());
+    }
+
+    @Test
+    public void shouldOnlyAnswerRequestedValues() throws Exception {
+        mockMvc.perform(get("/users/availability").param("email", "free@mail.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value(true))
+                .andExpect(jsonPath("$.username").doesNotExist());
+    }
+
+    @Test
+    public void shouldReturnBadRequestWithoutValues() throws Exception {
+        mockMvc.perform(get("/users/availability").param("username", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Username or email is required."));
+    }
+
+    @Test
+    public void shouldAddCreatedUserToFilter() throws Exception {
+        UserDto userDto = new UserDto(null, "New User", "new@mail.com", LocalDateTime.now());
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isCreated());
+
+        //added after commit by the filter thread, a filter miss meanwhile would still answer free
+        awaitTrue(() -> !userAvailabilityService.checkAvailability("new user", null).get("username"));
+        long confirmed = userAvailabilityService.getConfirmedCount();
+
+        assertFalse(userAvailabilityService.checkAvailability(null, "NEW@mail.com").get("email"));
+        assertEquals(confirmed + 1, userAvailabilityService.getConfirmedCount());
+    }
+
+    @Test
+    public void shouldFallBackToDatabaseWhenRebuildFails() {
+        UserAvailabilityService unbuilt = new UserAvailabilityService(userRepository, null, null, 10, 0.01, 10);
+        unbuilt.rebuild();
+
+        assertFalse(unbuilt.isReady());
+        assertFalse(unbuilt.checkAvailability("taken", null).get("username"));
+        assertTrue(unbuilt.checkAvailability("free", null).get("username"));
+        assertEquals(2, unbuilt.getConfirmedCount());
+        assertEquals(0, unbuilt.getFalsePositiveCount());
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while(!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(20);
+        }
+    }
+
+    private User buildUser(String username, String email) {
+        User user = new User();
+        user.setUserName(username);
+        user.setEmail(email);
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+}
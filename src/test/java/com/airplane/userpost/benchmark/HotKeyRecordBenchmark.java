@@ -0,0 +1,65 @@
+package com.airplane.userpost.benchmark;
+
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//Per-request cost of HotKeyTracker.record with the default sizing, ids drawn from a skewed (Zipf-like) distribution
+//so a few hot ids take most of the reads, like a viral post. Run with -t 4 for contended counters.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotKeyRecordBenchmark {
+
+    private static final int IDS = 1 << 16;
+
+    @Param("100000")
+    private int distinctIds;
+
+    private HotKeyTracker tracker;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void createTracker() {
+        tracker = new HotKeyTracker(EntityKey.POST, 20, 4, 16384, 6);
+
+        //rank r is drawn with probability proportional to 1/r
+        Random random = new Random(42);
+        double harmonic = 0;
+        for(int rank = 1; rank <= distinctIds; rank++) harmonic += 1.0 / rank;
+        ids = new long[IDS];
+        for(int i = 0; i < IDS; i++) {
+            double target = random.nextDouble() * harmonic;
+            double sum = 0;
+            int rank = 1;
+            while(rank < distinctIds && (sum += 1.0 / rank) < target) rank++;
+            ids[i] = rank;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = new Random().nextInt(IDS);
+    }
+
+    @Benchmark
+    public void record(Cursor cursor) {
+        tracker.record(ids[cursor.next++ & (IDS - 1)]);
+    }
+
+    //rotation sweeps every window, it runs once per userpost.hotkeys.window
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public void rotate() {
+        tracker.rotate();
+    }
+}
@@ -0,0 +1,127 @@
+package com.airplane.userpost.benchmark;
+
+import com.airplane.userpost.coalescing.BatchLoader;
+import com.airplane.userpost.coalescing.BatchLoaders;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+//Concurrent point lookups of different posts: one query per lookup against BatchLoader's IN queries,
+//on a 10 connection pool like Hikari's default. Round trips per lookup are reported as the lookups and queries counters.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class PointLookupBatchingBenchmark {
+
+    private static final int POSTS = 10_000;
+    private static final String FIND_POST = "select title from posts where id = ?";
+    private static final String FIND_POSTS = "select id, title from posts where id in (:ids)";
+
+    @Param({"false", "true"})
+    private boolean batching;
+
+    @Param("PT0.0005S")
+    private String window;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private BatchLoaders batchLoaders;
+    private BatchLoader<String> loader;
+    private long firstPostId;
+    private final AtomicLong claimedBatches = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:batching_benchmark;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema.sql'");
+        dataSource.setMaximumPoolSize(10);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnlyTransaction.setReadOnly(true);
+
+        jdbcTemplate.update("delete from posts");
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("insert into users (username, email) values ('user', 'user@mail.com')");
+        Long userId = jdbcTemplate.queryForObject("select id from users", Long.class);
+        jdbcTemplate.batchUpdate("insert into posts (user_id, title, text) values (?, ?, 'text')",
+                IntStream.range(0, POSTS)
+                        .mapToObj(i -> new Object[]{userId, "title" + i}).toList());
+        //identity values keep growing across trials in the same in-memory database
+        firstPostId = jdbcTemplate.queryForObject("select min(id) from posts", Long.class);
+
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        batchLoaders = new BatchLoaders(readOnlyTransaction, true, Duration.parse(window), 100);
+        loader = batchLoaders.create(ids -> {
+            Map<Long, String> titles = new HashMap<>();
+            namedJdbcTemplate.query(FIND_POSTS, new MapSqlParameterSource("ids", ids),
+                    resultSet -> {
+                        titles.put(resultSet.getLong(1), resultSet.getString(2));
+                    });
+            return titles;
+        }, id -> new IllegalStateException("Post not found for Id: " + id));
+    }
+
+    @TearDown(Level.Trial)
+    public void dropDatabase() {
+        dataSource.close();
+    }
+
+    //batches since the previous claim, the first thread to tear down an iteration gets them
+    long claimBatches() {
+        long batches = batchLoaders.getBatchCount();
+        return batches - claimedBatches.getAndSet(batches);
+    }
+
+    //JMH sums counters over threads and measurement iterations, queries per lookup is queries / lookups
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+
+        public long lookups;
+        public long queries;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lookups = 0;
+            queries = 0;
+        }
+
+        //batches are dispatched on virtual threads, not by the benchmark threads
+        @TearDown(Level.Iteration)
+        public void countBatches(PointLookupBatchingBenchmark benchmark) {
+            if(benchmark.batching) {
+                queries = benchmark.claimBatches();
+            }
+        }
+    }
+
+    @Benchmark
+    public String lookup(RoundTrips roundTrips) {
+        long id = firstPostId + ThreadLocalRandom.current().nextInt(POSTS);
+        roundTrips.lookups++;
+        if(batching) {
+            return loader.load(id);
+        }
+
+        roundTrips.queries++;
+        return readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject(FIND_POST, String.class, id));
+    }
+}
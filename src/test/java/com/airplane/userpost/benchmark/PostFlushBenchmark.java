@@ -0,0 +1,110 @@
+package com.airplane.userpost.benchmark;
+
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Flush cost and allocation of a session holding many posts, against an in-memory H2 database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostFlushBenchmark {
+
+    private static final int USERS = 10;
+    private static final int DIRTY_POSTS = 10;
+
+    @Param("10000")
+    private int posts;
+
+    @Param("1024")
+    private int textLength;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Post.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:flush_benchmark;DB_CLOSE_DELAY=-1;"
+                        + "INIT=RUNSCRIPT FROM 'classpath:schema.sql'")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "100")
+                .buildSessionFactory();
+
+        String text = "x".repeat(textLength);
+        try(StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.beginTransaction();
+
+            User[] users = new User[USERS];
+            for(int i = 0; i < USERS; i++) {
+                users[i] = new User();
+                users[i].setUserName("user" + i);
+                users[i].setEmail("user" + i + "@mail.com");
+                session.insert(users[i]);
+            }
+
+            for(int i = 0; i < posts; i++) {
+                Post post = new Post();
+                post.setTitle("title" + i);
+                post.setText(text);
+                post.setUser(users[i % USERS]);
+                session.insert(post);
+            }
+
+            session.getTransaction().commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void dropDatabase() {
+        sessionFactory.close();
+    }
+
+    @State(Scope.Thread)
+    public static class LoadedSession {
+
+        private Session session;
+
+        @Setup(Level.Invocation)
+        public void load(PostFlushBenchmark benchmark) {
+            session = benchmark.sessionFactory.openSession();
+            session.beginTransaction();
+
+            List<Post> loaded = session.createQuery("select p from Post p", Post.class).getResultList();
+            for(int i = 0; i < DIRTY_POSTS; i++) {
+                loaded.get(i * (loaded.size() / DIRTY_POSTS)).setTitle("changed" + i);
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() {
+            session.getTransaction().rollback();
+            session.close();
+        }
+    }
+
+    //dirty checking of every managed post plus DIRTY_POSTS updates
+    @Benchmark
+    public void flush(LoadedSession loaded) {
+        loaded.session.flush();
+    }
+
+    //read -prof gc alloc.rate.norm for the memory a session spends on the posts
+    @Benchmark
+    public List<Post> loadPosts() {
+        try(Session session = sessionFactory.openSession()) {
+            return session.createQuery("select p from Post p", Post.class).getResultList();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.airplane.userpost.benchmark;
+
+import com.airplane.userpost.UserpostApplication;
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.grpc.GrpcServerLifecycle;
+import com.airplane.userpost.grpc.proto.GetByIdRequest;
+import com.airplane.userpost.grpc.proto.PostServiceGrpc;
+import com.airplane.userpost.grpc.proto.UserServiceGrpc;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Point reads over REST (Tomcat + Jackson) and gRPC (Netty + protobuf) against the same running application.
+//Both clients decode the response. Run with -t 1 for latency and -t 8 or more for throughput.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RestVsGrpcBenchmark {
+
+    @Param("100")
+    private int users;
+
+    @Param("10")
+    private int postsPerUser;
+
+    @Param("600")
+    private int textLength;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private ManagedChannel channel;
+    private PostServiceGrpc.PostServiceBlockingStub postStub;
+    private UserServiceGrpc.UserServiceBlockingStub userStub;
+    private long[] userIds;
+    private long[] postIds;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = SpringApplication.run(UserpostApplication.class,
+                "--spring.profiles.active=test",
+                "--server.port=0",
+                "--userpost.grpc.enabled=true",
+                "--userpost.grpc.port=0",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.airplane=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<User> saved = seed().stream().map(userRepository::save).toList();
+        userIds = saved.stream().mapToLong(User::getId).toArray();
+        postIds = saved.stream().flatMap(user -> user.getPosts().stream()).mapToLong(Post::getId).toArray();
+
+        objectMapper = context.getBean(ObjectMapper.class);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        channel = ManagedChannelBuilder.forAddress("localhost", context.getBean(GrpcServerLifecycle.class).getPort())
+                .usePlaintext()
+                .build();
+        postStub = PostServiceGrpc.newBlockingStub(channel);
+        userStub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    private List<User> seed() {
+        String text = "t".repeat(textLength);
+        List<User> seeded = new ArrayList<>(users);
+        for(int i = 0; i < users; i++) {
+            User user = new User();
+            user.setUserName("user" + i);
+            user.setEmail("user" + i + "@mail.com");
+            user.setCreatedAt(LocalDateTime.now());
+            for(int j = 0; j < postsPerUser; j++) {
+                Post post = new Post();
+                post.setTitle("title " + i + "-" + j);
+                post.setText(text);
+                post.setUser(user);
+                user.addPost(post);
+            }
+            seeded.add(user);
+        }
+        return seeded;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public PostDto restGetPost() throws IOException, InterruptedException {
+        return objectMapper.readValue(get("/posts/" + randomId(postIds)), PostDto.class);
+    }
+
+    @Benchmark
+    public com.airplane.userpost.grpc.proto.Post grpcGetPost() {
+        return postStub.getPost(GetByIdRequest.newBuilder().setId(randomId(postIds)).build());
+    }
+
+    @Benchmark
+    public UserDto restGetUser() throws IOException, InterruptedException {
+        return objectMapper.readValue(get("/users/" + randomId(userIds)), UserDto.class);
+    }
+
+    @Benchmark
+    public com.airplane.userpost.grpc.proto.User grpcGetUser() {
+        return userStub.getUser(GetByIdRequest.newBuilder().setId(randomId(userIds)).build());
+    }
+
+    private byte[] get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    private static long randomId(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,121 @@
+package com.airplane.userpost.benchmark;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//Encode/decode cost and payload size of a /users response in JSON, CBOR and Smile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationFormatBenchmark {
+
+    private static final String[] WORDS = {"flight", "delayed", "boarding", "gate", "crew", "runway", "weather",
+            "passenger", "luggage", "arrival", "departure", "terminal", "connection", "cabin", "seat", "window"};
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param("50")
+    private int users;
+
+    @Param({"5", "50"})
+    private int postsPerUser;
+
+    @Param("600")
+    private int textLength;
+
+    private ObjectMapper objectMapper;
+    private List<UserDto> graph;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void createGraph() throws IOException {
+        //same settings Boot applies to the application's mappers
+        JsonFactory factory = switch(format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = new Jackson2ObjectMapperBuilder()
+                .factory(factory)
+                .modulesToInstall(new ParameterNamesModule())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        graph = new ArrayList<>(users);
+        long postId = 1;
+        for(long userId = 1; userId <= users; userId++) {
+            UserDto user = new UserDto(userId, "user" + userId, "user" + userId + "@mail.com", now.minusDays(userId));
+            for(int i = 0; i < postsPerUser; i++) {
+                user.addPost(new PostDto(postId, "Post title number " + postId, text(random),
+                        now.minusMinutes(postId), userId));
+                postId++;
+            }
+            graph.add(user);
+        }
+
+        payload = objectMapper.writeValueAsBytes(graph);
+    }
+
+    //JMH sums counters over the measurement iterations, payload size per response is bytes / responses
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long bytes;
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            responses = 0;
+        }
+
+        void add(int length) {
+            bytes += length;
+            responses++;
+        }
+    }
+
+    private String text(Random random) {
+        StringBuilder text = new StringBuilder(textLength + 16);
+        while(text.length() < textLength) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws IOException {
+        byte[] encoded = objectMapper.writeValueAsBytes(graph);
+        size.add(encoded.length);
+        return encoded;
+    }
+
+    @Benchmark
+    public List<UserDto> decode(PayloadSize size) throws IOException {
+        size.add(payload.length);
+        return objectMapper.readValue(payload, new TypeReference<>() {});
+    }
+}
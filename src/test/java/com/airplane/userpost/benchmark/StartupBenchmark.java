@@ -0,0 +1,167 @@
+package com.airplane.userpost.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+//Time from JVM launch to the first 200 from GET /posts, a fresh JVM per measurement.
+//Runs the unpacked target/userpost.jar against in-memory H2, build it first with
+//./mvnw -Paot package -DskipTests (aot modes need the initializers of that build).
+//cds modes train their own archive once per trial, the way the Dockerfile does.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Path WORK_DIR = Path.of("target", "startup-benchmark");
+    private static final String AOT_INITIALIZER =
+            "com/airplane/userpost/UserpostApplication__ApplicationContextInitializer.class";
+
+    @Param({"default", "faststart", "cds", "aot", "aot+cds+faststart"})
+    private String mode;
+
+    private Path appDir;
+    private String classpath;
+    private Path archive;
+    private HttpClient httpClient;
+    private int port;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void prepare() throws Exception {
+        Path jar = Path.of("target", "userpost.jar");
+        if(!Files.exists(jar)) {
+            throw new IllegalStateException("target/userpost.jar is missing, run ./mvnw -Paot package -DskipTests");
+        }
+
+        appDir = WORK_DIR.resolve(mode.replace('+', '-'));
+        run(List.of(javaBinary(), "-Djarmode=tools", "-jar", jar.toString(),
+                "extract", "--force", "--destination", appDir.toString()));
+        classpath = appDir.resolve("userpost.jar") + File.pathSeparator + h2Jar();
+
+        if(mode.contains("aot")) {
+            try(JarFile appJar = new JarFile(appDir.resolve("userpost.jar").toFile())) {
+                if(appJar.getEntry(AOT_INITIALIZER) == null) {
+                    throw new IllegalStateException("target/userpost.jar has no AOT initializers, build it with -Paot");
+                }
+            }
+        }
+
+        if(mode.contains("cds")) {
+            archive = appDir.resolve("application.jsa");
+            List<String> training = command(List.of("-XX:ArchiveClassesAtExit=" + archive,
+                    "-Dspring.context.exit=onRefresh", "-Dspring.main.lazy-initialization=false"));
+            run(training);
+        }
+
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    }
+
+    @Setup(Level.Invocation)
+    public void choosePort() throws IOException {
+        try(ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        List<String> jvmFlags = archive == null ? List.of() : List.of("-XX:SharedArchiveFile=" + archive);
+        process = new ProcessBuilder(command(jvmFlags))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/posts")).build();
+        while(true) {
+            if(!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " in mode " + mode);
+            }
+            try {
+                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if(status == 200) return status;
+            } catch(ConnectException exception) {
+                //not listening yet
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopApplication() throws InterruptedException {
+        process.destroyForcibly();
+        process.waitFor();
+    }
+
+    private List<String> command(List<String> extraJvmFlags) {
+        List<String> command = new ArrayList<>();
+        command.add(javaBinary());
+        command.addAll(extraJvmFlags);
+        if(mode.contains("aot")) command.add("-Dspring.aot.enabled=true");
+        command.addAll(List.of("-cp", classpath, "com.airplane.userpost.UserpostApplication"));
+        if(mode.contains("faststart")) command.add("--spring.profiles.active=faststart");
+
+        //the AOT build keeps the PostgreSQL invalidation transport, it just fails quietly against H2
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--userpost.grpc.port=0",
+                "--userpost.invalidation.transport=loopback",
+                "--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.liquibase.enabled=false",
+                "--userpost.migration.verify-on-boot=false",
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.schema-locations=file:src/test/resources/schema.sql",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.file.name=",
+                "--logging.level.root=WARN",
+                "--logging.level.com.airplane=WARN",
+                "--logging.level.com.airplane.userpost.invalidation=OFF",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        return command;
+    }
+
+    private static void run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if(!process.waitFor(5, TimeUnit.MINUTES) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Command failed: " + String.join(" ", command));
+        }
+    }
+
+    private static String javaBinary() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static String h2Jar() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> entry.contains("com" + File.separator + "h2database"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("H2 is not on the benchmark classpath"));
+    }
+}
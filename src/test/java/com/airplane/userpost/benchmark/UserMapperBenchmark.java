@@ -0,0 +1,70 @@
+package com.airplane.userpost.benchmark;
+
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.mapper.PostMapper;
+import com.airplane.userpost.mapper.UserMapper;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//UserMapper.toDto for a user with many large posts, read -prof gc alloc.rate.norm for the allocation.
+//Texts are fresh strings on every invocation, like rows read from the database, so no String hash is cached.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    @Param("10000")
+    private int posts;
+
+    @Param("4096")
+    private int textLength;
+
+    private final UserMapper userMapper = new UserMapper(new PostMapper());
+    private final List<Post> userPosts = new ArrayList<>();
+    private User user;
+    private byte[] text;
+
+    @Setup(Level.Trial)
+    public void createUser() {
+        user = new User();
+        user.setId(1L);
+        user.setUserName("user");
+        user.setEmail("user@mail.com");
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for(int i = 0; i < posts; i++) {
+            Post post = new Post();
+            post.setId((long) i + 1);
+            post.setTitle("title" + i);
+            post.setCreatedAt(createdAt.plusSeconds(i % 1000));
+            user.addPost(post);
+            userPosts.add(post);
+        }
+
+        text = new byte[textLength];
+        Arrays.fill(text, (byte) 'x');
+    }
+
+    @Setup(Level.Invocation)
+    public void loadTexts() {
+        for(Post post: userPosts) {
+            post.setText(new String(text, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return userMapper.toDto(user);
+    }
+}
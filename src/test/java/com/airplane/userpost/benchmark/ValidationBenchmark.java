@@ -0,0 +1,70 @@
+package com.airplane.userpost.benchmark;
+
+import com.airplane.userpost.coalescing.BatchLoaders;
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.service.UserService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.executable.ExecutableValidator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//Cost of validating a new user with many posts: controller @Valid plus service revalidation against the service pass alone.
+//Read -prof gc alloc.rate.norm for the per-request allocation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"1000", "5000"})
+    private int posts;
+
+    private Validator validator;
+    private ExecutableValidator executableValidator;
+    private UserService target;
+    private Method createNewUser;
+    private UserDto userDto;
+
+    @Setup(Level.Trial)
+    public void createValidator() throws NoSuchMethodException {
+        LocalValidatorFactoryBean validatorFactory = new LocalValidatorFactoryBean();
+        validatorFactory.afterPropertiesSet();
+        validator = validatorFactory.getValidator();
+        executableValidator = validator.forExecutables();
+
+        //only the method's constraint metadata is used, the target is never invoked
+        target = new UserService(null, null, null, null, null,
+                new BatchLoaders(TransactionOperations.withoutTransaction(), false, Duration.ZERO, 1), null);
+        createNewUser = UserService.class.getMethod("createNewUser", UserDto.class);
+
+        userDto = new UserDto(null, "user", "user@mail.com", null);
+        for(int i = 0; i < posts; i++) {
+            userDto.addPost(new PostDto(null, "title" + i, "text" + i, LocalDateTime.now(), null));
+        }
+    }
+
+    //@Valid on the controller argument, then the @Validated service proxy
+    @Benchmark
+    public int controllerAndService() {
+        Set<ConstraintViolation<UserDto>> controller = validator.validate(userDto);
+        Set<ConstraintViolation<UserService>> service
+                = executableValidator.validateParameters(target, createNewUser, new Object[]{userDto});
+        return controller.size() + service.size();
+    }
+
+    @Benchmark
+    public int serviceOnly() {
+        return executableValidator.validateParameters(target, createNewUser, new Object[]{userDto}).size();
+    }
+}
@@ -0,0 +1,155 @@
+package com.airplane.userpost.coalescing;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.exception.PostNotFoundException;
+import com.airplane.userpost.invalidation.EntityKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchLoaderTest {
+
+    private final List<List<Long>> queries = new CopyOnWriteArrayList<>();
+
+    //ids above 1000 don't exist
+    private final Function<List<Long>, Map<Long, PostDto>> findPosts = ids -> {
+        queries.add(ids);
+        Map<Long, PostDto> found = new HashMap<>();
+        ids.stream().filter(id -> id <= 1000).forEach(id -> found.put(id, new PostDto(id, "title" + id, null, null, 1L)));
+        return found;
+    };
+
+    @Test
+    public void shouldAnswerLookupsWithinWindowWithOneQuery() throws Exception {
+        BatchLoaders batchLoaders = batchLoaders(Duration.ofMillis(200), 100);
+        BatchLoader<PostDto> loader = batchLoaders.create(findPosts, this::notFound);
+
+        List<Future<PostDto>> results = loadConcurrently(loader, 1L, 20L);
+
+        for(int i = 0; i < results.size(); i++) {
+            assertEquals(i + 1, results.get(i).get(5, TimeUnit.SECONDS).id());
+        }
+        assertEquals(1, queries.size());
+        assertEquals(20, queries.getFirst().size());
+        assertEquals(1, batchLoaders.getBatchCount());
+        assertEquals(20, batchLoaders.getBatchedIdCount());
+    }
+
+    @Test
+    public void shouldDispatchFullBatchWithoutWaitingForWindow() throws Exception {
+        BatchLoaders batchLoaders = batchLoaders(Duration.ofSeconds(30), 10);
+        BatchLoader<PostDto> loader = batchLoaders.create(findPosts, this::notFound);
+
+        List<Future<PostDto>> results = loadConcurrently(loader, 1L, 10L);
+
+        for(Future<PostDto> result: results) {
+            assertNotNull(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, queries.size());
+    }
+
+    @Test
+    public void shouldCompleteMissingIdsWithNotFound() throws Exception {
+        BatchLoader<PostDto> loader = batchLoaders(Duration.ofMillis(200), 100).create(findPosts, this::notFound);
+
+        List<Future<PostDto>> results = loadConcurrently(loader, 999L, 1002L);
+
+        assertEquals(999L, results.get(0).get(5, TimeUnit.SECONDS).id());
+        assertEquals(1000L, results.get(1).get(5, TimeUnit.SECONDS).id());
+        for(Future<PostDto> missing: results.subList(2, 4)) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(PostNotFoundException.class, exception.getCause());
+        }
+        assertEquals(1, queries.size());
+    }
+
+    @Test
+    public void shouldFailWholeBatchWhenQueryFails() {
+        BatchLoader<PostDto> loader = batchLoaders(Duration.ZERO, 100).create(ids -> {
+            throw new IllegalStateException("connection refused");
+        }, this::notFound);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> loader.load(1L));
+
+        assertEquals("connection refused", exception.getMessage());
+    }
+
+    @Test
+    public void shouldStartNewBatchAfterDispatch() {
+        BatchLoader<PostDto> loader = batchLoaders(Duration.ZERO, 100).create(findPosts, this::notFound);
+
+        assertEquals(1L, loader.load(1L).id());
+        assertEquals(2L, loader.load(2L).id());
+
+        assertEquals(List.of(List.of(1L), List.of(2L)), queries);
+    }
+
+    @Test
+    public void shouldBatchSingleFlightLeadersOnly() throws Exception {
+        BatchLoaders batchLoaders = batchLoaders(Duration.ofMillis(200), 100);
+        BatchLoader<PostDto> loader = batchLoaders.create(findPosts, this::notFound);
+        SingleFlight<PostDto> singleFlight = new SingleFlight<>(EntityKey.POST,
+                TransactionOperations.withoutTransaction(), () -> false, true);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<PostDto>> results = new ArrayList<>();
+        for(int i = 0; i < 30; i++) {
+            long id = i % 3 + 1;
+            results.add(executor.submit(() -> singleFlight.load(id, loader, () -> fail("loaded without batch"))));
+        }
+        for(Future<PostDto> result: results) {
+            assertNotNull(result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(List.of(1L, 2L, 3L), queries.stream().flatMap(List::stream).sorted().toList());
+    }
+
+    @Test
+    public void shouldLoadDirectlyWhenBatchingDisabled() {
+        BatchLoaders disabled = new BatchLoaders(TransactionOperations.withoutTransaction(), false, Duration.ZERO, 100);
+        BatchLoader<PostDto> loader = disabled.create(findPosts, this::notFound);
+        SingleFlight<PostDto> singleFlight = new SingleFlight<>(EntityKey.POST,
+                TransactionOperations.withoutTransaction(), () -> false, true);
+
+        PostDto post = singleFlight.load(5L, loader, () -> new PostDto(5L, "direct", null, null, 1L));
+
+        assertEquals("direct", post.title());
+        assertTrue(queries.isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchLoaders(TransactionOperations.withoutTransaction(), true, Duration.ZERO, 0));
+    }
+
+    private List<Future<PostDto>> loadConcurrently(BatchLoader<PostDto> loader, long fromId, long toId) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<PostDto>> results = new ArrayList<>();
+        for(long id = fromId; id <= toId; id++) {
+            long postId = id;
+            results.add(executor.submit(() -> loader.load(postId)));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private BatchLoaders batchLoaders(Duration window, int maxBatchSize) {
+        return new BatchLoaders(TransactionOperations.withoutTransaction(), true, window, maxBatchSize);
+    }
+
+    private RuntimeException notFound(Long postId) {
+        return new PostNotFoundException("Post not found for Id: " + postId);
+    }
+}
@@ -0,0 +1,110 @@
+package com.airplane.userpost.coalescing;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.exception.PostNotFoundException;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import com.airplane.userpost.service.PostService;
+import com.airplane.userpost.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "userpost.batching.enabled=true",
+        "userpost.batching.window=PT0.2S"
+})
+public class PointLookupBatchingTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BatchLoaders batchLoaders;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private final List<Long> postIds = new ArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        postIds.clear();
+
+        user = new User();
+        user.setUserName("test name");
+        user.setEmail("test mail");
+        user.setCreatedAt(LocalDateTime.now());
+        user = userRepository.save(user);
+
+        for(int i = 0; i < 10; i++) {
+            Post post = new Post();
+            post.setTitle("title" + i);
+            post.setText("text" + i);
+            post.setUser(user);
+            postIds.add(postRepository.save(post).getId());
+        }
+    }
+
+    //the batch maps lazy columns inside its own transaction
+    @Test
+    public void shouldAnswerConcurrentPostLookupsWithOneQuery() throws Exception {
+        long batchesBefore = batchLoaders.getBatchCount();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<PostDto>> results = new ArrayList<>();
+        for(Long postId: postIds) {
+            results.add(executor.submit(() -> postService.getPostById(postId)));
+        }
+        executor.shutdown();
+
+        for(int i = 0; i < results.size(); i++) {
+            PostDto post = results.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals(postIds.get(i), post.id());
+            assertEquals("text" + i, post.text());
+            assertEquals(user.getId(), post.userId());
+        }
+        assertEquals(batchesBefore + 1, batchLoaders.getBatchCount());
+    }
+
+    @Test
+    public void shouldReturnNotFoundFromBatch() {
+        assertThrows(PostNotFoundException.class, () -> postService.getPostById(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldLoadUserWithPostsFromBatch() {
+        UserDto userDto = userService.getUserById(user.getId());
+
+        assertEquals("test name", userDto.getUserName());
+        assertEquals(10, userDto.getPosts().size());
+    }
+}
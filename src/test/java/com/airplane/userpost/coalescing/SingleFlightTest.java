@@ -0,0 +1,151 @@
+package com.airplane.userpost.coalescing;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.exception.PostNotFoundException;
+import com.airplane.userpost.invalidation.EntityKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 50;
+
+    private final SingleFlight<PostDto> singleFlight = new SingleFlight<>(EntityKey.POST,
+            TransactionOperations.withoutTransaction(), () -> false, true);
+
+    @Test
+    public void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        PostDto post = new PostDto(1L, "title", "text", null, 1L);
+
+        List<Future<PostDto>> results = callConcurrently(singleFlight, 1L, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return post;
+        });
+        awaitTrue(() -> singleFlight.getCoalescedCount() == CALLERS - 1);
+        release.countDown();
+
+        for(Future<PostDto> result: results) {
+            assertSame(post, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.getLoadCount());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void shouldRethrowLeaderExceptionToFollowers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<PostDto>> results = callConcurrently(singleFlight, 7L, () -> {
+            await(release);
+            throw new PostNotFoundException("Post not found for Id: 7");
+        });
+        awaitTrue(() -> singleFlight.getCoalescedCount() == CALLERS - 1);
+        release.countDown();
+
+        for(Future<PostDto> result: results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(PostNotFoundException.class, exception.getCause());
+        }
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void shouldLoadAgainOnceLeaderFinished() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.load(1L, () -> new PostDto(1L, "title" + loads.incrementAndGet(), null, null, 1L));
+        PostDto second = singleFlight.load(1L, () -> new PostDto(1L, "title" + loads.incrementAndGet(), null, null, 1L));
+
+        assertEquals("title2", second.title());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void shouldNotJoinLoadOfOtherId() {
+        PostDto other = singleFlight.load(1L, () -> singleFlight.load(2L, () -> new PostDto(2L, "t", null, null, 1L)));
+
+        assertEquals(2L, other.id());
+        assertEquals(2, singleFlight.getLoadCount());
+    }
+
+    @Test
+    public void shouldStartFreshLoadAfterInvalidation() {
+        AtomicInteger loads = new AtomicInteger();
+
+        //the change commits while the first load is running, the next caller must not join it
+        PostDto stale = singleFlight.load(1L, () -> {
+            singleFlight.invalidate(Set.of(EntityKey.user(1L), EntityKey.post(1L)));
+            return singleFlight.load(1L, () -> new PostDto(1L, "fresh" + loads.incrementAndGet(), null, null, 1L));
+        });
+
+        assertEquals("fresh1", stale.title());
+        assertEquals(2, singleFlight.getLoadCount());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void shouldLoadAloneWhenBypassedOrDisabled() {
+        BooleanSupplier withinReadYourWritesWindow = () -> true;
+        SingleFlight<PostDto> bypassed = new SingleFlight<>(EntityKey.POST,
+                TransactionOperations.withoutTransaction(), withinReadYourWritesWindow, true);
+        SingleFlight<PostDto> disabled = new SingleFlight<>(EntityKey.POST,
+                TransactionOperations.withoutTransaction(), () -> false, false);
+
+        for(SingleFlight<PostDto> loader: List.of(bypassed, disabled)) {
+            PostDto nested = loader.load(1L, () -> loader.load(1L, () -> new PostDto(1L, "t", null, null, 1L)));
+
+            assertEquals(1L, nested.id());
+            assertEquals(2, loader.getLoadCount());
+            assertEquals(0, loader.getInFlightCount());
+        }
+    }
+
+    private List<Future<PostDto>> callConcurrently(SingleFlight<PostDto> loader, Long id, Supplier<PostDto> load)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<PostDto>> results = new ArrayList<>();
+        Future<PostDto> leader = executor.submit(() -> loader.load(id, load));
+        awaitTrue(() -> loader.getInFlightCount() == 1);
+        results.add(leader);
+        for(int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> loader.load(id, load)));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch(InterruptedException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while(!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.airplane.userpost.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Runs the Dockerfile's CDS training command against the test classpath. There is no database at
+//docker build time, so the command must refresh the context without a connection and exit 0.
+public class CdsTrainingRunTest {
+
+    private static final Path DOCKERFILE = Path.of("Dockerfile");
+
+    @Test
+    public void shouldRefreshWithDockerfileTrainingFlags() throws IOException, InterruptedException {
+        List<String> tokens = trainingRun();
+        int java = tokens.indexOf("java");
+        assertTrue(java > 0, "training RUN has no java command");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        //the archive and the AOT initializers only exist in the image build, everything else is kept as is
+        tokens.subList(java + 1, tokens.size()).stream()
+                .filter(token -> token.startsWith("-D") && !token.startsWith("-Dspring.aot.enabled"))
+                .forEach(command::add);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), "com.airplane.userpost.UserpostApplication"));
+
+        Path output = Files.createTempFile("cds-training", ".log");
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile());
+        Map<String, String> environment = builder.environment();
+        tokens.subList(0, java).stream()
+                .filter(token -> token.contains("="))
+                .forEach(token -> environment.put(token.substring(0, token.indexOf('=')),
+                        token.substring(token.indexOf('=') + 1)));
+
+        Process process = builder.start();
+        try {
+            assertTrue(process.waitFor(2, TimeUnit.MINUTES), "training run didn't exit");
+            assertEquals(0, process.exitValue(), () -> "training run failed:\n" + tail(output));
+        } finally {
+            process.destroyForcibly();
+            Files.deleteIfExists(output);
+        }
+    }
+
+    //the RUN instruction with -XX:ArchiveClassesAtExit, continuation lines joined
+    private static List<String> trainingRun() throws IOException {
+        String dockerfile = Files.readString(DOCKERFILE).replace("\\\n", " ");
+        String run = dockerfile.lines()
+                .filter(line -> line.startsWith("RUN ") && line.contains("-XX:ArchiveClassesAtExit"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Dockerfile has no CDS training RUN"));
+
+        return Arrays.stream(run.substring("RUN ".length()).trim().split("\\s+")).toList();
+    }
+
+    private static String tail(Path output) {
+        try {
+            List<String> lines = Files.readAllLines(output);
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 40), lines.size()));
+        } catch(IOException exception) {
+            return exception.getMessage();
+        }
+    }
+}
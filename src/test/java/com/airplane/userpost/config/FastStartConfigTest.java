@@ -0,0 +1,47 @@
+package com.airplane.userpost.config;
+
+import com.airplane.userpost.controller.PostController;
+import com.airplane.userpost.job.PostCountReconciliationJob;
+import com.airplane.userpost.repository.UserRepository;
+import com.airplane.userpost.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles({"test", "faststart"})
+public class FastStartConfigTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void shouldDetectScheduledBeans() {
+        assertTrue(FastStartConfig.hasScheduledMethod(PostCountReconciliationJob.class));
+        assertFalse(FastStartConfig.hasScheduledMethod(UserService.class));
+    }
+
+    @Test
+    public void shouldCreateOnlyScheduledBeansEagerly() {
+        assertFalse(beanFactory.getBeanDefinition("postCountReconciliationJob").isLazyInit());
+        assertTrue(beanFactory.containsSingleton("postCountReconciliationJob"));
+        assertTrue(beanFactory.getBeanDefinition(beanName(PostController.class)).isLazyInit());
+        assertFalse(beanFactory.containsSingleton(beanName(PostController.class)));
+    }
+
+    @Test
+    public void shouldServeRepositoriesWithoutJdbcMetadataAtBoot() {
+        assertEquals(0, userRepository.count());
+    }
+
+    private String beanName(Class<?> type) {
+        return beanFactory.getBeanNamesForType(type)[0];
+    }
+}
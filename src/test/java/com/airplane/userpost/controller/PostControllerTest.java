@@ -5,31 +5,44 @@ import com.airplane.userpost.model.Post;
 import com.airplane.userpost.model.User;
 import com.airplane.userpost.repository.PostRepository;
 import com.airplane.userpost.repository.UserRepository;
+import com.airplane.userpost.service.PostService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
-@TestPropertySource(properties = {
-        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
-})
 public class PostControllerTest {
 
     @Autowired
@@ -44,6 +57,18 @@ public class PostControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @BeforeEach
     public void initTest() {
         postRepository.deleteAll();
@@ -51,7 +76,7 @@ public class PostControllerTest {
     }
 
     @Test
-    public void shouldReturnAllPosts() throws Exception {
+    public void shouldReturnAllPostsWithFullText() throws Exception {
 
         User user = userRepository.save(buildUser(null, "test name", "test mail"));
         Post post1 = buildPost(null, "test title1", "test text1");
@@ -62,6 +87,7 @@ public class PostControllerTest {
         postRepository.save(post2);
 
         mockMvc.perform(get("/posts")
+                .param("view", "full")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2))
@@ -94,6 +120,248 @@ public class PostControllerTest {
                 .andExpect(jsonPath("$.userId").value(savedPost.getUser().getId()));
     }
 
+    @Test
+    public void shouldServeCachedPostUntilUpdated() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        Post post = buildPost(null, "test title", "test text");
+        post.setUser(user);
+        Post savedPost = postRepository.save(post);
+
+        String etag = mockMvc.perform(get("/posts/{id}", savedPost.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("test title"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/posts/{id}", savedPost.getId())
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/posts/{postId}", savedPost.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(buildPostDto(null, "changed title", "changed text", null))))
+                .andExpect(status().isOk());
+
+        MvcResult changed = mockMvc.perform(get("/posts/{id}", savedPost.getId())
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("changed title"))
+                .andReturn();
+        assertFalse(etag.equals(changed.getResponse().getHeader("ETag")));
+    }
+
+    @Test
+    public void shouldReturnPostById_Cbor() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        Post post1 = buildPost(null, "test title1", "test text1");
+        post1.setUser(user);
+        Post savedPost = postRepository.save(post1);
+
+        byte[] body = mockMvc.perform(get("/posts/{id}", savedPost.getId())
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PostDto postDto = cborConverter.getObjectMapper().readValue(body, PostDto.class);
+        assertEquals(savedPost.getId(), postDto.id());
+        assertEquals("test title1", postDto.title());
+        assertEquals("test text1", postDto.text());
+        assertEquals(user.getId(), postDto.userId());
+        assertNotNull(postDto.createdAt());
+    }
+
+    @Test
+    public void shouldReturnPostsInRequestedOrderWithMissingIds_postsByIds() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        Long[] ids = new Long[3];
+        for(int i = 0; i < 3; i++) {
+            Post post = buildPost(null, "test title" + i, "test text" + i);
+            post.setUser(user);
+            ids[i] = postRepository.save(post).getId();
+        }
+        long missingId = ids[2] + 100;
+
+        mockMvc.perform(get("/posts")
+                        .param("ids", String.valueOf(ids[1]), String.valueOf(missingId),
+                                String.valueOf(ids[0]), String.valueOf(ids[2])))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(ids[1].intValue(), ids[0].intValue(), ids[2].intValue())))
+                .andExpect(jsonPath("$.items[*].text", contains("test text1", "test text0", "test text2")))
+                .andExpect(jsonPath("$.missingIds", contains((int) missingId)));
+    }
+
+    @Test
+    public void shouldReturnEmptyItems_AllIdsMissing_postsByIds() throws Exception {
+        mockMvc.perform(get("/posts").param("ids", "100,101"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andExpect(jsonPath("$.missingIds", contains(100, 101)));
+    }
+
+    @Test
+    public void shouldReturnBadRequest_InvalidId_postsByIds() throws Exception {
+        mockMvc.perform(get("/posts").param("ids", "1,abc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldReturnBadRequest_IdsWithFields_postsByIds() throws Exception {
+        mockMvc.perform(get("/posts").param("ids", "1,2").param("fields", "id"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Ids parameter can't be combined with fields or view."));
+    }
+
+    @Test
+    public void shouldReturnBadRequest_IdsWithView_postsByIds() throws Exception {
+        mockMvc.perform(get("/posts").param("ids", "1,2").param("view", "excerpt"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Ids parameter can't be combined with fields or view."));
+    }
+
+    @Test
+    public void shouldReturnBadRequest_TooManyIds_postsByIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, PostService.MAX_BATCH_SIZE + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/posts").param("ids", ids))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.postIds").value("At most 500 PostIds per request."));
+    }
+
+    @Test
+    public void shouldReturnOnlyRequestedFields_allPosts() throws Exception {
+
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        Post post1 = buildPost(null, "test title1", "test text1");
+        post1.setUser(user);
+        Post post2 = buildPost(null, "test title2", "test text2");
+        post2.setUser(user);
+        postRepository.save(post1);
+        postRepository.save(post2);
+
+        mockMvc.perform(get("/posts")
+                        .param("fields", "id,title")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(post1.getId()))
+                .andExpect(jsonPath("$[0].title").value(post1.getTitle()))
+                .andExpect(jsonPath("$[0].text").doesNotExist())
+                .andExpect(jsonPath("$[0].createdAt").doesNotExist())
+                .andExpect(jsonPath("$[0].userId").doesNotExist())
+                .andExpect(jsonPath("$[1].id").value(post2.getId()))
+                .andExpect(jsonPath("$[1].title").value(post2.getTitle()));
+    }
+
+    @Test
+    public void shouldReturnOnlyRequestedFields_PostById() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        Post post1 = buildPost(null, "test title1", "test text1");
+        post1.setUser(user);
+        Post savedPost = postRepository.save(post1);
+
+        mockMvc.perform(get("/posts/{id}", savedPost.getId())
+                        .param("fields", "userId,createdAt")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(user.getId()))
+                .andExpect(jsonPath("$.createdAt").isNotEmpty())
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.title").doesNotExist())
+                .andExpect(jsonPath("$.text").doesNotExist());
+    }
+
+    @Test
+    public void shouldReturnNotFound_FieldsPostById() throws Exception {
+
+        mockMvc.perform(get("/posts/10")
+                        .param("fields", "id")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.Error").value("Post not found for Id: 10"));
+    }
+
+    @Test
+    public void shouldReturnExcerptsInsteadOfText_allPosts() throws Exception {
+
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        for(int i = 0; i < 10; i++) {
+            Post post = buildPost(null, "test title" + i, "x".repeat(4096));
+            post.setUser(user);
+            postRepository.save(post);
+        }
+
+        int fullBytes = mockMvc.perform(get("/posts")
+                        .param("view", "full")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("x".repeat(4096)))
+                .andReturn().getResponse().getContentAsByteArray().length;
+
+        int excerptBytes = mockMvc.perform(get("/posts")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[0].id").isNotEmpty())
+                .andExpect(jsonPath("$[0].title").value("test title0"))
+                .andExpect(jsonPath("$[0].excerpt").value("x".repeat(200)))
+                .andExpect(jsonPath("$[0].textLength").value(4096))
+                .andExpect(jsonPath("$[0].createdAt").isNotEmpty())
+                .andExpect(jsonPath("$[0].userId").value(user.getId()))
+                .andExpect(jsonPath("$[0].text").doesNotExist())
+                .andReturn().getResponse().getContentAsByteArray().length;
+
+        assertTrue(excerptBytes * 10 < fullBytes);
+    }
+
+    @Test
+    public void shouldReturnShortTextAsExcerpt_FieldsPostById() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        Post post = buildPost(null, "test title", "short text");
+        post.setUser(user);
+        Post savedPost = postRepository.save(post);
+
+        mockMvc.perform(get("/posts/{id}", savedPost.getId())
+                        .param("fields", "excerpt,textLength")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.excerpt").value("short text"))
+                .andExpect(jsonPath("$.textLength").value(10));
+    }
+
+    @Test
+    public void shouldReturnBadRequest_UnknownField_allPosts() throws Exception {
+
+        mockMvc.perform(get("/posts")
+                        .param("fields", "id,body")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Unknown post field: body"));
+    }
+
+    @Test
+    public void postTextShouldBeLoadedOnlyWhenAccessed() {
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+        Post post = buildPost(null, "test title", "test text");
+        post.setUser(user);
+        Long postId = postRepository.save(post).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Post loaded = entityManager.createQuery("select p from Post p where p.id = :id", Post.class)
+                    .setParameter("id", postId)
+                    .getSingleResult();
+
+            assertFalse(Hibernate.isPropertyInitialized(loaded, "text"));
+            assertEquals("test title", loaded.getTitle());
+            assertFalse(Hibernate.isPropertyInitialized(loaded, "text"));
+
+            assertEquals("test text", loaded.getText());
+            assertTrue(Hibernate.isPropertyInitialized(loaded, "text"));
+        });
+    }
+
     @Test
     public void shouldReturnNotFound_PostById() throws Exception {
 
@@ -137,6 +405,85 @@ public class PostControllerTest {
                 .andExpect(jsonPath("$.userId").value(user.getId()));
     }
 
+    @Test
+    public void shouldInsertAndCountPostInOneWrite() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "example@mail.com"));
+
+        String body = mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "test title", "test text", null))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        PostDto created = objectMapper.readValue(body, PostDto.class);
+
+        //created_at is the database default, returned by the insert itself
+        Post stored = postRepository.findById(created.id()).orElseThrow();
+        assertEquals(stored.getCreatedAt(), created.createdAt());
+        assertEquals(1L, userRepository.findById(user.getId()).orElseThrow().getPostCount());
+
+        mockMvc.perform(post("/posts/{userId}", user.getId() + 100)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "lost title", "text", null))))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.Error").value("User not found for Id: " + (user.getId() + 100)));
+
+        assertEquals(1, postRepository.count());
+    }
+
+    @Test
+    public void shouldUpdateAndDeletePostByAffectedRows() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "example@mail.com"));
+        String body = mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "test title", "test text", null))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        PostDto created = objectMapper.readValue(body, PostDto.class);
+
+        mockMvc.perform(put("/posts/{postId}", created.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "new title", "new text", null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("new title"))
+                .andExpect(jsonPath("$.text").value("new text"))
+                .andExpect(jsonPath("$.createdAt").isNotEmpty())
+                .andExpect(jsonPath("$.userId").value(user.getId()));
+
+        mockMvc.perform(delete("/posts/{postId}", created.id()))
+                .andExpect(status().isNoContent());
+        assertEquals(0L, userRepository.findById(user.getId()).orElseThrow().getPostCount());
+
+        mockMvc.perform(put("/posts/{postId}", created.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "new title", "new text", null))))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.Error").value("Post wasn't found for Id: " + created.id()));
+        mockMvc.perform(delete("/posts/{postId}", created.id()))
+                .andExpect(status().isNotFound());
+        assertEquals(0L, userRepository.findById(user.getId()).orElseThrow().getPostCount());
+    }
+
+    @Test
+    public void shouldReturnCreatedPostDto_Smile() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "example@mail.com"));
+        PostDto postDtoArg = buildPostDto(null, "test title", "test text", null);
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+
+        byte[] body = mockMvc.perform(post("/posts/{userId}", user.getId())
+                .contentType(smile)
+                .accept(smile)
+                .content(smileConverter.getObjectMapper().writeValueAsBytes(postDtoArg)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PostDto postDto = smileConverter.getObjectMapper().readValue(body, PostDto.class);
+        assertNotNull(postDto.id());
+        assertEquals(postDtoArg.title(), postDto.title());
+        assertEquals(postDtoArg.text(), postDto.text());
+        assertEquals(user.getId(), postDto.userId());
+    }
+
     @Test
     public void shouldReturnBadRequest_BadArgs_newPost() throws Exception {
         PostDto postDtoArg = buildPostDto(null, null, "test text", null);
@@ -282,6 +629,44 @@ public class PostControllerTest {
                         .value("Invalid format: abc"));
     }
 
+    @Test
+    public void shouldStreamPostChangesAfterCommit() throws Exception {
+        User user = userRepository.save(buildUser(null, "test name", "test mail"));
+
+        MvcResult stream = mockMvc.perform(get("/posts/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "test title", "test text", null))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long postId = objectMapper.readValue(body, PostDto.class).id();
+
+        //not committed, not streamed
+        mockMvc.perform(post("/posts/{userId}", user.getId() + 100)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "lost title", "text", null))))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(delete("/posts/{postId}", postId))
+                .andExpect(status().isNoContent());
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while(!stream.getResponse().getContentAsString().contains("event:post.deleted")) {
+            assertTrue(System.nanoTime() < deadline, "post.deleted not streamed within 5s");
+            Thread.sleep(20);
+        }
+
+        String events = stream.getResponse().getContentAsString();
+        assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, stream.getResponse().getContentType());
+        assertTrue(events.contains("event:post.created\ndata:{\"id\":" + postId + ",\"title\":\"test title\""));
+        assertTrue(events.contains("event:post.deleted\ndata:{\"id\":" + postId + "}"));
+        assertTrue(events.indexOf("post.created") < events.indexOf("post.deleted"));
+        assertFalse(events.contains("lost title"));
+    }
+
     private User buildUser(Long userId, String username, String email) {
         User user = new User();
         user.setId(userId);
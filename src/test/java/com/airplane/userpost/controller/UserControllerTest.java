@@ -6,6 +6,7 @@ import com.airplane.userpost.model.Post;
 import com.airplane.userpost.model.User;
 import com.airplane.userpost.repository.PostRepository;
 import com.airplane.userpost.repository.UserRepository;
+import com.airplane.userpost.responsecache.ResponseCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -17,13 +18,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -32,9 +35,6 @@ import java.time.LocalDateTime;
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
-@TestPropertySource(properties = {
-        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
-})
 public class UserControllerTest {
 
     @PersistenceContext
@@ -49,9 +49,18 @@ public class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ResponseCache responseCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
     @BeforeEach
     public void initTest() {
         postRepository.deleteAll();
@@ -143,6 +152,55 @@ public class UserControllerTest {
                     .andExpect(jsonPath("$.posts[*].text", hasItem("text2")));
     }
 
+    @Test
+    public void shouldReturnUserById_Smile() throws Exception {
+        User user1 = buildUser(null, "test name1", "test mail1");
+
+        Post post1 = buildPost(null, "title1", "text1");
+        Post post2 = buildPost(null, "title2", "text2");
+
+        post1.setUser(user1);
+        post2.setUser(user1);
+        user1.addPost(post1);
+        user1.addPost(post2);
+
+        User savedUser1 = userRepository.save(user1);
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+
+        byte[] body = mockMvc.perform(get("/users/{id}", savedUser1.getId())
+                .accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        UserDto userDto = smileConverter.getObjectMapper().readValue(body, UserDto.class);
+        assertEquals(savedUser1.getId(), userDto.getId());
+        assertEquals("test name1", userDto.getUserName());
+        assertEquals("test mail1", userDto.getEmail());
+        assertNotNull(userDto.getCreatedAt());
+        assertEquals(2, userDto.getPosts().size());
+        assertTrue(userDto.getPosts().stream().allMatch(post -> savedUser1.getId().equals(post.userId())));
+    }
+
+    @Test
+    public void shouldReturnNotFoundInRequestedFormat_Cbor() throws Exception {
+        byte[] body = mockMvc.perform(get("/users/10")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals("User not found with Id: 10",
+                cborConverter.getObjectMapper().readTree(body).get("Error").asText());
+    }
+
+    @Test
+    public void shouldReturnJsonWithoutAcceptHeader() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
     @Test
     public void hibernateNPlus1Test() throws Exception {
 
@@ -171,6 +229,192 @@ public class UserControllerTest {
         assertTrue(queries <= 2);
     }
 	
+    @Test
+    public void shouldReturnUsersInRequestedOrderWithMissingIds_usersByIds() throws Exception {
+        Long[] ids = new Long[3];
+        for(int i = 0; i < 3; i++) {
+            User user = buildUser(null, "test name" + i, "test mail" + i);
+            for(int j = 0; j < 2; j++) {
+                Post post = buildPost(null, "title" + j, "text" + j);
+                post.setUser(user);
+                user.addPost(post);
+            }
+            ids[i] = userRepository.save(user).getId();
+        }
+        long missingId = ids[2] + 100;
+
+        Session session = entityManager.unwrap(Session.class);
+        Statistics statistics = session.getSessionFactory().getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        mockMvc.perform(get("/users")
+                        .param("ids", ids[2] + "," + missingId + "," + ids[0] + "," + ids[2]))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(ids[2].intValue(), ids[0].intValue())))
+                .andExpect(jsonPath("$.items[0].posts", hasSize(2)))
+                .andExpect(jsonPath("$.items[1].posts", hasSize(2)))
+                .andExpect(jsonPath("$.missingIds", contains((int) missingId)));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void shouldReturnBadRequest_UserIdNotPositive_usersByIds() throws Exception {
+        mockMvc.perform(get("/users").param("ids", "1,-2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['userIds[1]']").value("UserId must be positive number."));
+    }
+
+    @Test
+    public void shouldReturnBadRequest_IdsWithFields_usersByIds() throws Exception {
+        mockMvc.perform(get("/users").param("ids", "1,2").param("fields", "id"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Ids parameter can't be combined with fields or view."));
+    }
+
+    @Test
+    public void shouldReturnBadRequest_IdsWithView_usersByIds() throws Exception {
+        mockMvc.perform(get("/users").param("ids", "1,2").param("view", "excerpt"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Ids parameter can't be combined with fields or view."));
+    }
+
+    @Test
+    public void shouldSkipPostsFetch_FieldsWithoutPosts_allUsers() throws Exception {
+
+        for(int i = 1; i < 4; i++) {
+            User user = buildUser(null, "test name" + i, "test mail" + i);
+            Post post = buildPost(null, "title" + i, "text" + i);
+            post.setUser(user);
+            user.addPost(post);
+            userRepository.save(user);
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+        Statistics statistics = session.getSessionFactory().getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        mockMvc.perform(get("/users")
+                        .param("fields", "id,userName")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").isNotEmpty())
+                .andExpect(jsonPath("$[0].userName").value("test name1"))
+                .andExpect(jsonPath("$[0].email").doesNotExist())
+                .andExpect(jsonPath("$[0].posts").doesNotExist());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void shouldReturnRequestedPostFields_allUsers() throws Exception {
+        User user1 = buildUser(null, "test name1", "test mail1");
+        Post post1 = buildPost(null, "title1", "text1");
+        post1.setUser(user1);
+        user1.addPost(post1);
+        User savedUser1 = userRepository.save(user1);
+        userRepository.save(buildUser(null, "test name2", "test mail2"));
+
+        mockMvc.perform(get("/users")
+                        .param("fields", "id,posts.title")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(savedUser1.getId()))
+                .andExpect(jsonPath("$[0].userName").doesNotExist())
+                .andExpect(jsonPath("$[0].posts.length()").value(1))
+                .andExpect(jsonPath("$[0].posts[0].title").value("title1"))
+                .andExpect(jsonPath("$[0].posts[0].text").doesNotExist())
+                .andExpect(jsonPath("$[1].posts").isEmpty());
+    }
+
+    @Test
+    public void shouldReturnRequestedFields_userById() throws Exception {
+        User user1 = buildUser(null, "test name1", "test mail1");
+        Post post1 = buildPost(null, "title1", "text1");
+        Post post2 = buildPost(null, "title2", "text2");
+        post1.setUser(user1);
+        post2.setUser(user1);
+        user1.addPost(post1);
+        user1.addPost(post2);
+        User savedUser1 = userRepository.save(user1);
+
+        mockMvc.perform(get("/users/{id}", savedUser1.getId())
+                        .param("fields", "userName,posts.id,posts.createdAt")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userName").value(savedUser1.getUserName()))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.posts.length()").value(2))
+                .andExpect(jsonPath("$.posts[*].id").isNotEmpty())
+                .andExpect(jsonPath("$.posts[*].createdAt").isNotEmpty())
+                .andExpect(jsonPath("$.posts[0].title").doesNotExist())
+                .andExpect(jsonPath("$.posts[0].text").doesNotExist());
+    }
+
+    @Test
+    public void shouldReturnPostExcerpts_userById() throws Exception {
+        User user1 = buildUser(null, "test name1", "test mail1");
+        Post post1 = buildPost(null, "title1", "y".repeat(1000));
+        post1.setUser(user1);
+        user1.addPost(post1);
+        User savedUser1 = userRepository.save(user1);
+
+        mockMvc.perform(get("/users/{id}", savedUser1.getId())
+                        .param("view", "excerpt")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(savedUser1.getId()))
+                .andExpect(jsonPath("$.userName").value(savedUser1.getUserName()))
+                .andExpect(jsonPath("$.email").value(savedUser1.getEmail()))
+                .andExpect(jsonPath("$.createdAt").isNotEmpty())
+                .andExpect(jsonPath("$.posts[0].title").value("title1"))
+                .andExpect(jsonPath("$.posts[0].excerpt").value("y".repeat(200)))
+                .andExpect(jsonPath("$.posts[0].textLength").value(1000))
+                .andExpect(jsonPath("$.posts[0].text").doesNotExist());
+    }
+
+    @Test
+    public void shouldReturnPostExcerpts_allUsers() throws Exception {
+        User user1 = buildUser(null, "test name1", "test mail1");
+        Post post1 = buildPost(null, "title1", "text1");
+        post1.setUser(user1);
+        user1.addPost(post1);
+        userRepository.save(user1);
+
+        mockMvc.perform(get("/users")
+                        .param("view", "excerpt")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].posts[0].excerpt").value("text1"))
+                .andExpect(jsonPath("$[0].posts[0].textLength").value(5))
+                .andExpect(jsonPath("$[0].posts[0].text").doesNotExist());
+    }
+
+    @Test
+    public void shouldReturnNotFound_FieldsUserById() throws Exception {
+
+        mockMvc.perform(get("/users/10")
+                        .param("fields", "userName")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.Error").value("User not found with Id: 10"));
+    }
+
+    @Test
+    public void shouldReturnBadRequest_UnknownField_userById() throws Exception {
+
+        mockMvc.perform(get("/users/1")
+                        .param("fields", "userName,posts.body")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Unknown post field: body"));
+    }
+
 	@Test
     public void shouldReturnNotFound_userById() throws Exception {
 
@@ -198,6 +442,61 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.userId").value("UserId must be positive number."));
     }
 
+    @Test
+    public void shouldReturnUserSummaryWithMaintainedPostCount() throws Exception {
+        User savedUser = userRepository.save(buildUser(null, "test name1", "example@mail.com"));
+        PostDto postDtoArg = buildPostDto(null, "title1", "text1", null);
+
+        for(int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/posts/{userId}", savedUser.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(postDtoArg)))
+                    .andExpect(status().isCreated());
+        }
+
+        Long postId = postRepository.findAll().iterator().next().getId();
+        mockMvc.perform(delete("/posts/{postId}", postId))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/users/{id}/summary", savedUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(savedUser.getId()))
+                .andExpect(jsonPath("$.userName").value(savedUser.getUserName()))
+                .andExpect(jsonPath("$.email").value(savedUser.getEmail()))
+                .andExpect(jsonPath("$.createdAt").isNotEmpty())
+                .andExpect(jsonPath("$.postCount").value(2))
+                .andExpect(jsonPath("$.posts").doesNotExist());
+    }
+
+    @Test
+    public void shouldReturnPostCountAfterUpdate_userSummary() throws Exception {
+        User savedUser = userRepository.save(buildUser(null, "test name1", "example@mail.com"));
+
+        UserDto userArg = buildUserDto(null, "changed name1", "changed@mail.com");
+        userArg.addPost(buildPostDto(null, "title1", "text1", null));
+        userArg.addPost(buildPostDto(null, "title2", "text2", null));
+
+        mockMvc.perform(put("/users/{id}", savedUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userArg)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/summary", savedUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.postCount").value(2));
+    }
+
+    @Test
+    public void shouldReturnNotFound_userSummary() throws Exception {
+
+        mockMvc.perform(get("/users/10/summary")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.Error").value("User not found with Id: 10"));
+    }
+
     @Test
     public void shouldReturnCreatedUser() throws Exception {
         UserDto user1 = buildUserDto(null, "test name1", "example@mail.com");
@@ -232,6 +531,23 @@ public class UserControllerTest {
 				.andExpect(jsonPath("$.email").value("Email is empty."));
     }
 	
+	//a single service-side pass, controller validation would report "posts[].title"
+	@Test
+    public void shouldReturnBadRequest_BlankNestedPostTitle_newUser() throws Exception {
+        UserDto userDtoArg = buildUserDto(null, "test username", "example@mail.com");
+        userDtoArg.addPost(new PostDto(null, " ", "text", null, null));
+        long usersBefore = userRepository.count();
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDtoArg)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.title").value("Blank post title."));
+
+        assertEquals(usersBefore, userRepository.count());
+    }
+
 	@Test
     public void shouldReturnBadRequest_BadEmail_newUser() throws Exception {
         UserDto userDtoArg = buildUserDto(null, "test username", "bad email");
@@ -314,6 +630,52 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.posts[*].text", hasItem("text3")));
     }
 	
+    @Test
+    public void shouldEvictRemovedPostsAndPreviousOwner_updateUser() throws Exception {
+        User savedOwner = userRepository.save(buildUser(null, "test name1", "test mail1"));
+        //created through the API so the owner's post_count is 1
+        String created = mockMvc.perform(post("/posts/{userId}", savedOwner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildPostDto(null, "moved title", "moved text", null))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long movedPostId = objectMapper.readValue(created, PostDto.class).id();
+
+        User user = buildUser(null, "test name2", "example2@mail.com");
+        Post droppedPost = buildPost(null, "dropped title", "dropped text");
+        droppedPost.setUser(user);
+        user.addPost(droppedPost);
+        User savedUser = userRepository.save(user);
+
+        Long droppedPostId = savedUser.getPosts().iterator().next().getId();
+
+        //both dtos are served from the response cache from the second read on
+        long hits = responseCache.getHitCount();
+        for(int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/users/{id}", savedOwner.getId())).andExpect(status().isOk());
+            mockMvc.perform(get("/posts/{id}", droppedPostId)).andExpect(status().isOk());
+        }
+        assertEquals(hits + 2, responseCache.getHitCount());
+
+        UserDto userArg = buildUserDto(null, "test name2", "example2@mail.com");
+        userArg.addPost(buildPostDto(movedPostId, "moved title", "moved text", null));
+
+        mockMvc.perform(put("/users/{id}", savedUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userArg)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts[*].id", contains(movedPostId.intValue())));
+
+        mockMvc.perform(get("/users/{id}", savedOwner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts", hasSize(0)));
+        mockMvc.perform(get("/posts/{id}", droppedPostId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/{id}/summary", savedOwner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.postCount").value(0));
+    }
+
 	@Test
     public void shouldReturnBadRequest_NullUserDtoFields_updateUser() throws Exception {
 		
@@ -448,6 +810,10 @@ public class UserControllerTest {
 
         boolean isPost2InDB = postRepository.existsById(savedPost2.getId());
         assertFalse(isPost2InDB);
+
+        mockMvc.perform(delete("/users/{id}", savedUser.getId()))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.Error").value("User not found with Id: " + savedUser.getId()));
     }
 	
 	@Test
@@ -0,0 +1,112 @@
+package com.airplane.userpost.datasource;
+
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.exception.UserNotFoundException;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import com.airplane.userpost.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//primary is the usual PostgreSQL test database, the replica is an in-memory H2 that never receives writes
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "userpost.datasource.replica-urls=jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema.sql'",
+        "userpost.datasource.read-your-writes-window=PT30S",
+        "userpost.datasource.health-check-interval=PT1H"
+})
+public class ReadWriteRoutingTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void initTest() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+
+        replica = new JdbcTemplate(replicaPool.getReplicas().get("replica-0"));
+        replica.update("delete from posts");
+        replica.update("delete from users");
+    }
+
+    @AfterEach
+    public void clearClient() {
+        readYourWritesTracker.clearCurrentClient();
+    }
+
+    @Test
+    public void shouldSendWritesToPrimaryAndReadOnlyTransactionsToReplica() {
+        UserDto created = userService.createNewUser(buildUserDto("primary user", "primary@mail.com"));
+        replica.update("insert into users (username, email) values ('replica user', 'replica@mail.com')");
+
+        List<UserDto> users = userService.getAllUsers();
+
+        assertEquals(List.of("replica user"), users.stream().map(UserDto::getUserName).toList());
+        assertThrows(UserNotFoundException.class, () -> userService.getUserSummary(created.getId()));
+        assertEquals(1, new JdbcTemplate(primaryDataSource)
+                .queryForObject("select count(*) from users where id = ?", Integer.class, created.getId()));
+    }
+
+    @Test
+    public void shouldReadOwnWritesFromPrimaryWithinWindow() {
+        readYourWritesTracker.setCurrentClient("client-1");
+        UserDto created = userService.createNewUser(buildUserDto("test name", "test@mail.com"));
+
+        assertEquals("test name", userService.getUserSummary(created.getId()).userName());
+
+        readYourWritesTracker.setCurrentClient("client-2");
+        assertThrows(UserNotFoundException.class, () -> userService.getUserSummary(created.getId()));
+    }
+
+    @Test
+    public void shouldNotRecordWriteOfRolledBackTransaction() {
+        readYourWritesTracker.setCurrentClient("client-3");
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateExistingUser(100L,
+                buildUserDto("test name", "test@mail.com")));
+
+        assertFalse(readYourWritesTracker.isWithinWindow());
+    }
+
+    @Test
+    public void shouldKeepReplicaHealthy() {
+        replicaPool.checkHealth();
+
+        assertEquals(1, replicaPool.healthyCount());
+    }
+
+    private UserDto buildUserDto(String userName, String email) {
+        return new UserDto(null, userName, email, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,72 @@
+package com.airplane.userpost.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class ReplicaPoolTest {
+
+    private DataSource replica0;
+    private DataSource replica1;
+    private Connection connection;
+    private ReplicaPool replicaPool;
+
+    @BeforeEach
+    public void initTest() throws SQLException {
+        replica0 = Mockito.mock(DataSource.class);
+        replica1 = Mockito.mock(DataSource.class);
+        connection = Mockito.mock(Connection.class);
+        when(connection.isValid(1)).thenReturn(true);
+        when(replica0.getConnection()).thenReturn(connection);
+        when(replica1.getConnection()).thenReturn(connection);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", replica0);
+        replicas.put("replica-1", replica1);
+        replicaPool = new ReplicaPool(replicas, 1);
+    }
+
+    @Test
+    public void shouldRoundRobinOverHealthyReplicas() {
+        String first = replicaPool.nextHealthyReplica().orElseThrow();
+        String second = replicaPool.nextHealthyReplica().orElseThrow();
+
+        assertNotEquals(first, second);
+        assertEquals(first, replicaPool.nextHealthyReplica().orElseThrow());
+    }
+
+    @Test
+    public void shouldEjectFailingReplicaAndReadmitAfterRecovery() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        replicaPool.checkHealth();
+
+        assertEquals(1, replicaPool.healthyCount());
+        for(int i = 0; i < 4; i++) {
+            assertEquals(Optional.of("replica-0"), replicaPool.nextHealthyReplica());
+        }
+
+        Mockito.reset(replica1);
+        when(replica1.getConnection()).thenReturn(connection);
+        replicaPool.checkHealth();
+
+        assertEquals(2, replicaPool.healthyCount());
+    }
+
+    @Test
+    public void shouldReturnEmptyWhenAllReplicasEjected() throws SQLException {
+        when(connection.isValid(1)).thenReturn(false);
+        replicaPool.checkHealth();
+
+        assertEquals(Optional.empty(), replicaPool.nextHealthyReplica());
+    }
+}
@@ -0,0 +1,161 @@
+package com.airplane.userpost.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedStreamTest {
+
+    @Test
+    public void shouldSendOnlyWhileReadyAndResumeOnReady() {
+        FakeCall call = new FakeCall();
+        List<Long> pageStarts = new ArrayList<>();
+        PagedStream.start(call, 2, (afterId, limit) -> {
+            pageStarts.add(afterId);
+            return ids(afterId, limit, 5);
+        }, Long::longValue, Function.identity());
+
+        call.ready = 3;
+        call.onReady.run();
+        assertEquals(List.of(1L, 2L, 3L), call.sent);
+        assertEquals(List.of(0L, 2L), pageStarts);
+        assertFalse(call.completed);
+
+        call.ready = 10;
+        call.onReady.run();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), call.sent);
+        assertEquals(List.of(0L, 2L, 4L), pageStarts);
+        assertTrue(call.completed);
+
+        call.onReady.run();
+        assertEquals(5, call.sent.size());
+    }
+
+    @Test
+    public void shouldCompleteAfterFullLastPageWithEmptyPage() {
+        FakeCall call = new FakeCall();
+        List<Long> pageStarts = new ArrayList<>();
+        PagedStream.start(call, 2, (afterId, limit) -> {
+            pageStarts.add(afterId);
+            return ids(afterId, limit, 4);
+        }, Long::longValue, Function.identity());
+
+        call.ready = 10;
+        call.onReady.run();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), call.sent);
+        assertEquals(List.of(0L, 2L, 4L), pageStarts);
+        assertTrue(call.completed);
+    }
+
+    @Test
+    public void shouldStopLoadingWhenCancelled() {
+        FakeCall call = new FakeCall();
+        List<Long> pageStarts = new ArrayList<>();
+        PagedStream.start(call, 2, (afterId, limit) -> {
+            pageStarts.add(afterId);
+            return ids(afterId, limit, 100);
+        }, Long::longValue, Function.identity());
+
+        call.ready = 1;
+        call.onReady.run();
+        call.cancelled = true;
+        call.onCancel.run();
+        call.ready = 10;
+        call.onReady.run();
+
+        assertEquals(List.of(1L), call.sent);
+        assertEquals(List.of(0L), pageStarts);
+        assertFalse(call.completed);
+    }
+
+    @Test
+    public void shouldFailCallWhenPageLoadThrows() {
+        FakeCall call = new FakeCall();
+        PagedStream.<Long, Long>start(call, 2, (afterId, limit) -> {
+            throw new IllegalStateException("database gone");
+        }, Long::longValue, Function.identity());
+
+        call.ready = 10;
+        call.onReady.run();
+
+        Status status = Status.fromThrowable(call.error);
+        assertEquals(Status.Code.INTERNAL, status.getCode());
+        assertEquals(GrpcCalls.INTERNAL_ERROR, status.getDescription());
+        assertTrue(call.sent.isEmpty());
+    }
+
+    private static List<Long> ids(long afterId, int limit, long last) {
+        return LongStream.rangeClosed(afterId + 1, Math.min(afterId + limit, last)).boxed().toList();
+    }
+
+    //ready counts down with every message, like a transport buffer filling up
+    private static class FakeCall extends ServerCallStreamObserver<Long> {
+        private final List<Long> sent = new ArrayList<>();
+        private int ready;
+        private boolean cancelled;
+        private boolean completed;
+        private Throwable error;
+        private Runnable onReady;
+        private Runnable onCancel;
+
+        @Override
+        public boolean isReady() {
+            return ready > 0;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void onNext(Long value) {
+            sent.add(value);
+            ready--;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            onReady = onReadyHandler;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            onCancel = onCancelHandler;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}
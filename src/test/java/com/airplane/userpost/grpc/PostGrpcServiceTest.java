@@ -0,0 +1,168 @@
+package com.airplane.userpost.grpc;
+
+import com.airplane.userpost.grpc.proto.GetByIdRequest;
+import com.airplane.userpost.grpc.proto.GetByIdsRequest;
+import com.airplane.userpost.grpc.proto.GetPostsResponse;
+import com.airplane.userpost.grpc.proto.ListRequest;
+import com.airplane.userpost.grpc.proto.PostServiceGrpc;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "userpost.grpc.list-page-size=2"
+})
+public class PostGrpcServiceTest {
+
+    @Autowired
+    private PostGrpcService postGrpcService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Server server;
+    private ManagedChannel channel;
+    private PostServiceGrpc.PostServiceBlockingStub stub;
+
+    @BeforeEach
+    public void initTest() throws IOException {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .directExecutor()
+                .addService(postGrpcService)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        stub = PostServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    public void closeChannel() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnPost_getPost() {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+        Post savedPost = postRepository.save(buildPost(user, "test title", "test text"));
+
+        com.airplane.userpost.grpc.proto.Post post =
+                stub.getPost(GetByIdRequest.newBuilder().setId(savedPost.getId()).build());
+
+        assertEquals(savedPost.getId(), post.getId());
+        assertEquals("test title", post.getTitle());
+        assertEquals("test text", post.getText());
+        assertEquals(user.getId(), post.getUserId());
+        assertTrue(post.hasCreatedAt());
+    }
+
+    @Test
+    public void shouldReturnNotFound_getPost() {
+        StatusRuntimeException exception = assertThrows(StatusRuntimeException.class,
+                () -> stub.getPost(GetByIdRequest.newBuilder().setId(100L).build()));
+
+        assertEquals(Status.Code.NOT_FOUND, exception.getStatus().getCode());
+        assertEquals("Post not found for Id: 100", exception.getStatus().getDescription());
+    }
+
+    @Test
+    public void shouldReturnInvalidArgument_NotPositiveId_getPost() {
+        StatusRuntimeException exception = assertThrows(StatusRuntimeException.class,
+                () -> stub.getPost(GetByIdRequest.newBuilder().setId(0L).build()));
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, exception.getStatus().getCode());
+        assertEquals("PostId must be positive number.", exception.getStatus().getDescription());
+    }
+
+    @Test
+    public void shouldReturnPostsInRequestedOrderWithMissingIds_getPosts() {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+        Post post1 = postRepository.save(buildPost(user, "title1", "text1"));
+        Post post2 = postRepository.save(buildPost(user, "title2", "text2"));
+        long missingId = post2.getId() + 100;
+
+        GetPostsResponse response = stub.getPosts(GetByIdsRequest.newBuilder()
+                .addIds(post2.getId())
+                .addIds(missingId)
+                .addIds(post1.getId())
+                .build());
+
+        assertEquals(List.of(post2.getId(), post1.getId()),
+                response.getPostsList().stream().map(com.airplane.userpost.grpc.proto.Post::getId).toList());
+        assertEquals(List.of(missingId), response.getMissingIdsList());
+    }
+
+    @Test
+    public void shouldReturnInvalidArgument_EmptyIds_getPosts() {
+        StatusRuntimeException exception = assertThrows(StatusRuntimeException.class,
+                () -> stub.getPosts(GetByIdsRequest.getDefaultInstance()));
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, exception.getStatus().getCode());
+        assertEquals("PostIds mustn't be empty.", exception.getStatus().getDescription());
+    }
+
+    @Test
+    public void shouldStreamAllPosts_listPosts() {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+        for(int i = 0; i < 5; i++) {
+            postRepository.save(buildPost(user, "title" + i, "text" + i));
+        }
+
+        //page size is 2, the posts come from three pages
+        List<com.airplane.userpost.grpc.proto.Post> posts = new ArrayList<>();
+        stub.listPosts(ListRequest.getDefaultInstance()).forEachRemaining(posts::add);
+
+        assertEquals(5, posts.size());
+        assertTrue(posts.stream().allMatch(post -> post.getUserId() == user.getId()));
+        assertEquals(List.of("title0", "title1", "title2", "title3", "title4"),
+                posts.stream().map(com.airplane.userpost.grpc.proto.Post::getTitle).toList());
+    }
+
+    private User buildUser(String username, String email) {
+        User user = new User();
+        user.setUserName(username);
+        user.setEmail(email);
+        user.setCreatedAt(LocalDateTime.now());
+
+        return user;
+    }
+
+    private Post buildPost(User user, String title, String text) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setText(text);
+        post.setUser(user);
+
+        return post;
+    }
+}
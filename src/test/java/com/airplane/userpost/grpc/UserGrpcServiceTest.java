@@ -0,0 +1,148 @@
+package com.airplane.userpost.grpc;
+
+import com.airplane.userpost.grpc.proto.GetByIdRequest;
+import com.airplane.userpost.grpc.proto.GetByIdsRequest;
+import com.airplane.userpost.grpc.proto.GetUsersResponse;
+import com.airplane.userpost.grpc.proto.ListRequest;
+import com.airplane.userpost.grpc.proto.UserServiceGrpc;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "userpost.grpc.list-page-size=2"
+})
+public class UserGrpcServiceTest {
+
+    @Autowired
+    private UserGrpcService userGrpcService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+
+    @BeforeEach
+    public void initTest() throws IOException {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .directExecutor()
+                .addService(userGrpcService)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    public void closeChannel() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnUserWithPosts_getUser() {
+        User savedUser = saveUserWithPosts("test name", "test mail", 2);
+
+        com.airplane.userpost.grpc.proto.User user =
+                stub.getUser(GetByIdRequest.newBuilder().setId(savedUser.getId()).build());
+
+        assertEquals(savedUser.getId(), user.getId());
+        assertEquals("test name", user.getUserName());
+        assertEquals("test mail", user.getEmail());
+        assertTrue(user.hasCreatedAt());
+        assertEquals(2, user.getPostsCount());
+        assertTrue(user.getPostsList().stream().allMatch(post -> post.getUserId() == savedUser.getId()));
+    }
+
+    @Test
+    public void shouldReturnNotFound_getUser() {
+        StatusRuntimeException exception = assertThrows(StatusRuntimeException.class,
+                () -> stub.getUser(GetByIdRequest.newBuilder().setId(100L).build()));
+
+        assertEquals(Status.Code.NOT_FOUND, exception.getStatus().getCode());
+        assertEquals("User not found with Id: 100", exception.getStatus().getDescription());
+    }
+
+    @Test
+    public void shouldReturnUsersInRequestedOrderWithMissingIds_getUsers() {
+        User user1 = saveUserWithPosts("test name1", "test mail1", 1);
+        User user2 = saveUserWithPosts("test name2", "test mail2", 3);
+        long missingId = user2.getId() + 100;
+
+        GetUsersResponse response = stub.getUsers(GetByIdsRequest.newBuilder()
+                .addIds(missingId)
+                .addIds(user2.getId())
+                .addIds(user1.getId())
+                .build());
+
+        assertEquals(List.of(user2.getId(), user1.getId()),
+                response.getUsersList().stream().map(com.airplane.userpost.grpc.proto.User::getId).toList());
+        assertEquals(3, response.getUsers(0).getPostsCount());
+        assertEquals(1, response.getUsers(1).getPostsCount());
+        assertEquals(List.of(missingId), response.getMissingIdsList());
+    }
+
+    @Test
+    public void shouldStreamAllUsers_listUsers() {
+        saveUserWithPosts("test name1", "test mail1", 1);
+        saveUserWithPosts("test name2", "test mail2", 2);
+        saveUserWithPosts("test name3", "test mail3", 0);
+
+        //page size is 2, the third user comes from the second page
+        List<com.airplane.userpost.grpc.proto.User> users = new ArrayList<>();
+        stub.listUsers(ListRequest.getDefaultInstance()).forEachRemaining(users::add);
+
+        assertEquals(3, users.size());
+        assertEquals(3, users.stream().mapToInt(com.airplane.userpost.grpc.proto.User::getPostsCount).sum());
+        assertTrue(users.get(0).getId() < users.get(1).getId() && users.get(1).getId() < users.get(2).getId());
+    }
+
+    private User saveUserWithPosts(String username, String email, int posts) {
+        User user = new User();
+        user.setUserName(username);
+        user.setEmail(email);
+        user.setCreatedAt(LocalDateTime.now());
+
+        for(int i = 0; i < posts; i++) {
+            Post post = new Post();
+            post.setTitle(username + " title" + i);
+            post.setText("text" + i);
+            post.setUser(user);
+            user.addPost(post);
+        }
+
+        return userRepository.save(user);
+    }
+}
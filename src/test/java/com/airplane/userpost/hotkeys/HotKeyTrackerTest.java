@@ -0,0 +1,209 @@
+package com.airplane.userpost.hotkeys;
+
+import com.airplane.userpost.invalidation.EntityKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotKeyTrackerTest {
+
+    @Test
+    public void shouldNeverUnderestimate() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        CountMinSketch base = sketch.emptyCopy();
+        for(long id = 0; id < 5_000; id++) {
+            for(int i = 0; i < id % 5; i++) sketch.increment(id, base);
+        }
+
+        for(long id = 0; id < 5_000; id++) {
+            assertTrue(sketch.estimate(id, base) >= id % 5);
+        }
+        assertEquals(256, sketch.width());
+        assertEquals(512, new CountMinSketch(1, 300).width());
+    }
+
+    @Test
+    public void shouldTrackHottestKeysFirst() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 3, 4, 4096, 2);
+        //ids 1..5 requested 50, 40, 30, 20, 10 times, 1000 cold ids once
+        for(int id = 1; id <= 5; id++) {
+            for(int i = 0; i < 60 - 10 * id; i++) tracker.record(id);
+        }
+        for(long id = 100; id < 1_100; id++) {
+            tracker.record(id);
+        }
+
+        List<HotKey> hottest = tracker.topKeys();
+
+        assertEquals(List.of(1L, 2L, 3L), hottest.stream().map(HotKey::id).toList());
+        assertEquals(50, hottest.getFirst().count());
+        assertEquals(30, tracker.getThreshold());
+        assertEquals(1_150, tracker.getRecordedCount());
+    }
+
+    @Test
+    public void shouldReplaceColdestWhenNewKeyOvertakes() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 2, 4, 4096, 2);
+        record(tracker, 1, 10);
+        record(tracker, 2, 5);
+        record(tracker, 3, 6);
+
+        assertEquals(List.of(new HotKey(1, 10), new HotKey(3, 6)), tracker.topKeys());
+    }
+
+    @Test
+    public void shouldForgetKeysOutsideSlidingWindow() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.USER, 5, 4, 4096, 3);
+        record(tracker, 1, 10);
+        tracker.rotate();
+        record(tracker, 2, 4);
+
+        assertEquals(10, tracker.estimate(1));
+        assertEquals(List.of(new HotKey(1, 10), new HotKey(2, 4)), tracker.topKeys());
+
+        tracker.rotate();
+        tracker.rotate();
+
+        assertEquals(0, tracker.estimate(1));
+        assertEquals(4, tracker.estimate(2));
+        assertEquals(List.of(new HotKey(2, 4)), tracker.topKeys());
+
+        tracker.rotate();
+
+        assertTrue(tracker.topKeys().isEmpty());
+        assertEquals(0, tracker.getThreshold());
+    }
+
+    @Test
+    public void shouldSeedCountsThatAgeOut() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 2, 4, 4096, 2);
+        tracker.seed(1, 40);
+        tracker.seed(2, 0);
+        record(tracker, 3, 5);
+
+        assertEquals(List.of(new HotKey(1, 40), new HotKey(3, 5)), tracker.topKeys());
+        assertEquals(5, tracker.getRecordedCount());
+
+        tracker.rotate();
+        tracker.rotate();
+
+        assertTrue(tracker.topKeys().isEmpty());
+    }
+
+    @Test
+    public void shouldKeepWarmSetBeyondTopK() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 2, 100, 4, 4096, 2);
+        //ids 1..50 requested 51 - id times
+        for(int id = 1; id <= 50; id++) {
+            record(tracker, id, 51 - id);
+        }
+
+        List<HotKey> warm = tracker.warmKeys();
+
+        assertEquals(2, tracker.topKeys().size());
+        assertEquals(50, warm.size());
+        assertEquals(new HotKey(1, 50), warm.getFirst());
+        assertEquals(new HotKey(50, 1), warm.getLast());
+        assertEquals(tracker.topKeys(), warm.subList(0, 2));
+    }
+
+    @Test
+    public void shouldKeepHottestOfWarmSetOnRotate() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 1, 5, 4, 4096, 3);
+        //room for 2 x 5 ids until the next rotation, of ids 11..15 only the top-k one is known
+        for(int id = 1; id <= 15; id++) {
+            record(tracker, id, id);
+        }
+        assertEquals(List.of(15L, 10L, 9L, 8L, 7L), tracker.warmKeys().stream().map(HotKey::id).toList());
+
+        tracker.rotate();
+        for(int id = 11; id <= 15; id++) {
+            record(tracker, id, 1);
+        }
+
+        //11..15 count id + 1 now, sketch counts survive the rotation
+        assertEquals(List.of(15L, 14L, 13L, 12L, 11L), tracker.warmKeys().stream().map(HotKey::id).toList());
+    }
+
+    @Test
+    public void shouldKeepSeededKeysWarm() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.USER, 1, 10, 4, 4096, 2);
+        tracker.seed(1, 5);
+        tracker.seed(2, 3);
+
+        assertEquals(List.of(new HotKey(1, 5), new HotKey(2, 3)), tracker.warmKeys());
+    }
+
+    @Test
+    public void shouldAdmitMoreFrequentCandidate() {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 5, 4, 4096, 2);
+        record(tracker, 1, 3);
+        record(tracker, 2, 1);
+
+        assertTrue(tracker.admits(1, 2));
+        assertFalse(tracker.admits(2, 1));
+        assertFalse(tracker.admits(3, 2));
+    }
+
+    @Test
+    public void shouldCountConcurrentRecords() throws InterruptedException {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 5, 4, 4096, 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for(int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for(int i = 0; i < 10_000; i++) tracker.record(i % 2 == 0 ? 7 : 1_000 + i);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(20_000, tracker.estimate(7));
+        assertEquals(new HotKey(7, 20_000), tracker.topKeys().getFirst());
+        assertEquals(40_000, tracker.getRecordedCount());
+    }
+
+    //records racing the swap may miss the new base, one per thread, until the next rotation sums them back in
+    @Test
+    public void shouldBoundCountsLostToConcurrentRotate() throws InterruptedException {
+        HotKeyTracker tracker = new HotKeyTracker(EntityKey.POST, 5, 4, 4096, 3);
+        CountDownLatch started = new CountDownLatch(4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for(int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                started.countDown();
+                for(int i = 0; i < 50_000; i++) tracker.record(7);
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        tracker.rotate();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        long estimate = tracker.estimate(7);
+        assertTrue(estimate >= 200_000 - 4 && estimate <= 200_000, "estimate " + estimate);
+
+        //the window cleared now never took a record, every count is back in the base
+        tracker.rotate();
+        assertEquals(200_000, tracker.estimate(7));
+    }
+
+    @Test
+    public void shouldRejectInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new HotKeyTracker(EntityKey.POST, 0, 4, 1024, 2));
+        assertThrows(IllegalArgumentException.class, () -> new HotKeyTracker(EntityKey.POST, 5, 0, 1024, 2));
+        assertThrows(IllegalArgumentException.class, () -> new HotKeyTracker(EntityKey.POST, 5, 4, 1024, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HotKeyTracker(EntityKey.POST, 5, 4, 4, 1024, 2));
+    }
+
+    private void record(HotKeyTracker tracker, long id, int times) {
+        for(int i = 0; i < times; i++) tracker.record(id);
+    }
+}
@@ -0,0 +1,67 @@
+package com.airplane.userpost.hotkeys;
+
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class HotKeysEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void shouldListHottestServedPosts() throws Exception {
+        User user = new User();
+        user.setUserName("hot user");
+        user.setEmail("hot@mail.com");
+        user.setCreatedAt(LocalDateTime.now());
+        user = userRepository.save(user);
+
+        Post post = new Post();
+        post.setTitle("title");
+        post.setText("text");
+        post.setUser(user);
+        post = postRepository.save(post);
+
+        for(int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/posts/" + post.getId())).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/posts/" + Long.MAX_VALUE)).andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/hotkeys/post"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == " + post.getId() + ")].count").value(contains(3)))
+                .andExpect(jsonPath("$[?(@.id == " + Long.MAX_VALUE + ")]").isEmpty());
+
+        mockMvc.perform(get("/actuator/hotkeys"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.post").isArray())
+                .andExpect(jsonPath("$.user").isArray());
+
+        mockMvc.perform(get("/actuator/hotkeys/comment"))
+                .andExpect(status().isNotFound());
+    }
+}
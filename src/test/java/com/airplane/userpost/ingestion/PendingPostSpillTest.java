@@ -0,0 +1,59 @@
+package com.airplane.userpost.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PendingPostSpillTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void shouldReadWhatWasWritten() throws IOException {
+        List<PendingPost> posts = List.of(new PendingPost(1, 7, "title", "text ünïcode"),
+                new PendingPost(2, 7, "no text", null));
+
+        Path spill = PendingPostSpill.write(dir.resolve("nested"), posts);
+
+        assertEquals(List.of(spill), PendingPostSpill.list(dir.resolve("nested")));
+        assertEquals(posts, PendingPostSpill.read(spill).orElseThrow());
+    }
+
+    @Test
+    public void shouldListSpillsOnlyInWriteOrder() throws IOException {
+        Path first = PendingPostSpill.write(dir, List.of(new PendingPost(1, 1, "title", "text")));
+        Path second = PendingPostSpill.write(dir, List.of(new PendingPost(2, 1, "title", "text")));
+        Files.writeString(dir.resolve("posts-0-0-3.tmp"), "interrupted spill");
+
+        assertEquals(List.of(first, second), PendingPostSpill.list(dir));
+        assertTrue(PendingPostSpill.list(dir.resolve("missing")).isEmpty());
+    }
+
+    @Test
+    public void shouldNotReadCorruptSpill() throws IOException {
+        Path spill = PendingPostSpill.write(dir, List.of(new PendingPost(1, 1, "title", "text")));
+        byte[] bytes = Files.readAllBytes(spill);
+        bytes[bytes.length - 6] ^= 1;
+        Files.write(spill, bytes);
+
+        assertTrue(PendingPostSpill.read(spill).isEmpty());
+        assertTrue(Files.exists(spill));
+    }
+
+    @Test
+    public void shouldNotReadTruncatedSpill() throws IOException {
+        Path spill = PendingPostSpill.write(dir, List.of(new PendingPost(1, 1, "title", "text")));
+        byte[] bytes = Files.readAllBytes(spill);
+        Files.write(spill, Arrays.copyOf(bytes, bytes.length - 8));
+
+        assertTrue(PendingPostSpill.read(spill).isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package com.airplane.userpost.ingestion;
+
+import com.airplane.userpost.exception.IngestionQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostBatchWriterTest {
+
+    private final List<Long> writtenIds = new CopyOnWriteArrayList<>();
+    private CountDownLatch firstWriteStarted;
+    private CountDownLatch releaseWrites;
+    private volatile boolean failWrites;
+    private PostBatchWriter writer;
+
+    @TempDir
+    Path spillDirectory;
+
+    @BeforeEach
+    public void initTest() {
+        firstWriteStarted = new CountDownLatch(1);
+        releaseWrites = new CountDownLatch(1);
+        writer = writer(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    public void stopWriter() {
+        releaseWrites.countDown();
+        if(writer.isRunning()) writer.stop();
+    }
+
+    @Test
+    public void shouldRejectBeforeStart() {
+        assertThrows(IngestionQueueFullException.class, () -> writer.enqueue(post(1)));
+    }
+
+    @Test
+    public void shouldApplyBackpressureWhenQueueIsFull() throws InterruptedException {
+        writer.start();
+        writer.enqueue(post(1));
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        writer.enqueue(post(2));
+        IngestionQueueFullException exception =
+                assertThrows(IngestionQueueFullException.class, () -> writer.enqueue(post(3)));
+
+        assertEquals("Post ingestion queue is full, retry later.", exception.getMessage());
+        assertEquals(1, writer.getQueueSize());
+    }
+
+    @Test
+    public void shouldFlushAcceptedPostsOnStop() throws InterruptedException {
+        writer.start();
+        writer.enqueue(post(1));
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+        writer.enqueue(post(2));
+
+        releaseWrites.countDown();
+        writer.stop();
+
+        assertEquals(List.of(1L, 2L), writtenIds);
+        assertEquals(0, writer.getQueueSize());
+        assertThrows(IngestionQueueFullException.class, () -> writer.enqueue(post(3)));
+    }
+
+    @Test
+    public void shouldSpillBatchAfterMaxAttempts() throws IOException, InterruptedException {
+        failWrites = true;
+        releaseWrites.countDown();
+        writer.start();
+        writer.enqueue(post(1));
+
+        awaitTrue(() -> writer.getSpilledCount() == 1);
+        writer.stop();
+
+        List<Path> spills = PendingPostSpill.list(spillDirectory);
+        assertEquals(1, spills.size());
+        assertEquals(List.of(post(1)), PendingPostSpill.read(spills.getFirst()).orElseThrow());
+        assertTrue(writtenIds.isEmpty());
+    }
+
+    @Test
+    public void shouldSpillUnwrittenPostsWhenShutdownTimesOut() throws IOException, InterruptedException {
+        writer = writer(Duration.ofMillis(100));
+        writer.start();
+        writer.enqueue(post(1));
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+        writer.enqueue(post(2));
+
+        //the first write never returns within the shutdown timeout
+        writer.stop();
+
+        List<Path> spills = PendingPostSpill.list(spillDirectory);
+        assertEquals(1, spills.size());
+        assertEquals(List.of(post(1), post(2)), PendingPostSpill.read(spills.getFirst()).orElseThrow());
+        assertEquals(2, writer.getSpilledCount());
+    }
+
+    @Test
+    public void shouldWriteSpilledPostsFirstAndDeleteSpill() throws IOException, InterruptedException {
+        PendingPostSpill.write(spillDirectory, List.of(post(1), post(2)));
+        releaseWrites.countDown();
+
+        writer.start();
+        writer.enqueue(post(3));
+        awaitTrue(() -> writtenIds.size() == 3);
+
+        assertEquals(List.of(1L, 2L, 3L), writtenIds);
+        assertTrue(PendingPostSpill.list(spillDirectory).isEmpty());
+    }
+
+    @Test
+    public void shouldKeepSpillWhenReplayFails() throws IOException, InterruptedException {
+        Path spill = PendingPostSpill.write(spillDirectory, List.of(post(1)));
+        failWrites = true;
+        releaseWrites.countDown();
+
+        writer.start();
+        writer.stop();
+
+        assertEquals(List.of(spill), PendingPostSpill.list(spillDirectory));
+    }
+
+    private PostBatchWriter writer(Duration shutdownTimeout) {
+        TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        return new PostBatchWriter(jdbcTemplate, transactionTemplate, Mockito.mock(ApplicationEventPublisher.class),
+                1, 10, Duration.ofMillis(50), Duration.ofMillis(10), shutdownTimeout, 3, spillDirectory) {
+            @Override
+            void write(List<PendingPost> batch) {
+                firstWriteStarted.countDown();
+                try {
+                    releaseWrites.await(5, TimeUnit.SECONDS);
+                } catch(InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                if(failWrites) throw new DataAccessResourceFailureException("database is down");
+                batch.forEach(post -> writtenIds.add(post.id()));
+            }
+        };
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while(!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    private PendingPost post(long id) {
+        return new PendingPost(id, 1L, "title" + id, "text" + id);
+    }
+}
@@ -0,0 +1,252 @@
+package com.airplane.userpost.ingestion;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.event.ChangeEvent;
+import com.airplane.userpost.invalidation.InvalidationBus;
+import com.airplane.userpost.invalidation.PostgresInvalidationTransport;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "userpost.ingestion.enabled=true",
+        "userpost.ingestion.id-block-size=3"
+})
+public class PostIngestionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostIdAllocator postIdAllocator;
+
+    @Autowired
+    private PostBatchWriter postBatchWriter;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private CommittedChanges committedChanges;
+
+    //what /posts/stream and the invalidation bus receive
+    @TestConfiguration
+    static class CommittedChanges {
+
+        private final List<ChangeEvent> events = new CopyOnWriteArrayList<>();
+
+        @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+        public void onChange(ChangeEvent event) {
+            events.add(event);
+        }
+    }
+
+    @BeforeEach
+    public void initTest() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldAcceptPostAndWriteItBehind() throws Exception {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+        PostDto postDto = new PostDto(null, "test title", "test text", null, null);
+
+        String body = mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(postDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.title").value("test title"))
+                .andExpect(jsonPath("$.userId").value(user.getId()))
+                .andExpect(jsonPath("$.createdAt").value(nullValue()))
+                .andReturn().getResponse().getContentAsString();
+        long postId = objectMapper.readValue(body, PostDto.class).id();
+
+        awaitTrue(() -> postRepository.existsById(postId));
+        assertEquals("test text", postRepository.findById(postId).orElseThrow().getText());
+        awaitTrue(() -> userRepository.findById(user.getId()).orElseThrow().getPostCount() == 1);
+    }
+
+    @Test
+    public void shouldPublishCreatedEventForWrittenPost() throws Exception {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+
+        String body = mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostDto(null, "title", "text", null, null))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        long postId = objectMapper.readValue(body, PostDto.class).id();
+
+        awaitTrue(() -> committedChanges.events.stream().anyMatch(event -> event.id() == postId));
+        ChangeEvent event = committedChanges.events.stream().filter(change -> change.id() == postId).findFirst().orElseThrow();
+
+        assertEquals("post.created", event.name());
+        assertEquals(user.getId(), event.userId());
+        PostDto created = assertInstanceOf(PostDto.class, event.data());
+        assertEquals("text", created.text());
+        assertEquals(postRepository.findById(postId).orElseThrow().getCreatedAt(), created.createdAt());
+    }
+
+    @Test
+    public void shouldReturnLocationOfAcceptedPost() throws Exception {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+
+        String body = mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostDto(null, "title", "text", null, null))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        long postId = objectMapper.readValue(body, PostDto.class).id();
+
+        mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostDto(null, "title", "text", null, null))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", endsWith("/posts/" + (postId + 1))));
+    }
+
+    @Test
+    public void shouldReturnNotFound_UnknownUser() throws Exception {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+        long unknownUserId = user.getId() + 100;
+
+        mockMvc.perform(post("/posts/{userId}", unknownUserId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostDto(null, "title", "text", null, null))))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Location"))
+                .andExpect(jsonPath("$.Error").value("User not found for Id: " + unknownUserId));
+    }
+
+    @Test
+    public void shouldDropQueuedPostOfDeletedUser() throws Exception {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+        long deletedUserId = user.getId() + 100;
+
+        //accepted before the user was deleted
+        long droppedId = postIdAllocator.nextId();
+        postBatchWriter.enqueue(new PendingPost(droppedId, deletedUserId, "title", "text"));
+
+        //a later post of an existing user is written, so the dropped one had its turn
+        String laterBody = mockMvc.perform(post("/posts/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostDto(null, "title", "text", null, null))))
+                .andReturn().getResponse().getContentAsString();
+        long laterId = objectMapper.readValue(laterBody, PostDto.class).id();
+
+        awaitTrue(() -> postRepository.existsById(laterId));
+        assertFalse(postRepository.existsById(droppedId));
+    }
+
+    //a spilled post replayed after its batch did commit
+    @Test
+    public void shouldSkipPostAlreadyWritten() throws Exception {
+        User user = userRepository.save(buildUser("test name", "test mail"));
+        long postId = acceptPost(user.getId(), "first");
+        awaitTrue(() -> postRepository.existsById(postId));
+
+        postBatchWriter.enqueue(new PendingPost(postId, user.getId(), "again", "text"));
+        long laterId = acceptPost(user.getId(), "later");
+
+        awaitTrue(() -> postRepository.existsById(laterId));
+        assertEquals("first", postRepository.findById(postId).orElseThrow().getTitle());
+        assertEquals(2, userRepository.findById(user.getId()).orElseThrow().getPostCount());
+        assertEquals(0, postBatchWriter.getSpilledCount());
+    }
+
+    @Test
+    public void shouldReturnBadRequest_BlankTitle() throws Exception {
+        mockMvc.perform(post("/posts/{userId}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostDto(null, " ", "text", null, null))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldHandOutUniqueIdsAcrossBlocks() {
+        Set<Long> ids = new HashSet<>();
+        for(int i = 0; i < 10; i++) {
+            assertTrue(ids.add(postIdAllocator.nextId()));
+        }
+    }
+
+    //SmartLifecycle stops by descending phase: web server, writer, bus, transport
+    @Test
+    public void shouldStopBetweenWebServerAndInvalidation() {
+        int webServerPhase = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1024;
+        PostgresInvalidationTransport transport = new PostgresInvalidationTransport(null, null, null, null,
+                "userpost_invalidation", Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        assertTrue(webServerPhase > postBatchWriter.getPhase());
+        assertTrue(postBatchWriter.getPhase() > invalidationBus.getPhase());
+        assertTrue(invalidationBus.getPhase() > transport.getPhase());
+    }
+
+    private long acceptPost(Long userId, String title) throws Exception {
+        String body = mockMvc.perform(post("/posts/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostDto(null, title, "text", null, null))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, PostDto.class).id();
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while(!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(20);
+        }
+    }
+
+    private User buildUser(String username, String email) {
+        User user = new User();
+        user.setUserName(username);
+        user.setEmail(email);
+        user.setCreatedAt(LocalDateTime.now());
+
+        return user;
+    }
+}
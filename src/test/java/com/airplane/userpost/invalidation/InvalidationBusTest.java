@@ -0,0 +1,172 @@
+package com.airplane.userpost.invalidation;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.event.ChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvalidationBusTest {
+
+    private LoopbackInvalidationTransport transport;
+    private RecordingListener nodeACache;
+    private RecordingListener nodeBCache;
+    private InvalidationBus nodeA;
+    private InvalidationBus nodeB;
+
+    @BeforeEach
+    public void initTest() {
+        transport = new LoopbackInvalidationTransport();
+        nodeACache = new RecordingListener();
+        nodeBCache = new RecordingListener();
+        //flush is driven by the tests, the interval only matters for stop()
+        nodeA = new InvalidationBus(transport, listeners(nodeACache), Duration.ofHours(1), 3);
+        nodeB = new InvalidationBus(transport, listeners(nodeBCache), Duration.ofHours(1), 3);
+        nodeA.start();
+        nodeB.start();
+    }
+
+    @AfterEach
+    public void stopBuses() {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    public void shouldEvictLocallyAtOnceAndRemotelyOnFlush() {
+        nodeA.onChange(ChangeEvent.postUpdated(new PostDto(7L, "title", "text", null, 3L)));
+
+        assertEquals(List.of(Set.of(EntityKey.post(7L), EntityKey.user(3L))), nodeACache.invalidations);
+        assertTrue(nodeBCache.invalidations.isEmpty());
+
+        nodeA.flush();
+
+        assertEquals(List.of(Set.of(EntityKey.post(7L), EntityKey.user(3L))), nodeBCache.invalidations);
+        //a node ignores its own messages
+        assertEquals(1, nodeACache.invalidations.size());
+        assertEquals(1, nodeA.getSentCount());
+        assertEquals(1, nodeB.getReceivedCount());
+        assertEquals(0, nodeA.getReceivedCount());
+    }
+
+    @Test
+    public void shouldCoalesceRepeatedKeysIntoOneMessage() {
+        for(int i = 0; i < 5; i++) {
+            nodeA.onChange(ChangeEvent.postUpdated(new PostDto(7L, "title" + i, "text", null, 3L)));
+        }
+        assertEquals(2, nodeA.getPendingCount());
+        assertEquals(8, nodeA.getCoalescedCount());
+
+        nodeA.flush();
+
+        assertEquals(1, nodeBCache.invalidations.size());
+        assertEquals(0, nodeA.getPendingCount());
+    }
+
+    @Test
+    public void shouldSplitLargeBatches() {
+        List<EntityKey> keys = new ArrayList<>();
+        for(long id = 1; id <= 7; id++) {
+            keys.add(EntityKey.post(id));
+        }
+        nodeA.invalidate(keys);
+
+        nodeA.flush();
+
+        assertEquals(3, nodeBCache.invalidations.size());
+        assertEquals(Set.of(EntityKey.post(7L)), nodeBCache.invalidations.get(2));
+        assertEquals(3, nodeA.getSentCount());
+    }
+
+    @Test
+    public void shouldInvalidatePostsKeptAndRemovedByUpdatedUser() {
+        UserDto userDto = new UserDto(3L, "name", "mail@mail.com", null);
+        userDto.addPost(new PostDto(7L, "title", "text", null, 3L));
+        userDto.addPost(new PostDto(null, "new", "text", null, 3L));
+
+        assertEquals(Set.of(EntityKey.user(3L), EntityKey.post(7L)),
+                InvalidationBus.keysOf(ChangeEvent.userUpdated(userDto, List.of(), List.of())));
+        assertEquals(Set.of(EntityKey.user(3L), EntityKey.post(7L), EntityKey.post(9L), EntityKey.user(4L)),
+                InvalidationBus.keysOf(ChangeEvent.userUpdated(userDto, List.of(9L), List.of(4L))));
+        assertEquals(Set.of(EntityKey.post(7L), EntityKey.user(3L)),
+                InvalidationBus.keysOf(ChangeEvent.postDeleted(7L, 3L)));
+        assertEquals(Set.of(EntityKey.user(3L), EntityKey.post(7L), EntityKey.post(8L)),
+                InvalidationBus.keysOf(ChangeEvent.userDeleted(3L, List.of(7L, 8L))));
+    }
+
+    @Test
+    public void shouldFlushPendingKeysOnStop() {
+        nodeA.invalidate(List.of(EntityKey.user(1L)));
+
+        nodeA.stop();
+
+        assertEquals(List.of(Set.of(EntityKey.user(1L))), nodeBCache.invalidations);
+        nodeA.start();
+    }
+
+    @Test
+    public void shouldResetCachesWhenTransportLostMessages() {
+        transport.reset();
+
+        assertEquals(1, nodeACache.resets);
+        assertEquals(1, nodeBCache.resets);
+    }
+
+    @Test
+    public void shouldKeepKeysWhenPublishFails() {
+        InvalidationTransport failing = new InvalidationTransport() {
+            @Override
+            public void publish(InvalidationMessage message) {
+                throw new IllegalStateException("connection refused");
+            }
+
+            @Override
+            public void subscribe(Receiver receiver) {
+            }
+        };
+        InvalidationBus bus = new InvalidationBus(failing, listeners(), Duration.ofHours(1), 3);
+        bus.start();
+        bus.invalidate(List.of(EntityKey.user(1L), EntityKey.user(2L)));
+
+        bus.flush();
+
+        assertEquals(2, bus.getPendingCount());
+        assertEquals(0, bus.getSentCount());
+        bus.stop();
+    }
+
+    private ObjectProvider<InvalidationListener> listeners(InvalidationListener... listeners) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        for(int i = 0; i < listeners.length; i++) {
+            beanFactory.addBean("listener" + i, listeners[i]);
+        }
+        return beanFactory.getBeanProvider(InvalidationListener.class);
+    }
+
+    private static class RecordingListener implements InvalidationListener {
+
+        private final List<Set<EntityKey>> invalidations = new CopyOnWriteArrayList<>();
+        private volatile int resets;
+
+        @Override
+        public void invalidate(Set<EntityKey> keys) {
+            invalidations.add(keys);
+        }
+
+        @Override
+        public void invalidateAll() {
+            resets++;
+        }
+    }
+}
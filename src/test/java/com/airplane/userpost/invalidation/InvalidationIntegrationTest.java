@@ -0,0 +1,97 @@
+package com.airplane.userpost.invalidation;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import com.airplane.userpost.service.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class InvalidationIntegrationTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @BeforeEach
+    public void initTest() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        listener.invalidations.clear();
+    }
+
+    @Test
+    public void shouldInvalidateUpdatedPostAndItsUserAfterCommit() {
+        User user = new User();
+        user.setUserName("test name");
+        user.setEmail("test mail");
+        user.setCreatedAt(LocalDateTime.now());
+        user = userRepository.save(user);
+
+        Post post = new Post();
+        post.setTitle("title");
+        post.setText("text");
+        post.setUser(user);
+        post = postRepository.save(post);
+
+        postService.updateExistingPost(post.getId(), new PostDto(null, "new title", "new text", null, null));
+
+        assertEquals(List.of(Set.of(EntityKey.post(post.getId()), EntityKey.user(user.getId()))),
+                listener.invalidations);
+    }
+
+    @Test
+    public void shouldNotInvalidateWhenTransactionRolledBack() {
+        assertThrows(RuntimeException.class, () ->
+                postService.updateExistingPost(1000L, new PostDto(null, "new title", "new text", null, null)));
+
+        assertTrue(listener.invalidations.isEmpty());
+    }
+
+    @TestConfiguration
+    static class ListenerConfig {
+
+        @Bean
+        public RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener implements InvalidationListener {
+
+        private final List<Set<EntityKey>> invalidations = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void invalidate(Set<EntityKey> keys) {
+            invalidations.add(keys);
+        }
+
+        @Override
+        public void invalidateAll() {
+        }
+    }
+}
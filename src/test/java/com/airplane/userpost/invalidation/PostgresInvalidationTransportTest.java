@@ -0,0 +1,56 @@
+package com.airplane.userpost.invalidation;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostgresInvalidationTransportTest {
+
+    @Test
+    public void shouldRoundTripPayload() {
+        InvalidationMessage message = new InvalidationMessage("node-1",
+                new LinkedHashSet<>(List.of(EntityKey.user(1L), EntityKey.post(42L))));
+
+        List<String> payloads = PostgresInvalidationTransport.encode(message, PostgresInvalidationTransport.MAX_PAYLOAD);
+
+        assertEquals(List.of("node-1|user:1,post:42"), payloads);
+        assertEquals(message, PostgresInvalidationTransport.decode(payloads.getFirst()));
+    }
+
+    @Test
+    public void shouldSplitPayloadsOverLimit() {
+        Set<EntityKey> keys = new LinkedHashSet<>();
+        for(long id = 1; id <= 5; id++) {
+            keys.add(EntityKey.post(id));
+        }
+
+        //"n|" plus two keys of six chars and a comma
+        List<String> payloads = PostgresInvalidationTransport.encode(new InvalidationMessage("n", keys), 15);
+
+        assertEquals(List.of("n|post:1,post:2", "n|post:3,post:4", "n|post:5"), payloads);
+        payloads.forEach(payload -> assertTrue(payload.length() <= 15));
+    }
+
+    @Test
+    public void shouldRejectMalformedPayload() {
+        assertThrows(IllegalArgumentException.class, () -> PostgresInvalidationTransport.decode("no origin"));
+        assertThrows(IllegalArgumentException.class, () -> PostgresInvalidationTransport.decode("n|user"));
+        assertThrows(IllegalArgumentException.class, () -> PostgresInvalidationTransport.decode("n|user:x"));
+    }
+
+    @Test
+    public void shouldRejectChannelThatIsNotAnIdentifier() {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+
+        assertThrows(IllegalArgumentException.class, () -> new PostgresInvalidationTransport(jdbcTemplate,
+                "jdbc:postgresql://localhost/db", "user", "password", "cache; drop table users",
+                Duration.ofSeconds(1), Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.airplane.userpost.job;
+
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class PostCountReconciliationJobTest {
+
+    @Autowired
+    private PostCountReconciliationJob reconciliationJob;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void initTest() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldRepairDriftedPostCounts() {
+        //posts cascaded from User bypass PostService, so post_count stays 0
+        User drifted = buildUser("test name1", "test mail1");
+        for(int i = 0; i < 3; i++) {
+            Post post = buildPost("title" + i, "text" + i);
+            post.setUser(drifted);
+            drifted.addPost(post);
+        }
+        Long driftedId = userRepository.save(drifted).getId();
+        Long consistentId = userRepository.save(buildUser("test name2", "test mail2")).getId();
+
+        assertEquals(1, reconciliationJob.reconcile());
+
+        assertEquals(3L, userRepository.findById(driftedId).orElseThrow().getPostCount());
+        assertEquals(0L, userRepository.findById(consistentId).orElseThrow().getPostCount());
+        assertEquals(0, reconciliationJob.reconcile());
+    }
+
+    private User buildUser(String username, String email) {
+        User user = new User();
+        user.setUserName(username);
+        user.setEmail(email);
+        user.setCreatedAt(LocalDateTime.now());
+
+        return user;
+    }
+
+    private Post buildPost(String title, String text) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setText(text);
+        post.setCreatedAt(LocalDateTime.now());
+
+        return post;
+    }
+}
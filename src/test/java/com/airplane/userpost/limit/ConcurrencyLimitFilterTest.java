@@ -0,0 +1,109 @@
+package com.airplane.userpost.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimiter limiter;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    public void initTest() {
+        limiter = new ConcurrencyLimiter(new GradientLimit(4, 4, 8, 0.2, 1.5, 600));
+        filter = new ConcurrencyLimitFilter(limiter, Duration.ofSeconds(2));
+    }
+
+    @Test
+    public void shouldPassRequestAndReleasePermit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/posts/1"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals(0, limiter.getInflight());
+        assertEquals(0, limiter.getRejected());
+    }
+
+    @Test
+    public void shouldNotLimitChangeStream() throws Exception {
+        for(int i = 0; i < 4; i++) {
+            assertNotNull(limiter.tryAcquire());
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/posts/stream"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals(4, limiter.getInflight());
+        assertEquals(0, limiter.getRejected());
+    }
+
+    @Test
+    public void shouldShedRequestOverLimit() throws Exception {
+        for(int i = 0; i < 4; i++) {
+            assertNotNull(limiter.tryAcquire());
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals(ConcurrencyLimitFilter.OVERLOADED_BODY, response.getContentAsString());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    public void shouldReleasePermitWhenChainThrows() {
+        MockFilterChain failingChain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(
+                new MockHttpServletRequest("GET", "/posts"), new MockHttpServletResponse(), failingChain));
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void shouldReleaseSlotOnlyOnce() {
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+
+        permit.release();
+        permit.release();
+
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void shouldExposeLimiterMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new ConcurrencyLimitConfig().concurrencyLimiterMetrics(limiter).bindTo(registry);
+
+        limiter.tryAcquire();
+        for(int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+        }
+
+        assertEquals(4, registry.get("userpost.limiter.limit").gauge().value());
+        assertEquals(4, registry.get("userpost.limiter.inflight").gauge().value());
+        assertEquals(2, registry.get("userpost.limiter.rejected").functionCounter().count());
+    }
+}
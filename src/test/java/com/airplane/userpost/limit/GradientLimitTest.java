@@ -0,0 +1,65 @@
+package com.airplane.userpost.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradientLimitTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    public void shouldGrowWhileLatencyIsSteadyAndLimitIsSaturated() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 0.2, 1.5, 600);
+
+        for(int i = 0; i < 200; i++) {
+            limit.update(10 * MILLI, limit.getLimit());
+        }
+
+        assertTrue(limit.getLimit() > 20, "limit " + limit.getLimit());
+    }
+
+    @Test
+    public void shouldShrinkWhenLatencyRises() {
+        GradientLimit limit = new GradientLimit(100, 4, 200, 0.2, 1.5, 600);
+        for(int i = 0; i < 50; i++) {
+            limit.update(10 * MILLI, limit.getLimit());
+        }
+        int steadyLimit = limit.getLimit();
+
+        for(int i = 0; i < 30; i++) {
+            limit.update(200 * MILLI, limit.getLimit());
+        }
+
+        assertTrue(limit.getLimit() < steadyLimit / 2, "limit " + limit.getLimit() + " from " + steadyLimit);
+    }
+
+    @Test
+    public void shouldNotGoBelowMinLimit() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 1.0, 1.0, 600);
+        limit.update(MILLI, 20);
+
+        for(int i = 0; i < 100; i++) {
+            limit.update(1000 * MILLI, limit.getLimit());
+        }
+
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void shouldKeepLimitWhenMostlyIdle() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 0.2, 1.5, 600);
+
+        for(int i = 0; i < 100; i++) {
+            limit.update(i % 2 == 0 ? MILLI : 500 * MILLI, 2);
+        }
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    public void shouldRejectInconsistentLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new GradientLimit(2, 4, 200, 0.2, 1.5, 600));
+        assertThrows(IllegalArgumentException.class, () -> new GradientLimit(20, 4, 200, 0, 1.5, 600));
+    }
+}
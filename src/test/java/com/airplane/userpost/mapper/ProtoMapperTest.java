@@ -0,0 +1,69 @@
+package com.airplane.userpost.mapper;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.exception.MapperException;
+import com.airplane.userpost.grpc.proto.Post;
+import com.airplane.userpost.grpc.proto.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProtoMapperTest {
+
+    private ProtoMapper protoMapper;
+
+    @BeforeEach
+    public void initTest() {
+        protoMapper = new ProtoMapper();
+    }
+
+    @Test
+    public void shouldReturnPostMessage() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_000_000);
+
+        Post post = protoMapper.toProto(new PostDto(1L, "test title", "some text", createdAt, 2L));
+
+        assertEquals(1L, post.getId());
+        assertEquals("test title", post.getTitle());
+        assertEquals("some text", post.getText());
+        assertEquals(2L, post.getUserId());
+        assertEquals(createdAt, protoMapper.toLocalDateTime(post.getCreatedAt()));
+    }
+
+    @Test
+    public void shouldLeaveNullFieldsUnset() {
+        Post post = protoMapper.toProto(new PostDto(null, "test title", null, null, null));
+
+        assertEquals(0L, post.getId());
+        assertEquals("", post.getText());
+        assertFalse(post.hasCreatedAt());
+    }
+
+    @Test
+    public void shouldReturnUserMessageWithPosts() {
+        LocalDateTime createdAt = LocalDateTime.now();
+        UserDto userDto = new UserDto(1L, "test name", "test mail", createdAt);
+        userDto.addPost(new PostDto(1L, "title1", "text1", createdAt, 1L));
+        userDto.addPost(new PostDto(2L, "title2", "text2", createdAt, 1L));
+
+        User user = protoMapper.toProto(userDto);
+
+        assertEquals(1L, user.getId());
+        assertEquals("test name", user.getUserName());
+        assertEquals("test mail", user.getEmail());
+        assertEquals(createdAt, protoMapper.toLocalDateTime(user.getCreatedAt()));
+        assertEquals(2, user.getPostsCount());
+    }
+
+    @Test
+    public void shouldThrowMapperExceptionWhenDtoIsNull() {
+        Exception exception = assertThrows(MapperException.class,
+                () -> protoMapper.toProto((UserDto) null));
+
+        assertEquals("Mapper received null UserDto.", exception.getMessage());
+    }
+}
@@ -2,6 +2,7 @@ package com.airplane.userpost.mapper;
 
 import com.airplane.userpost.dto.PostDto;
 import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.dto.UserSummaryDto;
 import com.airplane.userpost.exception.MapperException;
 import com.airplane.userpost.model.Post;
 import com.airplane.userpost.model.User;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -41,8 +43,9 @@ public class UserMapperTest {
         UserDto expected = buildUserDto(1L, "testname", "testtext");
         PostDto postDto1 = buildPostDto(1L, "title1", "text1", expected.getId());
         PostDto postDto2 = buildPostDto(2L, "title2", "text2", expected.getId());
-        expected.addPost(postDto1);
+        //newest first
         expected.addPost(postDto2);
+        expected.addPost(postDto1);
 
         when(postMapper.toDto(post1)).thenReturn(postDto1);
         when(postMapper.toDto(post2)).thenReturn(postDto2);
@@ -52,6 +55,26 @@ public class UserMapperTest {
         assertEquals(expected, userDto);
     }
 
+    @Test
+    public void shouldOrderPostsNewestFirst() {
+        User user = buildUser(1L, "testname", "testtext");
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        PostDto older = new PostDto(5L, "older", "text", createdAt.minusDays(1), 1L);
+        PostDto sameTimeLowerId = new PostDto(6L, "same time", "text", createdAt, 1L);
+        PostDto sameTimeHigherId = new PostDto(7L, "same time", "text", createdAt, 1L);
+        PostDto unsaved = new PostDto(null, "unsaved", "text", null, 1L);
+        for(PostDto postDto: List.of(sameTimeLowerId, unsaved, older, sameTimeHigherId)) {
+            Post post = buildPost(postDto.id(), postDto.title(), postDto.text());
+            post.setUser(user);
+            user.addPost(post);
+            when(postMapper.toDto(post)).thenReturn(postDto);
+        }
+
+        UserDto userDto = userMapper.toDto(user);
+
+        assertEquals(List.of(unsaved, sameTimeHigherId, sameTimeLowerId, older), userDto.getPosts());
+    }
+
     @Test
     public void shouldThrowMapperExceptionWhenNullUserReceived() {
         Exception exception = assertThrows(MapperException.class,
@@ -60,6 +83,26 @@ public class UserMapperTest {
         assertEquals("Mapper received null User.", exception.getMessage());
     }
 
+    //ToSummaryDto tests
+
+    @Test
+    public void shouldReturnUserSummaryDto() {
+        User user = buildUser(1L, "testname", "testtext");
+        user.setPostCount(5L);
+
+        UserSummaryDto expected = new UserSummaryDto(1L, "testname", "testtext", user.getCreatedAt(), 5L);
+
+        assertEquals(expected, userMapper.toSummaryDto(user));
+    }
+
+    @Test
+    public void shouldThrowMapperExceptionWhenNullUserReceived_toSummaryDto() {
+        Exception exception = assertThrows(MapperException.class,
+                () -> userMapper.toSummaryDto(null));
+
+        assertEquals("Mapper received null User.", exception.getMessage());
+    }
+
     //ToUser tests
 
     @Test
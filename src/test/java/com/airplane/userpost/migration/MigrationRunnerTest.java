@@ -0,0 +1,97 @@
+package com.airplane.userpost.migration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MigrationRunnerTest {
+
+    private static final Resource CHANGE_LOG = new ClassPathResource("db/changelog/db.changelog-master.xml");
+
+    private String url;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void initTest() {
+        url = "jdbc:h2:mem:migration_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+
+    @Test
+    public void shouldRecognizeMigrateOnlyFlag() {
+        assertTrue(MigrationRunner.isRequested(new String[]{"--server.port=0", "--migrate-only"}));
+        assertFalse(MigrationRunner.isRequested(new String[]{"--server.port=0"}));
+    }
+
+    @Test
+    public void shouldApplyChangelogAndExit() {
+        int exitCode = migrate();
+
+        assertEquals(0, exitCode);
+        assertEquals(5, jdbcTemplate.queryForObject("select count(*) from DATABASECHANGELOG", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from posts", Integer.class));
+    }
+
+    @Test
+    public void shouldPassSchemaCheckAfterMigration() {
+        migrate();
+
+        assertDoesNotThrow(() -> new SchemaVersionCheck(jdbcTemplate, CHANGE_LOG, "DATABASECHANGELOG", true).verify());
+    }
+
+    @Test
+    public void shouldFailSchemaCheckWhenChangesetMissing() {
+        migrate();
+        jdbcTemplate.update("delete from DATABASECHANGELOG where id = '4'");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new SchemaVersionCheck(jdbcTemplate, CHANGE_LOG, "DATABASECHANGELOG", true).verify());
+
+        assertEquals("Database schema is behind the application, changesets [4::Eugene Shevchenko] are not applied. "
+                + "Run java -jar userpost.jar --migrate-only first.", exception.getMessage());
+    }
+
+    @Test
+    public void shouldFailSchemaCheckWithoutChangelogTable() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new SchemaVersionCheck(jdbcTemplate, CHANGE_LOG, "DATABASECHANGELOG", true).verify());
+
+        assertTrue(exception.getMessage().startsWith("Database schema version unknown"));
+    }
+
+    @Test
+    public void shouldSkipSchemaCheckWhenDisabled() {
+        assertDoesNotThrow(() ->
+                new SchemaVersionCheck(jdbcTemplate, CHANGE_LOG, "DATABASECHANGELOG", false).afterSingletonsInstantiated());
+    }
+
+    @Test
+    public void shouldReadChangeSetsOfMasterChangelog() {
+        Set<String> changeSets = SchemaVersionCheck.readChangeSets(CHANGE_LOG);
+
+        assertEquals(Set.of("1::Eugene Shevchenko", "2::Eugene Shevchenko", "3::Eugene Shevchenko",
+                "4::Eugene Shevchenko", "5::Eugene Shevchenko"), changeSets);
+        assertThrows(IllegalStateException.class,
+                () -> SchemaVersionCheck.readChangeSets(new ByteArrayResource("<databaseChangeLog/>".getBytes())));
+    }
+
+    //pods run with Liquibase disabled, the runner must enable it regardless
+    private int migrate() {
+        return MigrationRunner.run(new String[]{
+                "--migrate-only",
+                "--spring.liquibase.enabled=false",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--logging.level.root=WARN"});
+    }
+}
@@ -0,0 +1,187 @@
+package com.airplane.userpost.model;
+
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class UserPostsTest {
+
+    private static final int POSTS = 100_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Long userId;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void initTest() {
+        deleteAll();
+
+        User user = new User();
+        user.setUserName("many posts");
+        user.setEmail("many@mail.com");
+        userId = userRepository.save(user).getId();
+
+        List<Object[]> rows = LongStream.range(0, POSTS)
+                .mapToObj(i -> new Object[]{userId, "title" + i, "text" + i})
+                .toList();
+        jdbcTemplate.batchUpdate("insert into posts (user_id, title, text) values (?, ?, ?)", rows);
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    //deleteAll() through the repositories would load every post of the user
+    @AfterEach
+    public void deleteAll() {
+        jdbcTemplate.update("delete from posts");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    public void shouldAddPostWithoutLoadingCollection() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            statistics.clear();
+
+            //owner set before persist, as UserService does, so the insert carries user_id
+            Post post = buildPost("new title", "new text");
+            post.setUser(user);
+            entityManager.persist(post);
+            user.addPost(post);
+            entityManager.flush();
+
+            assertFalse(Hibernate.isInitialized(user.getPosts()));
+            assertNotNull(post.getId());
+            assertEquals(0, statistics.getCollectionLoadCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+            //the id from the sequence, element existence check and the insert
+            assertEquals(3, statistics.getPrepareStatementCount());
+        });
+
+        assertEquals(POSTS + 1, postRepository.count());
+    }
+
+    @Test
+    public void shouldRemovePostWithoutLoadingCollection() {
+        Long postId = jdbcTemplate.queryForObject("select max(id) from posts where user_id = ?", Long.class, userId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            Post post = entityManager.find(Post.class, postId);
+            statistics.clear();
+
+            user.removePost(post);
+            entityManager.flush();
+
+            assertFalse(Hibernate.isInitialized(user.getPosts()));
+            assertEquals(0, statistics.getCollectionLoadCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+            //element existence check and the orphan delete
+            assertEquals(2, statistics.getPrepareStatementCount());
+        });
+
+        assertFalse(postRepository.existsById(postId));
+        assertEquals(POSTS - 1, postRepository.count());
+    }
+
+    @Test
+    public void shouldNotLoadCollectionForUserIdentity() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            statistics.clear();
+
+            Set<User> users = new HashSet<>(List.of(user));
+            assertTrue(users.contains(entityManager.getReference(User.class, userId)));
+            assertFalse(user.toString().isEmpty());
+
+            assertFalse(Hibernate.isInitialized(user.getPosts()));
+            assertEquals(0, statistics.getPrepareStatementCount());
+        });
+    }
+
+    @Test
+    public void shouldFindPersistedPostInLoadedSet() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            Hibernate.initialize(user.getPosts());
+            assertEquals(POSTS, user.getPosts().size());
+
+            //the sequence assigns the id on persist, before the post is hashed into the set
+            Post post = buildPost("new title", "new text");
+            post.setUser(user);
+            entityManager.persist(post);
+            assertNotNull(post.getId());
+            user.addPost(post);
+            entityManager.flush();
+
+            assertTrue(user.getPosts().contains(post));
+            assertTrue(user.getPosts().contains(entityManager.getReference(Post.class, post.getId())));
+            assertEquals(POSTS + 1, user.getPosts().size());
+
+            user.removePost(post);
+            entityManager.flush();
+
+            assertEquals(POSTS, user.getPosts().size());
+        });
+
+        assertEquals(POSTS, postRepository.count());
+    }
+
+    @Test
+    public void shouldCompareEntitiesById() {
+        Post first = buildPost("title", "text");
+        Post second = buildPost("title", "text");
+
+        //not inserted yet, only equal to itself
+        assertNotEquals(first, second);
+        assertEquals(first, first);
+
+        first.setId(1L);
+        Post loaded = buildPost("changed", "text");
+        loaded.setId(1L);
+        assertEquals(first, loaded);
+        assertEquals(first.hashCode(), loaded.hashCode());
+    }
+
+    private Post buildPost(String title, String text) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setText(text);
+
+        return post;
+    }
+}
@@ -0,0 +1,150 @@
+package com.airplane.userpost.repository;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//The data-modifying statements of the write fragments, the controller tests cover them through the services
+@SpringBootTest
+@ActiveProfiles("test")
+public class WriteRepositoryPostgresTest {
+
+    private static final long MISSING_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void deleteAll() {
+        jdbcTemplate.update("delete from posts");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    public void shouldInsertPostAndIncrementPostCount() {
+        Long userId = saveUser("writer");
+
+        PostDto post = postRepository.insertPost(userId, "title", "text").orElseThrow();
+
+        assertNotNull(post.id());
+        assertNotNull(post.createdAt());
+        assertEquals(userId, post.userId());
+        assertEquals(1L, postCount(userId));
+        assertEquals("title", jdbcTemplate.queryForObject("select title from posts where id = ?",
+                String.class, post.id()));
+    }
+
+    @Test
+    public void shouldNotInsertPostForMissingUser() {
+        assertTrue(postRepository.insertPost(MISSING_ID, "title", "text").isEmpty());
+        assertEquals(0L, postRepository.count());
+    }
+
+    @Test
+    public void shouldUpdatePostReturningOwner() {
+        Long userId = saveUser("editor");
+        PostDto inserted = postRepository.insertPost(userId, "title", "text").orElseThrow();
+
+        PostDto updated = postRepository.updatePost(inserted.id(), "new title", "new text").orElseThrow();
+
+        assertEquals(inserted.id(), updated.id());
+        assertEquals(userId, updated.userId());
+        assertEquals(inserted.createdAt(), updated.createdAt());
+        assertEquals("new title", jdbcTemplate.queryForObject("select title from posts where id = ?",
+                String.class, inserted.id()));
+        assertTrue(postRepository.updatePost(MISSING_ID, "title", "text").isEmpty());
+    }
+
+    @Test
+    public void shouldDeletePostAndDecrementPostCount() {
+        Long userId = saveUser("deleter");
+        PostDto post = postRepository.insertPost(userId, "title", "text").orElseThrow();
+
+        assertEquals(Optional.of(userId), postRepository.deletePost(post.id()));
+        assertEquals(0L, postCount(userId));
+        assertFalse(postRepository.existsById(post.id()));
+        assertTrue(postRepository.deletePost(post.id()).isEmpty());
+        assertEquals(0L, postCount(userId));
+    }
+
+    //posts and user go in one statement, the NO ACTION foreign key is checked when the posts are already gone
+    @Test
+    public void shouldDeleteUserWithPostsInOneStatement() {
+        Long userId = saveUser("owner");
+        Long otherId = saveUser("other");
+        List<Long> postIds = List.of(
+                postRepository.insertPost(userId, "first", "text").orElseThrow().id(),
+                postRepository.insertPost(userId, "second", "text").orElseThrow().id());
+        Long otherPostId = postRepository.insertPost(otherId, "kept", "text").orElseThrow().id();
+
+        List<Long> deleted = userRepository.deleteUserWithPosts(userId).orElseThrow();
+
+        assertEquals(postIds.size(), deleted.size());
+        assertTrue(deleted.containsAll(postIds));
+        assertFalse(userRepository.existsById(userId));
+        assertEquals(List.of(otherPostId), jdbcTemplate.queryForList("select id from posts", Long.class));
+        assertTrue(userRepository.deleteUserWithPosts(userId).isEmpty());
+    }
+
+    @Test
+    public void shouldDeleteUserWithoutPosts() {
+        Long userId = saveUser("lonely");
+
+        assertEquals(Optional.of(List.of()), userRepository.deleteUserWithPosts(userId));
+        assertFalse(userRepository.existsById(userId));
+    }
+
+    //persist() takes the id from posts_id_seq before the insert, the SQL insert draws from the same sequence
+    @Test
+    public void shouldDrawPostIdsFromColumnSequence() {
+        Long userId = saveUser("sequenced");
+
+        Long persistedId = transactionTemplate.execute(status -> {
+            Post post = new Post();
+            post.setTitle("persisted");
+            post.setText("text");
+            post.setUser(userRepository.findById(userId).orElseThrow());
+            postRepository.save(post);
+            Long id = post.getId();
+            assertNotNull(id);
+            assertEquals(0L, jdbcTemplate.queryForObject("select count(*) from posts where id = ?", Long.class, id));
+            return id;
+        });
+        Long insertedId = postRepository.insertPost(userId, "inserted", "text").orElseThrow().id();
+
+        assertTrue(postRepository.existsById(persistedId));
+        assertTrue(insertedId > persistedId);
+    }
+
+    private Long saveUser(String userName) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setEmail(userName + "@mail.com");
+        return userRepository.save(user).getId();
+    }
+
+    private Long postCount(Long userId) {
+        return jdbcTemplate.queryForObject("select post_count from users where id = ?", Long.class, userId);
+    }
+}
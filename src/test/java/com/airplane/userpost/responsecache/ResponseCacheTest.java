@@ -0,0 +1,213 @@
+package com.airplane.userpost.responsecache;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final HotKeyTracker postHotKeys = new HotKeyTracker(EntityKey.POST, 10, 4, 1024, 2);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void shouldServeCachedBytesWithEtag() throws IOException {
+        ResponseCache cache = cache(1 << 20, Duration.ZERO);
+
+        MockHttpServletResponse first = serve(cache, 1, new MockHttpServletRequest());
+        MockHttpServletResponse second = serve(cache, 1, new MockHttpServletRequest());
+
+        assertEquals(1, loads.get());
+        assertEquals(200, second.getStatus());
+        assertEquals("application/json", second.getContentType());
+        assertEquals(objectMapper.writeValueAsString(post(1, "title")), second.getContentAsString());
+        assertEquals(second.getContentAsByteArray().length, second.getContentLength());
+        assertEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+        assertEquals("Accept, Accept-Encoding", second.getHeader("Vary"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        //hits skip the service, the sketch still counts them
+        assertEquals(1, postHotKeys.estimate(1));
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedForMatchingEtag() throws IOException {
+        ResponseCache cache = cache(1 << 20, Duration.ZERO);
+        String etag = serve(cache, 1, new MockHttpServletRequest()).getHeader("ETag");
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"other\", W/" + etag);
+        MockHttpServletResponse response = serve(cache, 1, request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader("ETag"));
+        assertEquals("Accept, Accept-Encoding", response.getHeader("Vary"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void shouldServeGzipCopyOfLargeBodies() throws IOException {
+        ResponseCache cache = cache(1 << 20, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "br, gzip;q=0.8");
+
+        MockHttpServletResponse response = serve(cache, 1, "x".repeat(4096), request);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept, Accept-Encoding", response.getHeader("Vary"));
+        assertTrue(response.getHeader("ETag").endsWith("-gzip\""));
+        assertTrue(response.getContentLength() < 4096);
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(objectMapper.writeValueAsString(post(1, "x".repeat(4096))), new String(in.readAllBytes()));
+        }
+
+        MockHttpServletRequest identity = new MockHttpServletRequest();
+        identity.addHeader("Accept-Encoding", "gzip;q=0");
+        assertNull(serve(cache, 1, identity).getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void shouldLeaveBinaryFormatsToConverters() throws IOException {
+        ResponseCache cache = cache(1 << 20, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept", "application/json;q=0.5, application/cbor");
+
+        assertFalse(cache.serve(EntityKey.post(1), () -> post(1, "title"), request, new MockHttpServletResponse()));
+
+        MockHttpServletRequest wildcard = new MockHttpServletRequest();
+        wildcard.addHeader("Accept", "*/*");
+        assertTrue(ResponseCache.prefersJson(wildcard));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void shouldNotCacheBodyLoadedBeforeInvalidation() {
+        ResponseCache cache = cache(1 << 20, Duration.ZERO);
+        EntityKey key = EntityKey.post(1);
+        long version = cache.version(key);
+
+        cache.invalidate(Set.of(key));
+        cache.fill(key, version, post(1, "old"));
+
+        assertNull(cache.get(key));
+
+        cache.fill(key, cache.version(key), post(1, "new"));
+        assertNotNull(cache.get(key));
+        cache.invalidate(Set.of(key, EntityKey.user(3)));
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    @Test
+    public void shouldNotCacheWithinReplicaLagAfterInvalidation() {
+        ResponseCache cache = cache(1 << 20, Duration.ofMinutes(1));
+        EntityKey key = EntityKey.post(1);
+        cache.fill(key, cache.version(key), post(1, "title"));
+        assertNotNull(cache.get(key));
+
+        cache.invalidate(Set.of(key));
+        cache.fill(key, cache.version(key), post(1, "title"));
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void shouldEvictOldestOnlyForHotterKeys() {
+        int entrySize = cache(1 << 20, Duration.ZERO).fill(EntityKey.post(1), 0, post(1, "title")).size();
+        ResponseCache cache = cache(2L * entrySize, Duration.ZERO);
+        postHotKeys.record(1);
+        postHotKeys.record(1);
+        postHotKeys.record(3);
+
+        cache.fill(EntityKey.post(1), 0, post(1, "title"));
+        cache.fill(EntityKey.post(2), 0, post(2, "title"));
+        //post 1 is the oldest and read more often than post 3
+        cache.fill(EntityKey.post(3), 0, post(3, "title"));
+
+        assertNull(cache.get(EntityKey.post(3)));
+        assertEquals(1, cache.getRejectedCount());
+
+        //post 2 is the oldest now and never read
+        cache.fill(EntityKey.post(3), 0, post(3, "title"));
+
+        assertNotNull(cache.get(EntityKey.post(3)));
+        assertNull(cache.get(EntityKey.post(2)));
+        assertNotNull(cache.get(EntityKey.post(1)));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2L * entrySize, cache.getUsedBytes());
+    }
+
+    @Test
+    public void shouldCopyOnlyAdmittedBodiesOffHeap() throws IOException {
+        int entrySize = cache(1 << 20, Duration.ZERO).fill(EntityKey.post(1), 0, post(1, "title")).size();
+        ResponseCache cache = cache(entrySize, Duration.ZERO);
+        postHotKeys.record(1);
+
+        CachedResponse admitted = cache.fill(EntityKey.post(1), 0, post(1, "title"));
+        //post 1 is read more often, post 2 is served from the heap and dropped
+        CachedResponse rejected = cache.fill(EntityKey.post(2), 0, post(2, "title"));
+
+        assertFalse(admitted.isOffHeap());
+        assertFalse(rejected.isOffHeap());
+        assertNull(cache.get(EntityKey.post(2)));
+        assertTrue(cache.get(EntityKey.post(1)).isOffHeap());
+        assertEquals(entrySize, cache.getUsedBytes());
+
+        MockHttpServletResponse fromHeap = new MockHttpServletResponse();
+        rejected.write(fromHeap, null, false);
+        assertEquals(objectMapper.writeValueAsString(post(2, "title")), fromHeap.getContentAsString());
+    }
+
+    @Test
+    public void shouldSkipWarmingInvalidatedKeys() {
+        ResponseCache cache = cache(1 << 20, Duration.ZERO);
+        cache.invalidate(Set.of(EntityKey.post(2)));
+
+        cache.warmPosts(List.of(post(1, "title"), post(2, "title")));
+
+        assertNotNull(cache.get(EntityKey.post(1)));
+        assertNull(cache.get(EntityKey.post(2)));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    private ResponseCache cache(long maxBytes, Duration fillDelay) {
+        return new ResponseCache(objectMapper, Map.of(EntityKey.POST, postHotKeys), () -> false, true,
+                maxBytes, (int) Math.min(maxBytes, 1 << 20), 1024, fillDelay);
+    }
+
+    private MockHttpServletResponse serve(ResponseCache cache, long id, MockHttpServletRequest request) throws IOException {
+        return serve(cache, id, "title", request);
+    }
+
+    private MockHttpServletResponse serve(ResponseCache cache, long id, String title,
+                                          MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(cache.serve(EntityKey.post(id), () -> {
+            loads.incrementAndGet();
+            return post(id, title);
+        }, request, response));
+        return response;
+    }
+
+    private static PostDto post(long id, String title) {
+        return new PostDto(id, title, "text", null, 3L);
+    }
+}
@@ -1,25 +1,36 @@
 package com.airplane.userpost.service;
 
+import com.airplane.userpost.coalescing.BatchLoaders;
+import com.airplane.userpost.coalescing.SingleFlight;
+import com.airplane.userpost.dto.BatchResultDto;
 import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.PostField;
+import com.airplane.userpost.event.ChangeEvent;
 import com.airplane.userpost.exception.PostNotFoundException;
 import com.airplane.userpost.exception.UserNotFoundException;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
 import com.airplane.userpost.mapper.PostMapper;
 import com.airplane.userpost.model.Post;
 import com.airplane.userpost.model.User;
 import com.airplane.userpost.repository.PostRepository;
-import com.airplane.userpost.repository.UserRepository;
 import jakarta.validation.ConstraintViolationException;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
@@ -32,14 +43,19 @@ public class PostServiceTest {
     private PostService postService;
     private PostMapper postMapper;
     private PostRepository postRepository;
-    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private HotKeyTracker postHotKeys;
 
     @BeforeEach
     public void initTest() {
         postMapper = Mockito.mock(PostMapper.class);
         postRepository = Mockito.mock(PostRepository.class);
-        userRepository = Mockito.mock(UserRepository.class);
-        PostService service = new PostService(postRepository, userRepository, postMapper);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        postHotKeys = new HotKeyTracker(EntityKey.POST, 10, 4, 1024, 2);
+        PostService service = new PostService(postRepository, postMapper, eventPublisher,
+                new SingleFlight<>(EntityKey.POST, TransactionOperations.withoutTransaction(), () -> false, true),
+                new BatchLoaders(TransactionOperations.withoutTransaction(), false, Duration.ZERO, 1),
+                postHotKeys);
 
         var validatorFactory = new LocalValidatorFactoryBean();
         validatorFactory.afterPropertiesSet();
@@ -106,6 +122,85 @@ public class PostServiceTest {
         PostDto postDto = postService.getPostById(1L);
 
         assertEquals(expectedPost, postDto);
+        assertEquals(1, postHotKeys.estimate(1L));
+    }
+
+    @Test
+    public void shouldReturnFoundPostsInRequestedOrder_getPostsByIds() {
+        User user = buildUser(1L, "testname1", "example@mail.com");
+        Post post1 = buildPost(1L, "title1", "text1");
+        Post post3 = buildPost(3L, "title3", "text3");
+        post1.setUser(user);
+        post3.setUser(user);
+
+        PostDto postDto1 = buildPostDto(1L, "title1", "text1", 1L);
+        PostDto postDto3 = buildPostDto(3L, "title3", "text3", 1L);
+
+        when(postRepository.findAllById(Set.of(3L, 2L, 1L))).thenReturn(List.of(post1, post3));
+        when(postMapper.toDto(post1)).thenReturn(postDto1);
+        when(postMapper.toDto(post3)).thenReturn(postDto3);
+
+        BatchResultDto<PostDto> result = postService.getPostsByIds(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(postDto3, postDto1), result.items());
+        assertEquals(List.of(2L), result.missingIds());
+        verify(postRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    public void shouldThrowConstraintViolationExceptionWhenIdNotPositive_getPostsByIds() {
+
+        assertThatThrownBy(() -> postService.getPostsByIds(List.of(1L, 0L)))
+                .isInstanceOf(ConstraintViolationException.class)
+                .satisfies(exception -> {
+                    var violations = ((ConstraintViolationException) exception).getConstraintViolations();
+                    assertThat(violations).hasSize(1);
+                    assertThat(violations)
+                            .anyMatch(v ->
+                                    v.getPropertyPath().toString().contains("postIds") &&
+                                            v.getMessage().equals("PostId must be positive number."));
+                });
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    public void shouldReturnProjectedPosts_getAllPosts() {
+        Set<PostField> fields = Set.of(PostField.ID, PostField.TITLE);
+        List<Map<String, Object>> expected = List.of(
+                Map.of("id", 1L, "title", "title1"),
+                Map.of("id", 2L, "title", "title2"));
+
+        when(postRepository.findAllProjected(fields)).thenReturn(expected);
+
+        assertEquals(expected, postService.getAllPosts(fields));
+    }
+
+    @Test
+    public void shouldThrowConstraintViolationExceptionWhenFieldsEmpty_getAllPosts() {
+
+        assertThatThrownBy(() -> postService.getAllPosts(Set.of()))
+                .isInstanceOf(ConstraintViolationException.class)
+                .satisfies(exception -> {
+                    var violations = ((ConstraintViolationException) exception).getConstraintViolations();
+                    assertThat(violations).hasSize(1);
+                    assertThat(violations)
+                            .anyMatch(v ->
+                                    v.getPropertyPath().toString().contains("fields") &&
+                                            v.getMessage().equals("Fields mustn't be empty."));
+                });
+    }
+
+    @Test
+    public void shouldThrowPostNotFoundException_FieldsGetPostById() {
+
+        Set<PostField> fields = Set.of(PostField.TITLE);
+        when(postRepository.findProjectedById(100L, fields)).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(PostNotFoundException.class,
+                () -> postService.getPostById(100L, fields));
+
+        assertEquals("Post not found for Id: 100", exception.getMessage());
+        assertEquals(0, postHotKeys.getRecordedCount());
     }
 
     @Test
@@ -153,26 +248,16 @@ public class PostServiceTest {
         Long userIdArg = 1L;
         PostDto postDtoArg = buildPostDto(11L, "test title", "some text", null);
 
-        User user = buildUser(userIdArg, "test name", "test mail");
-
-        Post postFromMapper = buildPost(null, "test title", "some text");
-        postFromMapper.setUser(user);
-
-        Post savedPost = buildPost(2L, "test title", "some text");
-        savedPost.setUser(user);
-
-        PostDto postDtoFromMapper = buildPostDto(2L, "test title", "some text", user.getId());
+        PostDto insertedPost = buildPostDto(2L, "test title", "some text", userIdArg);
 
         PostDto expected = buildPostDto(2L, "test title", "some text", userIdArg);
 
-        when(userRepository.findById(userIdArg)).thenReturn(Optional.of(user));
-        when(postMapper.toPost(postDtoArg)).thenReturn(postFromMapper);
-        when(postRepository.save(postFromMapper)).thenReturn(savedPost);
-        when(postMapper.toDto(savedPost)).thenReturn(postDtoFromMapper);
+        when(postRepository.insertPost(userIdArg, "test title", "some text")).thenReturn(Optional.of(insertedPost));
 
         PostDto result = postService.createNewPost(userIdArg, postDtoArg);
 
         assertEquals(expected, result);
+        verify(eventPublisher).publishEvent(ChangeEvent.postCreated(insertedPost));
     }
 
     @Test
@@ -235,7 +320,7 @@ public class PostServiceTest {
         PostDto postDtoArg = buildPostDto(11L, "test title", "some text", null);
         Long userIdArg = 1L;
 
-        when(userRepository.findById(userIdArg)).thenReturn(Optional.empty());
+        when(postRepository.insertPost(userIdArg, "test title", "some text")).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(UserNotFoundException.class,
                 () -> postService.createNewPost(userIdArg, postDtoArg));
@@ -248,27 +333,17 @@ public class PostServiceTest {
         Long postIdArg = 1L;
         PostDto postDtoArg = buildPostDto(null, "changed title", "changed text", null);
 
-        User user = buildUser(2L, "test name", "test mail");
-        Post postFromDB = buildPost(postIdArg, "other title", "other text");
-        postFromDB.setUser(user);
-
-        Post updatedPost = buildPost(postIdArg, "changed title", "changed text");
-        updatedPost.setUser(user);
-
-        Post updatedAndSavedPost = buildPost(postIdArg, "changed title", "changed text");
-        updatedPost.setUser(user);
-
-        PostDto postDtoFromMapper = buildPostDto(postIdArg, "changed title", "changed text", 2L);
+        PostDto updatedPost = buildPostDto(postIdArg, "changed title", "changed text", 2L);
 
         PostDto expected = buildPostDto(postIdArg, "changed title", "changed text", 2L);
 
-        when(postRepository.findById(postIdArg)).thenReturn(Optional.of(postFromDB));
-        when(postRepository.save(updatedPost)).thenReturn(updatedAndSavedPost);
-        when(postMapper.toDto(updatedAndSavedPost)).thenReturn(postDtoFromMapper);
+        when(postRepository.updatePost(postIdArg, "changed title", "changed text")).thenReturn(Optional.of(updatedPost));
 
         PostDto result = postService.updateExistingPost(postIdArg, postDtoArg);
 
         assertEquals(expected, result);
+        verify(postRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(ChangeEvent.postUpdated(updatedPost));
     }
 
     @Test
@@ -331,7 +406,7 @@ public class PostServiceTest {
         PostDto postDtoArg = buildPostDto(null, "test title", "some text", null);
         Long postIdArg = 1L;
 
-        when(userRepository.findById(postIdArg)).thenReturn(Optional.empty());
+        when(postRepository.updatePost(postIdArg, "test title", "some text")).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(PostNotFoundException.class,
                 () -> postService.updateExistingPost(postIdArg, postDtoArg));
@@ -342,8 +417,23 @@ public class PostServiceTest {
     @Test
     public void shouldDeletePost() {
 
+        when(postRepository.deletePost(1L)).thenReturn(Optional.of(2L));
+
         postService.deletePostById(1L);
-        verify(postRepository).deleteById(1L);
+        verify(postRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(ChangeEvent.postDeleted(1L, 2L));
+    }
+
+    @Test
+    public void shouldThrowPostNotFoundException_deletePostById() {
+
+        when(postRepository.deletePost(1L)).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(PostNotFoundException.class,
+                () -> postService.deletePostById(1L));
+
+        assertEquals("Post wasn't found for Id: 1", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
@@ -1,8 +1,18 @@
 package com.airplane.userpost.service;
 
+import com.airplane.userpost.coalescing.BatchLoaders;
+import com.airplane.userpost.coalescing.SingleFlight;
+import com.airplane.userpost.dto.BatchResultDto;
 import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.PostField;
 import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.dto.UserField;
+import com.airplane.userpost.dto.UserFieldSet;
+import com.airplane.userpost.dto.UserSummaryDto;
+import com.airplane.userpost.event.ChangeEvent;
 import com.airplane.userpost.exception.UserNotFoundException;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
 import com.airplane.userpost.mapper.UserMapper;
 import com.airplane.userpost.model.Post;
 import com.airplane.userpost.model.User;
@@ -14,17 +24,25 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +52,7 @@ public class UserServiceTest {
     private UserRepository userRepository;
     private PostRepository postRepository;
     private UserMapper userMapper;
+    private ApplicationEventPublisher eventPublisher;
 
     @BeforeEach
     public void initTest() {
@@ -41,7 +60,11 @@ public class UserServiceTest {
         userMapper = Mockito.mock(UserMapper.class);
         postRepository = Mockito.mock(PostRepository.class);
         userRepository = Mockito.mock(UserRepository.class);
-        UserService service = new UserService(userRepository, postRepository, userMapper);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        UserService service = new UserService(userRepository, postRepository, userMapper, eventPublisher,
+                new SingleFlight<>(EntityKey.USER, TransactionOperations.withoutTransaction(), () -> false, true),
+                new BatchLoaders(TransactionOperations.withoutTransaction(), false, Duration.ZERO, 1),
+                new HotKeyTracker(EntityKey.USER, 10, 4, 1024, 2));
 
         var validatorFactory = new LocalValidatorFactoryBean();
         validatorFactory.afterPropertiesSet();
@@ -124,7 +147,7 @@ public class UserServiceTest {
         userDtoFromMapper.addPost(postDtoFromMapper1);
         userDtoFromMapper.addPost(postDtoFromMapper2);
 
-        when(userRepository.findById(userIdArg)).thenReturn(Optional.of(userFromDB));
+        when(userRepository.findWithPostsById(userIdArg)).thenReturn(Optional.of(userFromDB));
         when(userMapper.toDto(userFromDB)).thenReturn(userDtoFromMapper);
 
         UserDto result = userService.getUserById(userIdArg);
@@ -132,6 +155,80 @@ public class UserServiceTest {
         assertEquals(expectedUser, result);
     }
 
+    @Test
+    void shouldReturnFoundUsersInRequestedOrder_getUsersByIds() {
+        User user1 = buildUser(1L, "test name1", "test mail1");
+        User user2 = buildUser(2L, "test name2", "test mail2");
+        UserDto userDto1 = buildUserDto(1L, "test name1", "test mail1");
+        UserDto userDto2 = buildUserDto(2L, "test name2", "test mail2");
+
+        when(userRepository.findWithPostsByIdIn(Set.of(2L, 5L, 1L))).thenReturn(List.of(user1, user2));
+        when(userMapper.toDto(user1)).thenReturn(userDto1);
+        when(userMapper.toDto(user2)).thenReturn(userDto2);
+
+        BatchResultDto<UserDto> result = userService.getUsersByIds(List.of(2L, 5L, 1L));
+
+        assertEquals(List.of(userDto2, userDto1), result.items());
+        assertEquals(List.of(5L), result.missingIds());
+    }
+
+    @Test
+    public void shouldThrowConstraintViolationException_EmptyIds_getUsersByIds() {
+
+        assertThatThrownBy(() -> userService.getUsersByIds(List.of()))
+                .isInstanceOf(ConstraintViolationException.class)
+                .satisfies(exception -> {
+                    var violations = ((ConstraintViolationException) exception).getConstraintViolations();
+                    assertThat(violations).hasSize(1);
+                    assertThat(violations)
+                            .anyMatch(v ->
+                                    v.getPropertyPath().toString().contains("userIds") &&
+                                            v.getMessage().equals("UserIds mustn't be empty."));
+                });
+    }
+
+    @Test
+    void shouldReturnProjectedUserWithPosts_getUserById() {
+
+        Long userIdArg = 1L;
+        UserFieldSet fields = new UserFieldSet(Set.of(UserField.USER_NAME), Set.of(PostField.TITLE));
+
+        Map<String, Object> userRow = new HashMap<>(Map.of("userName", "test name"));
+        List<Map<String, Object>> postRows = List.of(Map.of("title", "title1"));
+
+        when(userRepository.findProjectedById(userIdArg, fields.userFields())).thenReturn(Optional.of(userRow));
+        when(postRepository.findProjectedByUserId(userIdArg, fields.postFields())).thenReturn(postRows);
+
+        Map<String, Object> expected = Map.of("userName", "test name", "posts", postRows);
+
+        assertEquals(expected, userService.getUserById(userIdArg, fields));
+    }
+
+    @Test
+    void shouldNotFetchPostsWhenNotRequested_getUserById() {
+
+        Long userIdArg = 1L;
+        UserFieldSet fields = new UserFieldSet(Set.of(UserField.ID), Set.of());
+
+        when(userRepository.findProjectedById(userIdArg, fields.userFields()))
+                .thenReturn(Optional.of(new HashMap<>(Map.of("id", userIdArg))));
+
+        assertEquals(Map.of("id", userIdArg), userService.getUserById(userIdArg, fields));
+        verify(postRepository, never()).findProjectedByUserId(any(), any());
+    }
+
+    @Test
+    public void shouldThrowUserNotFoundException_FieldsGetUserById() {
+
+        UserFieldSet fields = new UserFieldSet(Set.of(UserField.ID), Set.of());
+        when(userRepository.findProjectedById(1L, fields.userFields())).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(UserNotFoundException.class,
+                () -> userService.getUserById(1L, fields));
+
+        assertEquals("User not found with Id: 1", exception.getMessage());
+    }
+
     @Test
     public void shouldThrowConstraintViolationException_NullArg_getUserById() {
 
@@ -165,7 +262,7 @@ public class UserServiceTest {
     @Test
     public void shouldThrowUserNotFoundException_getUserById() {
 
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.findWithPostsById(1L)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(UserNotFoundException.class,
                 () -> userService.getUserById(1L));
@@ -173,6 +270,48 @@ public class UserServiceTest {
         assertEquals("User not found with Id: 1", exception.getMessage());
     }
 
+    @Test
+    void shouldReturnUserSummary() {
+
+        Long userIdArg = 1L;
+        User userFromDB = buildUser(userIdArg, "test name", "test mail");
+        userFromDB.setPostCount(3L);
+
+        UserSummaryDto expected = new UserSummaryDto(userIdArg, "test name", "test mail",
+                userFromDB.getCreatedAt(), 3L);
+
+        when(userRepository.findById(userIdArg)).thenReturn(Optional.of(userFromDB));
+        when(userMapper.toSummaryDto(userFromDB)).thenReturn(expected);
+
+        assertEquals(expected, userService.getUserSummary(userIdArg));
+    }
+
+    @Test
+    public void shouldThrowUserNotFoundException_getUserSummary() {
+
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(UserNotFoundException.class,
+                () -> userService.getUserSummary(1L));
+
+        assertEquals("User not found with Id: 1", exception.getMessage());
+    }
+
+    @Test
+    public void shouldThrowConstraintViolationException_UserIdNotPositive_getUserSummary() {
+
+        assertThatThrownBy(() -> userService.getUserSummary(0L))
+                .isInstanceOf(ConstraintViolationException.class)
+                .satisfies(exception -> {
+                    var violations = ((ConstraintViolationException) exception).getConstraintViolations();
+                    assertThat(violations).hasSize(1);
+                    assertThat(violations)
+                            .anyMatch(v ->
+                                    v.getPropertyPath().toString().contains("userId") &&
+                                            v.getMessage().equals("UserId must be positive number."));
+                });
+    }
+
     @Test
     void shouldReturnCreatedNewUser() {
 
@@ -190,6 +329,7 @@ public class UserServiceTest {
         when(userMapper.toDto(savedUser)).thenReturn(userDtoFromMapper);
 
         assertEquals(expectedUserDto, userService.createNewUser(userDtoArg));
+        verify(eventPublisher).publishEvent(ChangeEvent.userCreated(userDtoFromMapper));
     }
 
     @Test
@@ -312,6 +452,7 @@ public class UserServiceTest {
         when(userMapper.toDto(savedUser)).thenReturn(mappedUser);
 
         assertEquals(expectedUser, userService.updateExistingUser(userIdArg, userDtoArg));
+        verify(userRepository).setPostCount(userIdArg, 3);
     }
 
     @Test
@@ -408,10 +549,22 @@ public class UserServiceTest {
 
     @Test
     public void deleteUser() {
+        when(userRepository.deleteUserWithPosts(1L)).thenReturn(Optional.of(List.of(3L, 4L)));
 
         userService.deleteUser(1L);
 
-        verify(userRepository).deleteById(1L);
+        verify(userRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(ChangeEvent.userDeleted(1L, List.of(3L, 4L)));
+    }
+
+    @Test
+    public void shouldThrowUserNotFoundException_deleteUser() {
+        when(userRepository.deleteUserWithPosts(1L)).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(UserNotFoundException.class, () -> userService.deleteUser(1L));
+
+        assertEquals("User not found with Id: 1", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 	
 	@Test
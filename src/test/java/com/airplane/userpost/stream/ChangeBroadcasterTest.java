@@ -0,0 +1,143 @@
+package com.airplane.userpost.stream;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.event.ChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeBroadcasterTest {
+
+    private ChangeBroadcaster broadcaster;
+    private final CountDownLatch releaseSlowConsumer = new CountDownLatch(1);
+
+    @BeforeEach
+    public void initTest() {
+        broadcaster = new ChangeBroadcaster(new ObjectMapper().registerModule(new JavaTimeModule()),
+                2, Duration.ofMinutes(1), Duration.ofMinutes(5));
+        broadcaster.start();
+    }
+
+    @AfterEach
+    public void stopBroadcaster() {
+        releaseSlowConsumer.countDown();
+        broadcaster.stop();
+    }
+
+    @Test
+    public void shouldDeliverEventsInOrderToEverySubscriber() throws InterruptedException {
+        RecordingEmitter first = new RecordingEmitter(null);
+        RecordingEmitter second = new RecordingEmitter(null);
+        broadcaster.register(first);
+        broadcaster.register(second);
+
+        broadcaster.publish(ChangeEvent.postCreated(new PostDto(1L, "title", "text", null, 2L)));
+        broadcaster.publish(ChangeEvent.postDeleted(1L, 2L));
+
+        for(RecordingEmitter emitter: List.of(first, second)) {
+            awaitTrue(() -> emitter.frames.size() == 2);
+            assertTrue(emitter.frames.get(0).contains("event:post.created"));
+            assertTrue(emitter.frames.get(0).contains("\"title\":\"title\""));
+            assertTrue(emitter.frames.get(1).contains("event:post.deleted"));
+            assertTrue(emitter.frames.get(1).contains("data:{\"id\":1}"));
+        }
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    public void shouldEvictSlowSubscriberOnly() throws InterruptedException {
+        RecordingEmitter slow = new RecordingEmitter(releaseSlowConsumer);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        broadcaster.register(slow);
+        broadcaster.register(fast);
+
+        //the slow writer holds one event, two more fill its buffer, the fourth evicts it
+        //the fast one keeps up with every event
+        for(int id = 1; id <= 4; id++) {
+            broadcaster.publish(ChangeEvent.postDeleted((long) id, 2L));
+            int delivered = id;
+            awaitTrue(() -> fast.frames.size() == delivered);
+            if(id == 1) awaitTrue(() -> slow.sending);
+        }
+
+        assertEquals(1, broadcaster.getEvictedCount());
+        assertEquals(1, broadcaster.getSubscriberCount());
+
+        broadcaster.publish(ChangeEvent.postDeleted(5L, 2L));
+        assertEquals(1, broadcaster.getEvictedCount());
+        awaitTrue(() -> fast.frames.size() == 5);
+    }
+
+    @Test
+    public void shouldRemoveSubscriberWhenClientIsGone() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        emitter.failing = true;
+        broadcaster.register(emitter);
+
+        broadcaster.publish(ChangeEvent.postDeleted(1L, 2L));
+
+        awaitTrue(() -> broadcaster.getSubscriberCount() == 0);
+        assertEquals(0, broadcaster.getEvictedCount());
+    }
+
+    @Test
+    public void shouldCloseSubscribersOnStop() throws InterruptedException {
+        broadcaster.register(new RecordingEmitter(null));
+        broadcaster.register(new RecordingEmitter(null));
+
+        broadcaster.stop();
+
+        awaitTrue(() -> broadcaster.getSubscriberCount() == 0);
+        assertFalse(broadcaster.isRunning());
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while(!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    //captures raw frames instead of writing to a response, optionally blocks like a stalled socket
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private volatile boolean sending;
+        private volatile boolean failing;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws java.io.IOException {
+            if(failing) throw new java.io.IOException("Broken pipe");
+            sending = true;
+            if(release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch(InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            frames.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+    }
+}
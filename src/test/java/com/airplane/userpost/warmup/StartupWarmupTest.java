@@ -0,0 +1,158 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.dto.PostDto;
+import com.airplane.userpost.dto.UserDto;
+import com.airplane.userpost.hotkeys.HotKey;
+import com.airplane.userpost.hotkeys.HotKeyTracker;
+import com.airplane.userpost.invalidation.EntityKey;
+import com.airplane.userpost.model.Post;
+import com.airplane.userpost.model.User;
+import com.airplane.userpost.repository.PostRepository;
+import com.airplane.userpost.repository.UserRepository;
+import com.airplane.userpost.service.PostService;
+import com.airplane.userpost.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class StartupWarmupTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @TempDir
+    Path dir;
+
+    private final HotKeyTracker postHotKeys = new HotKeyTracker(EntityKey.POST, 10, 4, 1024, 2);
+    private final HotKeyTracker userHotKeys = new HotKeyTracker(EntityKey.USER, 10, 4, 1024, 2);
+    private final RecordingWarmer warmer = new RecordingWarmer();
+
+    @BeforeEach
+    public void initTest() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldPrefetchSnapshotInBatches() throws IOException {
+        User user = buildUser();
+        for(int i = 0; i < 5; i++) {
+            Post post = new Post();
+            post.setTitle("title" + i);
+            post.setText("text" + i);
+            post.setUser(user);
+            user.addPost(post);
+        }
+        user = userRepository.save(user);
+        List<HotKey> posts = user.getPosts().stream().map(post -> new HotKey(post.getId(), 10)).toList();
+
+        Path path = dir.resolve("userpost.snapshot");
+        WarmupSnapshotFile.write(path, new WarmupSnapshot(Instant.now(), posts, List.of(new HotKey(user.getId(), 7))));
+        StartupWarmup warmup = startupWarmup(path, postService, true, Duration.ofSeconds(30), 2);
+
+        warmup.run(new DefaultApplicationArguments());
+
+        assertEquals(5, warmer.posts.size());
+        assertEquals(List.of(user.getId()), warmer.users.stream().map(UserDto::getId).toList());
+        //5 posts in batches of 2
+        assertEquals(3, warmer.postBatches);
+        assertEquals(5, warmup.getPrefetchedPostCount());
+        assertEquals(1, warmup.getPrefetchedUserCount());
+        assertEquals(10, postHotKeys.estimate(posts.getFirst().id()));
+        assertEquals(List.of(new HotKey(user.getId(), 7)), userHotKeys.topKeys());
+    }
+
+    @Test
+    public void shouldSkipWhenDisabledOrSnapshotMissing() throws IOException {
+        Path path = dir.resolve("userpost.snapshot");
+        startupWarmup(path, postService, true, Duration.ofSeconds(30), 500).run(new DefaultApplicationArguments());
+
+        WarmupSnapshotFile.write(path, new WarmupSnapshot(Instant.now(), List.of(new HotKey(1, 1)), List.of()));
+        startupWarmup(path, postService, false, Duration.ofSeconds(30), 500).run(new DefaultApplicationArguments());
+
+        assertTrue(warmer.posts.isEmpty());
+        assertEquals(0, postHotKeys.getRecordedCount() + postHotKeys.estimate(1));
+    }
+
+    @Test
+    public void shouldStopAtTimeout() {
+        PostService slowService = mock(PostService.class);
+        StartupWarmup warmup = startupWarmup(dir.resolve("unused"), slowService, true, Duration.ZERO, 500);
+
+        warmup.warm(new WarmupSnapshot(Instant.now(), ids(1_000), List.of()));
+
+        verify(slowService, never()).getPostsByIds(anyList());
+        assertEquals(0, warmup.getPrefetchedPostCount());
+    }
+
+    @Test
+    public void shouldNotFailStartupWhenPrefetchFails() {
+        PostService failingService = mock(PostService.class);
+        when(failingService.getPostsByIds(anyList())).thenThrow(new IllegalStateException("database is down"));
+        StartupWarmup warmup = startupWarmup(dir.resolve("unused"), failingService, true, Duration.ofSeconds(30), 500);
+
+        assertDoesNotThrow(() -> warmup.warm(new WarmupSnapshot(Instant.now(), ids(3), List.of())));
+        assertEquals(0, warmup.getPrefetchedPostCount());
+    }
+
+    private StartupWarmup startupWarmup(Path path, PostService postService, boolean enabled, Duration timeout, int batchSize) {
+        return new StartupWarmup(path, postService, userService, postHotKeys, userHotKeys, List.of(warmer),
+                enabled, Duration.ofHours(1), timeout, batchSize);
+    }
+
+    private static List<HotKey> ids(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> new HotKey(id, 1)).toList();
+    }
+
+    private User buildUser() {
+        User user = new User();
+        user.setUserName("warm name");
+        user.setEmail("warm mail");
+        return user;
+    }
+
+    private static class RecordingWarmer implements CacheWarmer {
+
+        private final List<PostDto> posts = new ArrayList<>();
+        private final List<UserDto> users = new ArrayList<>();
+        private int postBatches;
+
+        @Override
+        public void warmPosts(List<PostDto> posts) {
+            this.posts.addAll(posts);
+            postBatches++;
+        }
+
+        @Override
+        public void warmUsers(List<UserDto> users) {
+            this.users.addAll(users);
+        }
+    }
+}
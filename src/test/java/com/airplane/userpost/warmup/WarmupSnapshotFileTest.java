@@ -0,0 +1,92 @@
+package com.airplane.userpost.warmup;
+
+import com.airplane.userpost.hotkeys.HotKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmupSnapshotFileTest {
+
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+
+    @TempDir
+    Path dir;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @Test
+    public void shouldReadWhatWasWritten() throws IOException {
+        Path path = dir.resolve("nested/userpost.snapshot");
+        WarmupSnapshot snapshot = new WarmupSnapshot(now,
+                List.of(new HotKey(7, 50), new HotKey(3, 20)), List.of(new HotKey(1, 9)));
+
+        WarmupSnapshotFile.write(path, snapshot);
+
+        assertEquals(Optional.of(snapshot), WarmupSnapshotFile.read(path, MAX_AGE, now.plusSeconds(60)));
+        assertFalse(Files.exists(dir.resolve("nested/userpost.snapshot.tmp")));
+    }
+
+    @Test
+    public void shouldReplacePreviousSnapshot() throws IOException {
+        Path path = dir.resolve("userpost.snapshot");
+        WarmupSnapshotFile.write(path, new WarmupSnapshot(now, List.of(new HotKey(1, 1), new HotKey(2, 1)), List.of()));
+        WarmupSnapshot latest = new WarmupSnapshot(now, List.of(), List.of(new HotKey(5, 4)));
+
+        WarmupSnapshotFile.write(path, latest);
+
+        assertEquals(Optional.of(latest), WarmupSnapshotFile.read(path, MAX_AGE, now));
+    }
+
+    @Test
+    public void shouldIgnoreMissingSnapshot() {
+        assertTrue(WarmupSnapshotFile.read(dir.resolve("missing.snapshot"), MAX_AGE, now).isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreStaleSnapshot() throws IOException {
+        Path path = dir.resolve("userpost.snapshot");
+        WarmupSnapshotFile.write(path, new WarmupSnapshot(now, List.of(new HotKey(1, 1)), List.of()));
+
+        assertTrue(WarmupSnapshotFile.read(path, MAX_AGE, now.plus(MAX_AGE).plusSeconds(1)).isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreFlippedByte() throws IOException {
+        Path path = dir.resolve("userpost.snapshot");
+        WarmupSnapshotFile.write(path, new WarmupSnapshot(now, List.of(new HotKey(1, 1), new HotKey(2, 1)), List.of()));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[30] ^= 1;
+        Files.write(path, bytes);
+
+        assertTrue(WarmupSnapshotFile.read(path, MAX_AGE, now).isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreTruncatedSnapshot() throws IOException {
+        Path path = dir.resolve("userpost.snapshot");
+        WarmupSnapshotFile.write(path, new WarmupSnapshot(now, List.of(new HotKey(1, 1), new HotKey(2, 1)), List.of()));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertTrue(WarmupSnapshotFile.read(path, MAX_AGE, now).isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreForeignFile() throws IOException {
+        Path path = dir.resolve("userpost.snapshot");
+        Files.writeString(path, "definitely not a snapshot, but long enough to pass the size check");
+
+        assertTrue(WarmupSnapshotFile.read(path, MAX_AGE, now).isEmpty());
+    }
+}
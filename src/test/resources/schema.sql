@@ -1,15 +1,20 @@
-CREATE TABLE users (
+CREATE TABLE IF NOT EXISTS users (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     username VARCHAR(255) UNIQUE,
     email VARCHAR(255) UNIQUE,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    post_count BIGINT NOT NULL DEFAULT 0
 );
 
-CREATE TABLE posts (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+CREATE SEQUENCE IF NOT EXISTS posts_id_seq;
+
+CREATE TABLE IF NOT EXISTS posts (
+    id BIGINT DEFAULT NEXT VALUE FOR posts_id_seq PRIMARY KEY,
     title VARCHAR(255),
     text TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     user_id BIGINT,
     CONSTRAINT fk_user FOREIGN KEY (user_id) REFERENCES users(id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_posts_user_id ON posts (user_id);
\ No newline at end of file